@@ -1,3 +1,18 @@
+import backend.config.DatabaseConfig;
+import backend.config.SummarySnapshotSettings;
+import backend.repository.DishRepository;
+import backend.repository.OrderRepository;
+import backend.repository.impl.DishRepositoryImpl;
+import backend.repository.impl.InMemoryDishRepository;
+import backend.repository.impl.InMemoryOrderRepository;
+import backend.repository.impl.InMemoryStore;
+import backend.repository.impl.JournaledOrderRepository;
+import backend.repository.impl.OrderJournal;
+import backend.repository.impl.OrderRepositoryImpl;
+import backend.repository.impl.OrderSummarySnapshot;
+import backend.service.BackupScheduler;
+import backend.service.MaintenanceScheduler;
+import backend.service.OrderService;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
@@ -10,11 +25,29 @@ import java.io.IOException;
  * Bootstrap class for the restaurant management UI.
  */
 public class App extends Application {
+    private MaintenanceScheduler maintenanceScheduler;
+    private BackupScheduler backupScheduler;
+    private MainViewController mainViewController;
 
     @Override
     public void start(Stage primaryStage) throws IOException {
+        DatabaseConfig.initialize();
+        boolean memoryStorage = InMemoryStore.isSelected();
+        OrderRepository maintenanceOrders = JournaledOrderRepository.withSharedJournal(memoryStorage
+                ? new InMemoryOrderRepository(InMemoryStore.shared())
+                : new OrderRepositoryImpl());
+        DishRepository maintenanceDishes = memoryStorage
+                ? new InMemoryDishRepository(InMemoryStore.shared())
+                : new DishRepositoryImpl();
+        maintenanceScheduler = MaintenanceScheduler.fromSystemProperties(
+                new OrderService(maintenanceOrders, maintenanceDishes));
+        maintenanceScheduler.start();
+        backupScheduler = BackupScheduler.fromSystemProperties();
+        backupScheduler.start();
         FXMLLoader loader = new FXMLLoader(App.class.getResource("/interface/view/MainView.fxml"));
         Parent root = loader.load();
+        mainViewController = loader.getController();
+        mainViewController.setBackupScheduler(backupScheduler);
         Scene scene = new Scene(root, 900, 600);
         scene.getStylesheets().add(App.class.getResource("/interface/style/style.css").toExternalForm());
         primaryStage.setTitle("Restaurant Orders");
@@ -22,6 +55,38 @@ public class App extends Application {
         primaryStage.show();
     }
 
+    @Override
+    public void stop() {
+        if (mainViewController != null) {
+            mainViewController.shutdown();
+        }
+        if (maintenanceScheduler != null) {
+            maintenanceScheduler.close();
+        }
+        if (backupScheduler != null) {
+            backupScheduler.close();
+        }
+        saveSummarySnapshot();
+        InMemoryStore.shutdownShared();
+        OrderJournal.shutdownShared();
+        DatabaseConfig.shutdown();
+    }
+
+    /**
+     * Leaves an up-to-date order summary snapshot for the next start, once queued writes are flushed.
+     */
+    private static void saveSummarySnapshot() {
+        SummarySnapshotSettings settings = SummarySnapshotSettings.fromSystemProperties();
+        if (!settings.isEnabled() || InMemoryStore.isSelected()) {
+            return;
+        }
+        try {
+            OrderSummarySnapshot.refresh(settings.getFile());
+        } catch (RuntimeException exception) {
+            // the next start reads SQLite instead and writes a new snapshot in the background
+        }
+    }
+
     public static void main(String[] args) {
         launch(args);
     }
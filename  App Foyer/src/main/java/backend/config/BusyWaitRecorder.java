@@ -0,0 +1,68 @@
+package backend.config;
+
+import org.sqlite.BusyHandler;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SQLite busy handler that replaces {@code busy_timeout} and records how long a connection slept waiting for a
+ * lock held by another connection. One instance per connection; the counters are shared by one side of the
+ * read/write split.
+ */
+final class BusyWaitRecorder extends BusyHandler {
+    // same back-off as SQLite's own busy_timeout handler
+    private static final int[] DELAYS_MILLIS = {1, 2, 5, 10, 15, 20, 25, 25, 25, 50, 50, 100};
+
+    private final Counters counters;
+    private final int timeoutMillis;
+    private long episodeStart;
+
+    BusyWaitRecorder(Counters counters, int timeoutMillis) {
+        this.counters = counters;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    @Override
+    protected int callback(int previousCalls) {
+        long now = System.nanoTime();
+        if (previousCalls == 0) {
+            episodeStart = now;
+            counters.waits.incrementAndGet();
+        }
+        long waitedMillis = TimeUnit.NANOSECONDS.toMillis(now - episodeStart);
+        if (waitedMillis >= timeoutMillis) {
+            counters.timeouts.incrementAndGet();
+            return 0;
+        }
+        long delay = Math.min(DELAYS_MILLIS[Math.min(previousCalls, DELAYS_MILLIS.length - 1)],
+                timeoutMillis - waitedMillis);
+        try {
+            Thread.sleep(delay);
+            return 1;
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            return 0;
+        } finally {
+            counters.waitNanos.addAndGet(System.nanoTime() - now);
+        }
+    }
+
+    static final class Counters {
+        private final AtomicLong waits = new AtomicLong();
+        private final AtomicLong waitNanos = new AtomicLong();
+        private final AtomicLong timeouts = new AtomicLong();
+
+        long getWaits() {
+            return waits.get();
+        }
+
+        long getWaitMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(waitNanos.get());
+        }
+
+        long getTimeouts() {
+            return timeouts.get();
+        }
+    }
+}
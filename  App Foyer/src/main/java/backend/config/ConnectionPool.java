@@ -0,0 +1,254 @@
+package backend.config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded pool of long-lived JDBC connections.
+ * Callers keep the usual {@code try (Connection c = pool.getConnection())} idiom: closing the
+ * handed-out connection returns the physical connection to the pool instead of closing it.
+ */
+public final class ConnectionPool implements AutoCloseable {
+    private final ConnectionFactory factory;
+    private final PoolSettings settings;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private final Deque<PooledConnection> idle = new ArrayDeque<>();
+    private int total;
+    private boolean closed;
+
+    private final AtomicLong checkouts = new AtomicLong();
+    private final AtomicLong waits = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+    private final AtomicLong statementHits = new AtomicLong();
+    private final AtomicLong statementMisses = new AtomicLong();
+    private final AtomicLong statementEvictions = new AtomicLong();
+
+    public ConnectionPool(ConnectionFactory factory, PoolSettings settings) {
+        this.factory = factory;
+        this.settings = settings;
+    }
+
+    public Connection getConnection() throws SQLException {
+        PooledConnection pooled = acquire();
+        return (Connection) Proxy.newProxyInstance(
+                ConnectionPool.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new LeaseHandler(pooled));
+    }
+
+    public PoolStats getStats() {
+        lock.lock();
+        try {
+            return new PoolStats(total, idle.size(), checkouts.get(), waits.get(),
+                    TimeUnit.NANOSECONDS.toMillis(waitNanos.get()), timeouts.get(), created.get(), evicted.get(),
+                    statementHits.get(), statementMisses.get(), statementEvictions.get());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            while (!idle.isEmpty()) {
+                discard(idle.pollFirst());
+            }
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private PooledConnection acquire() throws SQLException {
+        long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(settings.getAcquireTimeoutMillis());
+        long waitStart = 0L;
+        lock.lock();
+        try {
+            while (true) {
+                if (closed) {
+                    throw new SQLException("Connection pool is closed");
+                }
+                evictExpiredIdle();
+                PooledConnection candidate = idle.pollFirst();
+                if (candidate != null) {
+                    checkouts.incrementAndGet();
+                    return candidate;
+                }
+                if (total < settings.getMaxSize()) {
+                    total++;
+                    break;
+                }
+                if (waitStart == 0L) {
+                    waitStart = System.nanoTime();
+                    waits.incrementAndGet();
+                }
+                long remaining = timeoutNanos - (System.nanoTime() - waitStart);
+                if (remaining <= 0L) {
+                    timeouts.incrementAndGet();
+                    throw new SQLException("Timed out after " + settings.getAcquireTimeoutMillis()
+                            + " ms waiting for a database connection");
+                }
+                try {
+                    available.awaitNanos(remaining);
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Interrupted while waiting for a database connection", exception);
+                }
+            }
+        } finally {
+            if (waitStart != 0L) {
+                waitNanos.addAndGet(System.nanoTime() - waitStart);
+            }
+            lock.unlock();
+        }
+
+        try {
+            Connection physical = factory.open();
+            created.incrementAndGet();
+            checkouts.incrementAndGet();
+            return new PooledConnection(physical, new StatementCache(physical, settings.getStatementCacheSize(),
+                    statementHits, statementMisses, statementEvictions));
+        } catch (SQLException | RuntimeException exception) {
+            lock.lock();
+            try {
+                total--;
+                available.signal();
+            } finally {
+                lock.unlock();
+            }
+            throw exception;
+        }
+    }
+
+    private void release(PooledConnection pooled) {
+        pooled.statements.releaseLeaked();
+        boolean reusable = reset(pooled.physical);
+        lock.lock();
+        try {
+            if (closed || !reusable) {
+                discard(pooled);
+            } else {
+                pooled.lastReturnedNanos = System.nanoTime();
+                idle.addFirst(pooled);
+            }
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean reset(Connection physical) {
+        try {
+            if (physical.isClosed()) {
+                return false;
+            }
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            return true;
+        } catch (SQLException exception) {
+            return false;
+        }
+    }
+
+    /**
+     * Closes idle connections unused for longer than the idle timeout, keeping at least {@code minIdle}.
+     * Must be called while holding {@link #lock}; the oldest connections sit at the tail of the deque.
+     */
+    private void evictExpiredIdle() {
+        long idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(settings.getIdleTimeoutMillis());
+        long now = System.nanoTime();
+        while (!idle.isEmpty() && idle.size() > settings.getMinIdle()
+                && now - idle.peekLast().lastReturnedNanos > idleTimeoutNanos) {
+            discard(idle.pollLast());
+            evicted.incrementAndGet();
+        }
+    }
+
+    private void discard(PooledConnection pooled) {
+        total--;
+        pooled.statements.closeAll();
+        try {
+            pooled.physical.close();
+        } catch (SQLException ignored) {
+            // the connection is being thrown away anyway
+        }
+    }
+
+    @FunctionalInterface
+    public interface ConnectionFactory {
+        Connection open() throws SQLException;
+    }
+
+    private static final class PooledConnection {
+        private final Connection physical;
+        private final StatementCache statements;
+        private long lastReturnedNanos;
+
+        private PooledConnection(Connection physical, StatementCache statements) {
+            this.physical = physical;
+            this.statements = statements;
+        }
+    }
+
+    private final class LeaseHandler implements InvocationHandler {
+        private final PooledConnection pooled;
+        private boolean released;
+
+        private LeaseHandler(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!released) {
+                        released = true;
+                        release(pooled);
+                    }
+                    return null;
+                case "isClosed":
+                    return released || pooled.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + pooled.physical + "]";
+                default:
+                    break;
+            }
+            if (released) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+            if ("prepareStatement".equals(method.getName()) && args.length <= 2
+                    && (args.length == 1 || method.getParameterTypes()[1] == int.class)) {
+                int autoGeneratedKeys = args.length == 2 ? (Integer) args[1] : StatementCache.NO_GENERATED_KEYS;
+                return pooled.statements.prepare((Connection) proxy, (String) args[0], autoGeneratedKeys);
+            }
+            try {
+                return method.invoke(pooled.physical, args);
+            } catch (InvocationTargetException exception) {
+                throw exception.getCause();
+            }
+        }
+    }
+}
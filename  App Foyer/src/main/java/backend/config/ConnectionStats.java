@@ -0,0 +1,67 @@
+package backend.config;
+
+/**
+ * Point-in-time view of one side of the read/write split: the pool counters, plus the time its connections
+ * spent inside SQLite waiting for a lock held elsewhere.
+ */
+public final class ConnectionStats {
+    private final String side;
+    private final PoolStats pool;
+    private final long busyWaits;
+    private final long busyWaitMillis;
+    private final long busyTimeouts;
+
+    public ConnectionStats(String side, PoolStats pool, long busyWaits, long busyWaitMillis, long busyTimeouts) {
+        this.side = side;
+        this.pool = pool;
+        this.busyWaits = busyWaits;
+        this.busyWaitMillis = busyWaitMillis;
+        this.busyTimeouts = busyTimeouts;
+    }
+
+    /**
+     * {@code "read"} or {@code "write"}.
+     */
+    public String getSide() {
+        return side;
+    }
+
+    public PoolStats getPool() {
+        return pool;
+    }
+
+    /**
+     * Statements that found the database locked and had to retry.
+     */
+    public long getBusyWaits() {
+        return busyWaits;
+    }
+
+    public long getBusyWaitMillis() {
+        return busyWaitMillis;
+    }
+
+    /**
+     * Statements that gave up with {@code SQLITE_BUSY} after the profile's busy timeout.
+     */
+    public long getBusyTimeouts() {
+        return busyTimeouts;
+    }
+
+    /**
+     * Time spent waiting for a pooled connection plus time spent waiting on SQLite locks.
+     */
+    public long getTotalWaitMillis() {
+        return pool.getTotalWaitMillis() + busyWaitMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionStats{side=" + side +
+                ", busyWaits=" + busyWaits +
+                ", busyWaitMillis=" + busyWaitMillis +
+                ", busyTimeouts=" + busyTimeouts +
+                ", pool=" + pool +
+                '}';
+    }
+}
@@ -0,0 +1,87 @@
+package backend.config;
+
+import org.sqlite.SQLiteConnection;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Online copy of the SQLite file through SQLite's backup API, safe while the application keeps writing.
+ * The copy is made a few pages at a time on a read-only pooled connection that holds one read transaction
+ * for the whole run. In WAL mode that pins a consistent snapshot without blocking writers; without it SQLite
+ * would restart the copy from the first page every time another connection commits.
+ */
+public final class DatabaseBackup {
+    private static final int BUSY_SLEEP_MILLIS = 50;
+    private static final int BUSY_RETRIES = 100;
+
+    private DatabaseBackup() {
+    }
+
+    /**
+     * Copies the main database into {@code target}. The pages are written to a temporary file next to it,
+     * which replaces {@code target} only once the copy is complete, so a failed run never leaves a truncated
+     * backup behind. {@code pauseMillis} between steps leaves the disk to writers on a busy till.
+     *
+     * @return the size in bytes of the finished backup
+     */
+    public static long backup(Path target, int pagesPerStep, long pauseMillis) throws SQLException, IOException {
+        if (pagesPerStep < 1) {
+            throw new IllegalArgumentException("Backup step must copy at least one page");
+        }
+        Path directory = target.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path partial = directory.resolve(target.getFileName() + ".part");
+        Files.deleteIfExists(partial);
+        try (Connection connection = DatabaseConfig.getReadConnection()) {
+            SQLiteConnection sqlite = connection.unwrap(SQLiteConnection.class);
+            connection.setAutoCommit(false);
+            try {
+                beginSnapshot(connection);
+                copy(sqlite, partial, pagesPerStep, pauseMillis);
+            } finally {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+            if (Thread.currentThread().isInterrupted()) {
+                throw new SQLException("Backup interrupted");
+            }
+            Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return Files.size(target);
+        } finally {
+            Files.deleteIfExists(partial);
+        }
+    }
+
+    private static void copy(SQLiteConnection sqlite, Path partial, int pagesPerStep, long pauseMillis)
+            throws SQLException {
+        int result = sqlite.getDatabase().backup("main", partial.toString(), (remaining, pageCount) -> {
+            if (remaining > 0 && pauseMillis > 0) {
+                try {
+                    Thread.sleep(pauseMillis);
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }, BUSY_SLEEP_MILLIS, BUSY_RETRIES, pagesPerStep);
+        if (result != 0) {
+            throw new SQLException("Backup stopped with SQLite error code " + result);
+        }
+    }
+
+    /**
+     * A deferred transaction only takes its read snapshot on the first read.
+     */
+    private static void beginSnapshot(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT count(*) FROM sqlite_master")) {
+            resultSet.next();
+        }
+    }
+}
@@ -1,100 +1,203 @@
 package backend.config;
 
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import backend.config.migration.CompactSchemaMigration;
+import backend.config.migration.SchemaMigrations;
+import backend.config.migration.SchemaMigrator;
+
+import org.sqlite.BusyHandler;
+import org.sqlite.SQLiteConfig;
+
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Locale;
 
 /**
- * Handles creation of the SQLite connection and bootstrap of schema.
+ * Handles creation of the SQLite connections and bootstrap of schema.
+ * The schema is migrated once, when the pools are first needed; every later
+ * {@link #getConnection()} or {@link #getReadConnection()} call only borrows an already opened connection.
+ * <p>
+ * Writes go through a single connection, so writers queue in the pool instead of spinning on SQLite's lock,
+ * and its transactions start {@code IMMEDIATE} so they never fail half-way on a lock upgrade. Reads use a
+ * separate pool of {@code query_only} connections; in WAL mode they see the last committed snapshot and
+ * neither block nor wait for the writer.
+ * <p>
+ * {@code -Dfoyer.db.schema=v2} converts the database to the compact {@link StorageFormat#V2} layout during
+ * that bootstrap. The conversion is one-way; a converted database stays compact whatever the property says.
+ * Likewise {@code -Dfoyer.db.autoVacuum=incremental} switches the file to incremental auto-vacuum there, so
+ * the full {@code VACUUM} it needs never runs while the application is serving.
  */
 public final class DatabaseConfig {
-    private static final String DB_FILE = "restaurant.db";
-    private static final String JDBC_URL = "jdbc:sqlite:" + DB_FILE;
+    private static volatile String databasePath = System.getProperty("foyer.db.path", "restaurant.db");
+    private static volatile SqliteProfile profile = SqliteProfile.fromSystemProperties();
+    private static volatile Pools pools;
 
     private DatabaseConfig() {
     }
 
+    /**
+     * Bootstraps the schema and opens the pools eagerly so the first screen does not pay for it.
+     */
+    public static void initialize() {
+        pools();
+    }
+
+    /**
+     * Borrows the writer connection, waiting while another thread holds it. Use it for anything that writes.
+     */
     public static Connection getConnection() throws SQLException {
-        ensureDatabaseFile();
-        return DriverManager.getConnection(JDBC_URL);
-    }
-
-    private static void ensureDatabaseFile() {
-        Path dbPath = Paths.get(DB_FILE);
-        boolean dbExists = Files.exists(dbPath);
-        try (Connection connection = DriverManager.getConnection(JDBC_URL);
-             Statement statement = connection.createStatement()) {
-            statement.execute("PRAGMA foreign_keys = ON");
-            statement.execute("CREATE TABLE IF NOT EXISTS dishes (" +
-                    "id INTEGER PRIMARY KEY AUTOINCREMENT," +
-                    "name TEXT NOT NULL," +
-                    "price REAL NOT NULL," +
-                    "category TEXT NOT NULL" +
-                    ")");
-            statement.execute("CREATE TABLE IF NOT EXISTS orders (" +
-                    "id INTEGER PRIMARY KEY AUTOINCREMENT," +
-                    "customer_name TEXT NOT NULL," +
-                    "status TEXT NOT NULL," +
-                    "created_at TEXT NOT NULL," +
-                    "total REAL NOT NULL," +
-                    "message TEXT," +
-                    "payer INTEGER NOT NULL DEFAULT 0" +
-                    ")");
-            statement.execute("CREATE TABLE IF NOT EXISTS order_items (" +
-                    "id INTEGER PRIMARY KEY AUTOINCREMENT," +
-                    "order_id INTEGER NOT NULL," +
-                    "dish_id INTEGER NOT NULL," +
-                    "quantity INTEGER NOT NULL," +
-                    "price REAL NOT NULL," +
-                    "FOREIGN KEY(order_id) REFERENCES orders(id) ON DELETE CASCADE," +
-                    "FOREIGN KEY(dish_id) REFERENCES dishes(id)" +
-                    ")");
-            if (dbExists) {
-                ensureOrderMessageColumn(connection);
-                ensureOrderPayerColumn(connection);
+        return pools().writer.getConnection();
+    }
+
+    /**
+     * Borrows a read-only connection; any write attempted on it fails.
+     */
+    public static Connection getReadConnection() throws SQLException {
+        return pools().reader.getConnection();
+    }
+
+    /**
+     * Runs {@code work} on the writer connection inside a single transaction: committed when it returns,
+     * rolled back when it throws.
+     */
+    public static <T> T inTransaction(SqlWork<T> work) throws SQLException {
+        try (Connection connection = getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                T result = work.execute(connection);
+                connection.commit();
+                return result;
+            } catch (SQLException | RuntimeException exception) {
+                connection.rollback();
+                throw exception;
+            } finally {
+                connection.setAutoCommit(true);
             }
-        } catch (SQLException exception) {
-            throw new RuntimeException("Unable to initialize database", exception);
         }
     }
 
-    private static void ensureOrderMessageColumn(Connection connection) throws SQLException {
-        boolean hasMessageColumn = false;
-        try (Statement statement = connection.createStatement();
-             java.sql.ResultSet resultSet = statement.executeQuery("PRAGMA table_info(orders)")) {
-            while (resultSet.next()) {
-                if ("message".equalsIgnoreCase(resultSet.getString("name"))) {
-                    hasMessageColumn = true;
-                    break;
+    /**
+     * Layout of the open database, detected once when the pools are opened.
+     */
+    public static StorageFormat getStorageFormat() {
+        return pools().storageFormat;
+    }
+
+    public static ConnectionStats getReadStats() {
+        Pools current = pools();
+        return current.stats("read", current.reader, current.readerBusy);
+    }
+
+    public static ConnectionStats getWriteStats() {
+        Pools current = pools();
+        return current.stats("write", current.writer, current.writerBusy);
+    }
+
+    /**
+     * Points the application at another database file and/or pragma profile. Any open pools are closed
+     * first; used by tools and benchmarks that work on a copy of {@code restaurant.db}.
+     */
+    public static synchronized void configure(String path, SqliteProfile newProfile) {
+        shutdown();
+        databasePath = path;
+        profile = newProfile;
+    }
+
+    public static String getDatabasePath() {
+        return databasePath;
+    }
+
+    public static SqliteProfile getProfile() {
+        return profile;
+    }
+
+    /**
+     * Closes every pooled connection. The next {@link #getConnection()} call starts fresh pools.
+     */
+    public static synchronized void shutdown() {
+        if (pools != null) {
+            pools.reader.close();
+            pools.writer.close();
+            pools = null;
+        }
+    }
+
+    private static Pools pools() {
+        Pools current = pools;
+        if (current == null) {
+            synchronized (DatabaseConfig.class) {
+                current = pools;
+                if (current == null) {
+                    StorageFormat storageFormat = migrateSchema();
+                    current = new Pools(PoolSettings.fromSystemProperties(), storageFormat);
+                    pools = current;
                 }
             }
         }
-        if (!hasMessageColumn) {
-            try (Statement alterStatement = connection.createStatement()) {
-                alterStatement.execute("ALTER TABLE orders ADD COLUMN message TEXT");
-            }
+        return current;
+    }
+
+    private static Connection openConnection() throws SQLException {
+        return DriverManager.getConnection("jdbc:sqlite:" + databasePath, profile.toConnectionProperties());
+    }
+
+    private static Connection openWriter(BusyWaitRecorder.Counters busy) throws SQLException {
+        SQLiteConfig config = new SQLiteConfig(profile.toConnectionProperties());
+        config.setTransactionMode(SQLiteConfig.TransactionMode.IMMEDIATE);
+        Connection connection = DriverManager.getConnection("jdbc:sqlite:" + databasePath, config.toProperties());
+        BusyHandler.setHandler(connection, new BusyWaitRecorder(busy, profile.getBusyTimeoutMillis()));
+        return connection;
+    }
+
+    private static Connection openReader(BusyWaitRecorder.Counters busy) throws SQLException {
+        Connection connection = openConnection();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("PRAGMA query_only = 1");
+            BusyHandler.setHandler(connection, new BusyWaitRecorder(busy, profile.getBusyTimeoutMillis()));
+        } catch (SQLException exception) {
+            connection.close();
+            throw exception;
         }
+        return connection;
     }
 
-    private static void ensureOrderPayerColumn(Connection connection) throws SQLException {
-        boolean hasPayerColumn = false;
-        try (Statement statement = connection.createStatement();
-             java.sql.ResultSet resultSet = statement.executeQuery("PRAGMA table_info(orders)")) {
-            while (resultSet.next()) {
-                if ("payer".equalsIgnoreCase(resultSet.getString("name"))) {
-                    hasPayerColumn = true;
-                    break;
-                }
+    private static StorageFormat migrateSchema() {
+        try (Connection connection = openConnection()) {
+            new SchemaMigrator(SchemaMigrations.all()).migrate(connection);
+            boolean compact = "v2".equals(System.getProperty("foyer.db.schema", "v1").trim().toLowerCase(Locale.ROOT));
+            if (compact && StorageFormat.detect(connection) == StorageFormat.V1) {
+                CompactSchemaMigration.apply(connection);
             }
-        }
-        if (!hasPayerColumn) {
-            try (Statement alterStatement = connection.createStatement()) {
-                alterStatement.execute("ALTER TABLE orders ADD COLUMN payer INTEGER NOT NULL DEFAULT 0");
+            if ("incremental".equals(System.getProperty("foyer.db.autoVacuum", "").trim().toLowerCase(Locale.ROOT))) {
+                DatabaseMaintenance.enableIncrementalAutoVacuum(connection);
             }
+            return StorageFormat.detect(connection);
+        } catch (SQLException exception) {
+            throw new RuntimeException("Unable to initialize database", exception);
         }
     }
+
+    private static final class Pools {
+        private final BusyWaitRecorder.Counters readerBusy = new BusyWaitRecorder.Counters();
+        private final BusyWaitRecorder.Counters writerBusy = new BusyWaitRecorder.Counters();
+        private final ConnectionPool reader;
+        private final ConnectionPool writer;
+        private final StorageFormat storageFormat;
+
+        private Pools(PoolSettings settings, StorageFormat storageFormat) {
+            this.storageFormat = storageFormat;
+            reader = new ConnectionPool(() -> openReader(readerBusy), settings);
+            writer = new ConnectionPool(() -> openWriter(writerBusy), settings.withMaxSize(1));
+        }
+
+        private ConnectionStats stats(String side, ConnectionPool pool, BusyWaitRecorder.Counters busy) {
+            return new ConnectionStats(side, pool.getStats(), busy.getWaits(), busy.getWaitMillis(), busy.getTimeouts());
+        }
+    }
+
+    @FunctionalInterface
+    public interface SqlWork<T> {
+        T execute(Connection connection) throws SQLException;
+    }
 }
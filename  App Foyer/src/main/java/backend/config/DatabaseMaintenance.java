@@ -0,0 +1,80 @@
+package backend.config;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Housekeeping statements for the SQLite file: planner statistics and free-page reclamation.
+ * Meant to run off the UI thread, on a pooled connection in autocommit mode, except the auto-vacuum
+ * conversion, which only runs at bootstrap.
+ */
+public final class DatabaseMaintenance {
+    private static final int AUTO_VACUUM_INCREMENTAL = 2;
+
+    private DatabaseMaintenance() {
+    }
+
+    /**
+     * Runs a full {@code ANALYZE} the first time (no statistics yet), {@code PRAGMA optimize} afterwards,
+     * which only re-analyzes tables whose statistics have drifted.
+     */
+    public static void optimize() throws SQLException {
+        try (Connection connection = DatabaseConfig.getConnection();
+             Statement statement = connection.createStatement()) {
+            boolean analyzed;
+            try (ResultSet resultSet = statement.executeQuery(
+                    "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = 'sqlite_stat1'")) {
+                analyzed = resultSet.next();
+            }
+            statement.execute(analyzed ? "PRAGMA optimize" : "ANALYZE");
+        }
+    }
+
+    /**
+     * Returns up to {@code maxPages} free pages to the file system in one short transaction. Does nothing
+     * on a database without incremental auto-vacuum; see {@link #enableIncrementalAutoVacuum(Connection)}.
+     *
+     * @return the number of pages released
+     */
+    public static long incrementalVacuum(long maxPages) throws SQLException {
+        try (Connection connection = DatabaseConfig.getConnection();
+             Statement statement = connection.createStatement()) {
+            if (pragmaLong(statement, "PRAGMA auto_vacuum") != AUTO_VACUUM_INCREMENTAL) {
+                return 0;
+            }
+            long freePages = pragmaLong(statement, "PRAGMA freelist_count");
+            if (freePages == 0) {
+                return 0;
+            }
+            // each step of the pragma releases one page: execute() stops after the first step, while
+            // executeUpdate() steps it to completion (it returns no rows, so executeQuery() is refused)
+            statement.executeUpdate("PRAGMA incremental_vacuum(" + Math.min(freePages, maxPages) + ")");
+            return freePages - pragmaLong(statement, "PRAGMA freelist_count");
+        }
+    }
+
+    /**
+     * Switches a database created without incremental auto-vacuum over, which rewrites the whole file with
+     * a full {@code VACUUM}. Meant for bootstrap, before the pools open, on a connection of its own.
+     *
+     * @return whether the database had to be converted
+     */
+    public static boolean enableIncrementalAutoVacuum(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            if (pragmaLong(statement, "PRAGMA auto_vacuum") == AUTO_VACUUM_INCREMENTAL) {
+                return false;
+            }
+            statement.execute("PRAGMA auto_vacuum = INCREMENTAL");
+            statement.execute("VACUUM");
+            return true;
+        }
+    }
+
+    private static long pragmaLong(Statement statement, String sql) throws SQLException {
+        try (ResultSet resultSet = statement.executeQuery(sql)) {
+            return resultSet.next() ? resultSet.getLong(1) : 0;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package backend.config;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Settings for the append-only order journal. Disabled by default.
+ */
+public final class JournalSettings {
+    private static final String PREFIX = "foyer.journal.";
+
+    private final boolean enabled;
+    private final Path directory;
+    private final long syncIntervalMillis;
+    private final long segmentBytes;
+
+    public JournalSettings(boolean enabled, Path directory, long syncIntervalMillis, long segmentBytes) {
+        if (syncIntervalMillis < 0) {
+            throw new IllegalArgumentException("Sync interval cannot be negative");
+        }
+        if (segmentBytes < 4_096) {
+            throw new IllegalArgumentException("Journal segments must hold at least 4 KiB");
+        }
+        this.enabled = enabled;
+        this.directory = directory;
+        this.syncIntervalMillis = syncIntervalMillis;
+        this.segmentBytes = segmentBytes;
+    }
+
+    public static JournalSettings defaults() {
+        return new JournalSettings(false, Paths.get("journal"), 0L, 16L * 1024 * 1024);
+    }
+
+    /**
+     * Reads overrides such as {@code -Dfoyer.journal.enabled=true}, falling back to {@link #defaults()}.
+     * Each storage mode journals into its own subdirectory ({@code sqlite} or {@code memory}), so a training
+     * till started with {@code -Dfoyer.storage=memory} never replays or extends the production journal.
+     */
+    public static JournalSettings fromSystemProperties() {
+        JournalSettings defaults = defaults();
+        return new JournalSettings(
+                Boolean.parseBoolean(System.getProperty(PREFIX + "enabled", String.valueOf(defaults.enabled))),
+                Paths.get(System.getProperty(PREFIX + "directory", defaults.directory.toString()))
+                        .resolve(storageMode()),
+                Long.getLong(PREFIX + "syncIntervalMillis", defaults.syncIntervalMillis),
+                Long.getLong(PREFIX + "segmentBytes", defaults.segmentBytes));
+    }
+
+    private static String storageMode() {
+        return "memory".equalsIgnoreCase(System.getProperty("foyer.storage", "sqlite").trim()) ? "memory" : "sqlite";
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * 0 makes every write wait until its event is on disk, sharing each fsync with the writes that arrived
+     * meanwhile; a positive value returns at once and syncs on that period, so a crash can lose that much.
+     */
+    public long getSyncIntervalMillis() {
+        return syncIntervalMillis;
+    }
+
+    /**
+     * Size after which the journal moves on to a new segment file.
+     */
+    public long getSegmentBytes() {
+        return segmentBytes;
+    }
+}
@@ -0,0 +1,80 @@
+package backend.config;
+
+/**
+ * Sizing and timeout settings for the SQLite connection pool.
+ */
+public final class PoolSettings {
+    private static final String PREFIX = "foyer.db.pool.";
+
+    private final int maxSize;
+    private final int minIdle;
+    private final long idleTimeoutMillis;
+    private final long acquireTimeoutMillis;
+    private final int statementCacheSize;
+
+    public PoolSettings(int maxSize, int minIdle, long idleTimeoutMillis, long acquireTimeoutMillis,
+                        int statementCacheSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Pool size must be at least 1");
+        }
+        if (minIdle < 0 || minIdle > maxSize) {
+            throw new IllegalArgumentException("Minimum idle connections must be between 0 and " + maxSize);
+        }
+        if (statementCacheSize < 0) {
+            throw new IllegalArgumentException("Statement cache size cannot be negative");
+        }
+        this.maxSize = maxSize;
+        this.minIdle = minIdle;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.statementCacheSize = statementCacheSize;
+    }
+
+    public static PoolSettings defaults() {
+        return new PoolSettings(4, 1, 5 * 60_000L, 10_000L, 64);
+    }
+
+    /**
+     * Reads overrides such as {@code -Dfoyer.db.pool.maxSize=8}, falling back to {@link #defaults()}.
+     */
+    public static PoolSettings fromSystemProperties() {
+        PoolSettings defaults = defaults();
+        return new PoolSettings(
+                Integer.getInteger(PREFIX + "maxSize", defaults.maxSize),
+                Integer.getInteger(PREFIX + "minIdle", defaults.minIdle),
+                Long.getLong(PREFIX + "idleTimeoutMillis", defaults.idleTimeoutMillis),
+                Long.getLong(PREFIX + "acquireTimeoutMillis", defaults.acquireTimeoutMillis),
+                Integer.getInteger(PREFIX + "statementCacheSize", defaults.statementCacheSize));
+    }
+
+    /**
+     * Same settings capped at {@code maxSize} connections; used for the single writer connection.
+     */
+    public PoolSettings withMaxSize(int maxSize) {
+        return new PoolSettings(maxSize, Math.min(minIdle, maxSize), idleTimeoutMillis, acquireTimeoutMillis,
+                statementCacheSize);
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int getMinIdle() {
+        return minIdle;
+    }
+
+    public long getIdleTimeoutMillis() {
+        return idleTimeoutMillis;
+    }
+
+    public long getAcquireTimeoutMillis() {
+        return acquireTimeoutMillis;
+    }
+
+    /**
+     * Prepared statements kept compiled per connection; {@code 0} disables the cache.
+     */
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+}
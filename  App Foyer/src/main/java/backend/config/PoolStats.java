@@ -0,0 +1,104 @@
+package backend.config;
+
+/**
+ * Point-in-time snapshot of the connection pool counters.
+ */
+public final class PoolStats {
+    private final int totalConnections;
+    private final int idleConnections;
+    private final long checkouts;
+    private final long waits;
+    private final long totalWaitMillis;
+    private final long timeouts;
+    private final long created;
+    private final long evicted;
+    private final long statementHits;
+    private final long statementMisses;
+    private final long statementEvictions;
+
+    public PoolStats(int totalConnections, int idleConnections, long checkouts, long waits,
+                     long totalWaitMillis, long timeouts, long created, long evicted,
+                     long statementHits, long statementMisses, long statementEvictions) {
+        this.totalConnections = totalConnections;
+        this.idleConnections = idleConnections;
+        this.checkouts = checkouts;
+        this.waits = waits;
+        this.totalWaitMillis = totalWaitMillis;
+        this.timeouts = timeouts;
+        this.created = created;
+        this.evicted = evicted;
+        this.statementHits = statementHits;
+        this.statementMisses = statementMisses;
+        this.statementEvictions = statementEvictions;
+    }
+
+    public int getTotalConnections() {
+        return totalConnections;
+    }
+
+    public int getIdleConnections() {
+        return idleConnections;
+    }
+
+    public int getActiveConnections() {
+        return totalConnections - idleConnections;
+    }
+
+    public long getCheckouts() {
+        return checkouts;
+    }
+
+    /**
+     * Number of checkouts that found the pool exhausted and had to block.
+     */
+    public long getWaits() {
+        return waits;
+    }
+
+    public long getTotalWaitMillis() {
+        return totalWaitMillis;
+    }
+
+    public long getTimeouts() {
+        return timeouts;
+    }
+
+    public long getCreated() {
+        return created;
+    }
+
+    public long getEvicted() {
+        return evicted;
+    }
+
+    /**
+     * {@code prepareStatement} calls served from a connection's statement cache.
+     */
+    public long getStatementHits() {
+        return statementHits;
+    }
+
+    public long getStatementMisses() {
+        return statementMisses;
+    }
+
+    public long getStatementEvictions() {
+        return statementEvictions;
+    }
+
+    @Override
+    public String toString() {
+        return "PoolStats{total=" + totalConnections +
+                ", idle=" + idleConnections +
+                ", checkouts=" + checkouts +
+                ", waits=" + waits +
+                ", waitMillis=" + totalWaitMillis +
+                ", timeouts=" + timeouts +
+                ", created=" + created +
+                ", evicted=" + evicted +
+                ", statementHits=" + statementHits +
+                ", statementMisses=" + statementMisses +
+                ", statementEvictions=" + statementEvictions +
+                '}';
+    }
+}
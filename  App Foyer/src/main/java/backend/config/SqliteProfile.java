@@ -0,0 +1,150 @@
+package backend.config;
+
+import org.sqlite.SQLiteConfig;
+
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * Set of SQLite pragmas applied to every pooled connection when it is opened.
+ * Two presets ship with the app: {@link #durable()} (the default) and {@link #fast()}.
+ */
+public final class SqliteProfile {
+    private static final String PREFIX = "foyer.db.";
+
+    private final String name;
+    private final SQLiteConfig.JournalMode journalMode;
+    private final SQLiteConfig.SynchronousMode synchronous;
+    private final long mmapSizeBytes;
+    private final int cacheSizeKib;
+    private final SQLiteConfig.TempStore tempStore;
+    private final int busyTimeoutMillis;
+
+    public SqliteProfile(String name,
+                         SQLiteConfig.JournalMode journalMode,
+                         SQLiteConfig.SynchronousMode synchronous,
+                         long mmapSizeBytes,
+                         int cacheSizeKib,
+                         SQLiteConfig.TempStore tempStore,
+                         int busyTimeoutMillis) {
+        this.name = name;
+        this.journalMode = journalMode;
+        this.synchronous = synchronous;
+        this.mmapSizeBytes = mmapSizeBytes;
+        this.cacheSizeKib = cacheSizeKib;
+        this.tempStore = tempStore;
+        this.busyTimeoutMillis = busyTimeoutMillis;
+    }
+
+    /**
+     * WAL with a full fsync on every commit: a committed order survives a power cut.
+     */
+    public static SqliteProfile durable() {
+        return new SqliteProfile("durable",
+                SQLiteConfig.JournalMode.WAL,
+                SQLiteConfig.SynchronousMode.FULL,
+                64L * 1024 * 1024,
+                8 * 1024,
+                SQLiteConfig.TempStore.MEMORY,
+                5_000);
+    }
+
+    /**
+     * WAL with fsync only at checkpoints. The database stays consistent after a crash, but the last
+     * few commits can be lost if the machine itself loses power.
+     */
+    public static SqliteProfile fast() {
+        return new SqliteProfile("fast",
+                SQLiteConfig.JournalMode.WAL,
+                SQLiteConfig.SynchronousMode.NORMAL,
+                256L * 1024 * 1024,
+                32 * 1024,
+                SQLiteConfig.TempStore.MEMORY,
+                5_000);
+    }
+
+    public static SqliteProfile named(String name) {
+        return switch (name.trim().toLowerCase(Locale.ROOT)) {
+            case "durable" -> durable();
+            case "fast" -> fast();
+            default -> throw new IllegalArgumentException("Unknown SQLite profile: " + name);
+        };
+    }
+
+    /**
+     * Starts from the preset named by {@code -Dfoyer.db.profile} and applies individual overrides such as
+     * {@code -Dfoyer.db.synchronous=NORMAL} or {@code -Dfoyer.db.mmapSize=0}.
+     */
+    public static SqliteProfile fromSystemProperties() {
+        SqliteProfile base = named(System.getProperty(PREFIX + "profile", "durable"));
+        return new SqliteProfile(base.name,
+                enumProperty("journalMode", SQLiteConfig.JournalMode.class, base.journalMode),
+                enumProperty("synchronous", SQLiteConfig.SynchronousMode.class, base.synchronous),
+                Long.getLong(PREFIX + "mmapSize", base.mmapSizeBytes),
+                Integer.getInteger(PREFIX + "cacheSizeKib", base.cacheSizeKib),
+                enumProperty("tempStore", SQLiteConfig.TempStore.class, base.tempStore),
+                Integer.getInteger(PREFIX + "busyTimeoutMillis", base.busyTimeoutMillis));
+    }
+
+    /**
+     * Connection properties understood by the sqlite-jdbc driver; the pragmas are run as the connection opens.
+     */
+    public Properties toConnectionProperties() {
+        SQLiteConfig config = new SQLiteConfig();
+        config.setJournalMode(journalMode);
+        config.setSynchronous(synchronous);
+        config.setPragma(SQLiteConfig.Pragma.MMAP_SIZE, String.valueOf(mmapSizeBytes));
+        // a negative cache_size is interpreted by SQLite as KiB rather than pages
+        config.setCacheSize(-cacheSizeKib);
+        config.setTempStore(tempStore);
+        config.setBusyTimeout(busyTimeoutMillis);
+        return config.toProperties();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public SQLiteConfig.JournalMode getJournalMode() {
+        return journalMode;
+    }
+
+    public SQLiteConfig.SynchronousMode getSynchronous() {
+        return synchronous;
+    }
+
+    public long getMmapSizeBytes() {
+        return mmapSizeBytes;
+    }
+
+    public int getCacheSizeKib() {
+        return cacheSizeKib;
+    }
+
+    public SQLiteConfig.TempStore getTempStore() {
+        return tempStore;
+    }
+
+    public int getBusyTimeoutMillis() {
+        return busyTimeoutMillis;
+    }
+
+    @Override
+    public String toString() {
+        return name + "{journal_mode=" + journalMode +
+                ", synchronous=" + synchronous +
+                ", mmap_size=" + mmapSizeBytes +
+                ", cache_size=-" + cacheSizeKib +
+                ", temp_store=" + tempStore +
+                ", busy_timeout=" + busyTimeoutMillis +
+                '}';
+    }
+
+    private static <E extends Enum<E>> E enumProperty(String key, Class<E> type, E fallback) {
+        String value = System.getProperty(PREFIX + key);
+        if (value == null || value.isBlank()) {
+            return fallback;
+        }
+        return Enum.valueOf(type, value.trim().toUpperCase(Locale.ROOT));
+    }
+}
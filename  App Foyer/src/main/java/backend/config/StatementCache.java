@@ -0,0 +1,188 @@
+package backend.config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LRU cache of compiled statements owned by one pooled connection. Repositories keep calling
+ * {@code prepareStatement(sql)} and closing the result; closing a cached statement only clears its
+ * parameters so the next lease of the connection can reuse the compiled SQL.
+ * Not thread-safe: a connection is only used by the thread that leased it.
+ */
+final class StatementCache {
+    static final int NO_GENERATED_KEYS = -1;
+
+    private final Connection physical;
+    private final int capacity;
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+    private final AtomicLong evictions;
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    StatementCache(Connection physical, int capacity, AtomicLong hits, AtomicLong misses, AtomicLong evictions) {
+        this.physical = physical;
+        this.capacity = capacity;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+    }
+
+    /**
+     * Returns a cached statement for {@code sql}, compiling it on a miss. When the cached copy is still
+     * open elsewhere (nested use of the same SQL) a plain, uncached statement is returned instead.
+     *
+     * @param owner            the leased connection, reported by {@link PreparedStatement#getConnection()}
+     * @param autoGeneratedKeys a {@link java.sql.Statement} generated-keys flag, or {@link #NO_GENERATED_KEYS}
+     */
+    PreparedStatement prepare(Connection owner, String sql, int autoGeneratedKeys) throws SQLException {
+        String key = autoGeneratedKeys + ":" + sql;
+        Entry entry = entries.get(key);
+        if (entry != null && !entry.inUse) {
+            hits.incrementAndGet();
+            return entry.lease(owner);
+        }
+        misses.incrementAndGet();
+        PreparedStatement statement = autoGeneratedKeys == NO_GENERATED_KEYS
+                ? physical.prepareStatement(sql)
+                : physical.prepareStatement(sql, autoGeneratedKeys);
+        if (entry != null || capacity == 0) {
+            return statement;
+        }
+        entry = new Entry(statement);
+        entries.put(key, entry);
+        evictOverflow();
+        return entry.lease(owner);
+    }
+
+    /**
+     * Drops statements that a caller left open when giving the connection back.
+     */
+    void releaseLeaked() {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.inUse) {
+                iterator.remove();
+                closeQuietly(entry.statement);
+            }
+        }
+    }
+
+    void closeAll() {
+        for (Entry entry : entries.values()) {
+            closeQuietly(entry.statement);
+        }
+        entries.clear();
+    }
+
+    private void evictOverflow() {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (entries.size() > capacity && iterator.hasNext()) {
+            Entry eldest = iterator.next();
+            iterator.remove();
+            evictions.incrementAndGet();
+            eldest.evicted = true;
+            if (!eldest.inUse) {
+                closeQuietly(eldest.statement);
+            }
+        }
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException ignored) {
+            // the statement is being discarded anyway
+        }
+    }
+
+    private final class Entry {
+        private final PreparedStatement statement;
+        private boolean inUse;
+        private boolean evicted;
+
+        private Entry(PreparedStatement statement) {
+            this.statement = statement;
+        }
+
+        private PreparedStatement lease(Connection owner) {
+            inUse = true;
+            return (PreparedStatement) Proxy.newProxyInstance(
+                    StatementCache.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    new StatementLease(this, owner));
+        }
+
+        private void giveBack() {
+            inUse = false;
+            boolean reusable = !evicted;
+            if (reusable) {
+                try {
+                    statement.clearParameters();
+                    statement.clearBatch();
+                    // sqlite-jdbc keeps a last_insert_rowid() query open after each INSERT until the statement
+                    // runs again; left pending it counts as a statement in progress and blocks VACUUM.
+                    statement.getGeneratedKeys().close();
+                } catch (SQLException exception) {
+                    reusable = false;
+                }
+            }
+            if (!reusable) {
+                entries.values().remove(this);
+                closeQuietly(statement);
+            }
+        }
+    }
+
+    private static final class StatementLease implements InvocationHandler {
+        private final Entry entry;
+        private final Connection owner;
+        private boolean returned;
+
+        private StatementLease(Entry entry, Connection owner) {
+            this.entry = entry;
+            this.owner = owner;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!returned) {
+                        returned = true;
+                        entry.giveBack();
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || entry.statement.isClosed();
+                case "getConnection":
+                    return owner;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "CachedStatement[" + entry.statement + "]";
+                default:
+                    break;
+            }
+            if (returned) {
+                throw new SQLException("Statement has already been closed");
+            }
+            try {
+                return method.invoke(entry.statement, args);
+            } catch (InvocationTargetException exception) {
+                throw exception.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package backend.config;
+
+import backend.entity.DishCategory;
+import backend.entity.StatusOrder;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * How order and dish rows are encoded; both layouts use the same table and column names.
+ * <ul>
+ *     <li>{@link #V1}, the original layout, stores enum names as text. It keeps the ISO {@code created_at}
+ *     string next to its {@code created_at_epoch} mirror and stores prices as REAL.</li>
+ *     <li>{@link #V2}, the opt-in compact layout, stores small integer codes, only the epoch milliseconds,
+ *     and integer cents. Its rows are smaller and are mapped without parsing strings.</li>
+ * </ul>
+ */
+public enum StorageFormat {
+    V1,
+    V2;
+
+    // codes are stored in the database: append new constants, never reorder them
+    private static final StatusOrder[] STATUSES = {StatusOrder.ANNULER, StatusOrder.ENCOURS, StatusOrder.FINI};
+    private static final DishCategory[] CATEGORIES = {DishCategory.ENTREE, DishCategory.PLAT, DishCategory.DESSERT,
+            DishCategory.BOISSON, DishCategory.MENU};
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+
+    /**
+     * {@link #V2} once the compact conversion has run on the database behind {@code connection}.
+     */
+    public static StorageFormat detect(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(
+                     "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = 'storage_format'")) {
+            return resultSet.next() ? V2 : V1;
+        }
+    }
+
+    public static int statusCode(StatusOrder status) {
+        for (int code = 0; code < STATUSES.length; code++) {
+            if (STATUSES[code] == status) {
+                return code;
+            }
+        }
+        throw new IllegalArgumentException("No storage code for status " + status);
+    }
+
+    public static int categoryCode(DishCategory category) {
+        for (int code = 0; code < CATEGORIES.length; code++) {
+            if (CATEGORIES[code] == category) {
+                return code;
+            }
+        }
+        throw new IllegalArgumentException("No storage code for category " + category);
+    }
+
+    public static long toCents(double amount) {
+        return Math.round(amount * 100);
+    }
+
+    /**
+     * Bind value for a status column.
+     */
+    public Object status(StatusOrder status) {
+        if (status == null) {
+            return null;
+        }
+        return this == V2 ? (Object) statusCode(status) : status.name();
+    }
+
+    /**
+     * Unknown or missing statuses read as {@link StatusOrder#ENCOURS}, as they always have.
+     */
+    public StatusOrder readStatus(ResultSet resultSet, String column) throws SQLException {
+        if (this == V2) {
+            int code = resultSet.getInt(column);
+            return !resultSet.wasNull() && code >= 0 && code < STATUSES.length ? STATUSES[code] : StatusOrder.ENCOURS;
+        }
+        String value = resultSet.getString(column);
+        if (value == null || value.isBlank()) {
+            return StatusOrder.ENCOURS;
+        }
+        try {
+            return StatusOrder.valueOf(value);
+        } catch (IllegalArgumentException exception) {
+            return StatusOrder.ENCOURS;
+        }
+    }
+
+    public Object category(DishCategory category) {
+        return this == V2 ? (Object) categoryCode(category) : category.name();
+    }
+
+    /**
+     * @return null when the column is NULL, e.g. on the outer side of a LEFT JOIN
+     */
+    public DishCategory readCategory(ResultSet resultSet, String column) throws SQLException {
+        if (this == V2) {
+            int code = resultSet.getInt(column);
+            return resultSet.wasNull() ? null : CATEGORIES[code];
+        }
+        String value = resultSet.getString(column);
+        return value == null ? null : DishCategory.valueOf(value);
+    }
+
+    /**
+     * Bind value for a price or total column.
+     */
+    public Object money(double amount) {
+        return this == V2 ? (Object) toCents(amount) : amount;
+    }
+
+    public double readMoney(ResultSet resultSet, String column) throws SQLException {
+        return this == V2 ? resultSet.getLong(column) / 100.0 : resultSet.getDouble(column);
+    }
+
+    /**
+     * Wraps an SQL expression over price columns so it yields an amount in euros; in cents the sum stays
+     * exact and is divided once.
+     */
+    public String moneyExpression(String expression) {
+        return this == V2 ? "((" + expression + ") / 100.0)" : expression;
+    }
+
+    /**
+     * Timestamp columns to select; {@link #readCreatedAt} reads them back.
+     */
+    public String createdAtColumns() {
+        return this == V2 ? "created_at_epoch" : "created_at, created_at_epoch";
+    }
+
+    /**
+     * V2 keeps millisecond precision, the precision of the {@code created_at_epoch} index.
+     */
+    public LocalDateTime readCreatedAt(ResultSet resultSet) throws SQLException {
+        if (this == V2) {
+            long epochMillis = resultSet.getLong("created_at_epoch");
+            return LocalDateTime.ofEpochSecond(Math.floorDiv(epochMillis, 1000L),
+                    (int) Math.floorMod(epochMillis, 1000L) * 1_000_000, ZoneOffset.UTC);
+        }
+        return LocalDateTime.parse(resultSet.getString("created_at"), FORMATTER);
+    }
+}
@@ -0,0 +1,41 @@
+package backend.config;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Settings for the order summary snapshot that fills the order lists at startup. Disabled by default.
+ */
+public final class SummarySnapshotSettings {
+    private static final String PREFIX = "foyer.snapshot.";
+
+    private final boolean enabled;
+    private final Path file;
+
+    public SummarySnapshotSettings(boolean enabled, Path file) {
+        this.enabled = enabled;
+        this.file = file;
+    }
+
+    public static SummarySnapshotSettings defaults() {
+        return new SummarySnapshotSettings(false, Paths.get("orders.snapshot"));
+    }
+
+    /**
+     * Reads overrides such as {@code -Dfoyer.snapshot.enabled=true}, falling back to {@link #defaults()}.
+     */
+    public static SummarySnapshotSettings fromSystemProperties() {
+        SummarySnapshotSettings defaults = defaults();
+        return new SummarySnapshotSettings(
+                Boolean.parseBoolean(System.getProperty(PREFIX + "enabled", String.valueOf(defaults.enabled))),
+                Paths.get(System.getProperty(PREFIX + "file", defaults.file.toString())));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+}
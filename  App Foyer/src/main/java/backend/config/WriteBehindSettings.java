@@ -0,0 +1,72 @@
+package backend.config;
+
+/**
+ * Settings for write-behind order persistence. Disabled by default: orders are then written
+ * synchronously by the submitting thread.
+ */
+public final class WriteBehindSettings {
+    private static final String PREFIX = "foyer.orders.writeBehind.";
+
+    private final boolean enabled;
+    private final int queueCapacity;
+    private final int maxBatchSize;
+    private final long flushIntervalMillis;
+
+    public WriteBehindSettings(boolean enabled, int queueCapacity, int maxBatchSize, long flushIntervalMillis) {
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("Queue capacity must be at least 1");
+        }
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1");
+        }
+        if (flushIntervalMillis < 0) {
+            throw new IllegalArgumentException("Flush interval cannot be negative");
+        }
+        this.enabled = enabled;
+        this.queueCapacity = queueCapacity;
+        this.maxBatchSize = maxBatchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+    }
+
+    public static WriteBehindSettings defaults() {
+        return new WriteBehindSettings(false, 1_000, 100, 50L);
+    }
+
+    /**
+     * Reads overrides such as {@code -Dfoyer.orders.writeBehind.enabled=true}, falling back to {@link #defaults()}.
+     */
+    public static WriteBehindSettings fromSystemProperties() {
+        WriteBehindSettings defaults = defaults();
+        return new WriteBehindSettings(
+                Boolean.parseBoolean(System.getProperty(PREFIX + "enabled", String.valueOf(defaults.enabled))),
+                Integer.getInteger(PREFIX + "queueCapacity", defaults.queueCapacity),
+                Integer.getInteger(PREFIX + "maxBatchSize", defaults.maxBatchSize),
+                Long.getLong(PREFIX + "flushIntervalMillis", defaults.flushIntervalMillis));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Orders that may wait for the writer before submitters block.
+     */
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * Most orders committed in one transaction.
+     */
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * Longest time the writer keeps gathering a batch after its first order arrived; this bounds how long
+     * an accepted order can stay only in memory.
+     */
+    public long getFlushIntervalMillis() {
+        return flushIntervalMillis;
+    }
+}
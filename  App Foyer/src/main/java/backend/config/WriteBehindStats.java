@@ -0,0 +1,91 @@
+package backend.config;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Point-in-time snapshot of the write-behind order queue.
+ */
+public final class WriteBehindStats {
+    private final int queueDepth;
+    private final long submitted;
+    private final long committed;
+    private final long failed;
+    private final long batches;
+    private final long queueFullWaits;
+    private final long totalCommitNanos;
+    private final long maxCommitNanos;
+
+    public WriteBehindStats(int queueDepth, long submitted, long committed, long failed, long batches,
+                            long queueFullWaits, long totalCommitNanos, long maxCommitNanos) {
+        this.queueDepth = queueDepth;
+        this.submitted = submitted;
+        this.committed = committed;
+        this.failed = failed;
+        this.batches = batches;
+        this.queueFullWaits = queueFullWaits;
+        this.totalCommitNanos = totalCommitNanos;
+        this.maxCommitNanos = maxCommitNanos;
+    }
+
+    /**
+     * Orders accepted but not yet picked up by the writer.
+     */
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public long getSubmitted() {
+        return submitted;
+    }
+
+    public long getCommitted() {
+        return committed;
+    }
+
+    /**
+     * Orders the writer could not store, even after retrying them one by one.
+     */
+    public long getFailed() {
+        return failed;
+    }
+
+    public long getBatches() {
+        return batches;
+    }
+
+    /**
+     * Submissions that found the queue full and had to block.
+     */
+    public long getQueueFullWaits() {
+        return queueFullWaits;
+    }
+
+    public double getAverageBatchSize() {
+        return batches == 0 ? 0 : (double) (committed + failed) / batches;
+    }
+
+    /**
+     * Mean duration of one group-commit transaction.
+     */
+    public double getAverageCommitMillis() {
+        return batches == 0 ? 0 : totalCommitNanos / (double) TimeUnit.MILLISECONDS.toNanos(1) / batches;
+    }
+
+    public double getMaxCommitMillis() {
+        return maxCommitNanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    @Override
+    public String toString() {
+        return "WriteBehindStats{queueDepth=" + queueDepth +
+                ", submitted=" + submitted +
+                ", committed=" + committed +
+                ", failed=" + failed +
+                ", batches=" + batches +
+                ", queueFullWaits=" + queueFullWaits +
+                ", avgCommitMillis=" + String.format(Locale.ROOT, "%.2f", getAverageCommitMillis()) +
+                ", maxCommitMillis=" + String.format(Locale.ROOT, "%.2f", getMaxCommitMillis()) +
+                '}';
+    }
+}
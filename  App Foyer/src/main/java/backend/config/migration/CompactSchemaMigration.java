@@ -0,0 +1,194 @@
+package backend.config.migration;
+
+import backend.config.StorageFormat;
+import backend.entity.DishCategory;
+import backend.entity.StatusOrder;
+import backend.repository.impl.SalesRollups;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One-way conversion of a {@link StorageFormat#V1} database to the compact {@link StorageFormat#V2} layout.
+ * It is opted into with {@code -Dfoyer.db.schema=v2} and runs after the numbered migrations.
+ * {@code dishes}, {@code orders}, {@code order_items} and {@code orders_archive} are rebuilt under the same
+ * names, with integer status and category codes, epoch milliseconds only, and prices in cents. Ids,
+ * AUTOINCREMENT counters and the search index are kept. The rollups are summed again from the converted
+ * prices.
+ * <p>
+ * Numbered migrations added later run on either layout and must handle both.
+ */
+public final class CompactSchemaMigration {
+    private static final List<String> TABLES = List.of("dishes", "orders", "order_items", "orders_archive");
+
+    private CompactSchemaMigration() {
+    }
+
+    /**
+     * Converts the database in a single transaction, then vacuums it so the file shrinks. Does nothing when
+     * the database is already compact.
+     */
+    public static void apply(Connection connection) throws SQLException {
+        if (StorageFormat.detect(connection) == StorageFormat.V2) {
+            return;
+        }
+        boolean autoCommit = connection.getAutoCommit();
+        try {
+            connection.setAutoCommit(false);
+            try {
+                convert(connection);
+                connection.commit();
+            } catch (SQLException | RuntimeException exception) {
+                connection.rollback();
+                throw new SQLException("Conversion to the compact storage format failed", exception);
+            }
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("VACUUM");
+        }
+    }
+
+    private static void convert(Connection connection) throws SQLException {
+        String epochFallback = "CAST(ROUND((julianday(created_at) - 2440587.5) * 86400000.0) AS INTEGER)";
+        Map<String, Long> sequences = readSequences(connection);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE dishes_v2 (" +
+                    "id INTEGER PRIMARY KEY AUTOINCREMENT," +
+                    "name TEXT NOT NULL," +
+                    "price INTEGER NOT NULL," +
+                    "category INTEGER NOT NULL" +
+                    ")");
+            // an unknown category maps to NULL and fails the NOT NULL constraint, rolling everything back
+            statement.execute("INSERT INTO dishes_v2(id, name, price, category) " +
+                    "SELECT id, name, " + cents("price") + ", " + categoryCase() + " FROM dishes");
+            statement.execute("CREATE TABLE orders_v2 (" +
+                    "id INTEGER PRIMARY KEY AUTOINCREMENT," +
+                    "customer_name TEXT NOT NULL," +
+                    "status INTEGER NOT NULL," +
+                    "created_at_epoch INTEGER NOT NULL," +
+                    "total INTEGER NOT NULL," +
+                    "message TEXT," +
+                    "payer INTEGER NOT NULL DEFAULT 0" +
+                    ")");
+            statement.execute("INSERT INTO orders_v2(id, customer_name, status, created_at_epoch, total, message, payer) " +
+                    "SELECT id, customer_name, " + statusCase() + ", coalesce(created_at_epoch, " + epochFallback + "), " +
+                    cents("total") + ", message, payer FROM orders");
+            statement.execute("CREATE TABLE order_items_v2 (" +
+                    "id INTEGER PRIMARY KEY AUTOINCREMENT," +
+                    "order_id INTEGER NOT NULL," +
+                    "dish_id INTEGER NOT NULL," +
+                    "quantity INTEGER NOT NULL," +
+                    "price INTEGER NOT NULL," +
+                    "FOREIGN KEY(order_id) REFERENCES orders(id) ON DELETE CASCADE," +
+                    "FOREIGN KEY(dish_id) REFERENCES dishes(id)" +
+                    ")");
+            statement.execute("INSERT INTO order_items_v2(id, order_id, dish_id, quantity, price) " +
+                    "SELECT id, order_id, dish_id, quantity, " + cents("price") + " FROM order_items");
+            statement.execute("CREATE TABLE orders_archive_v2 (" +
+                    "id INTEGER NOT NULL," +
+                    "customer_name TEXT NOT NULL," +
+                    "status INTEGER NOT NULL," +
+                    "created_at_epoch INTEGER NOT NULL," +
+                    "total INTEGER NOT NULL," +
+                    "message TEXT," +
+                    "payer INTEGER NOT NULL DEFAULT 0," +
+                    "items BLOB NOT NULL," +
+                    "PRIMARY KEY (created_at_epoch, id)" +
+                    ") WITHOUT ROWID");
+            statement.execute("INSERT INTO orders_archive_v2(id, customer_name, status, created_at_epoch, total, message, " +
+                    "payer, items) SELECT id, customer_name, " + statusCase() + ", created_at_epoch, " + cents("total") +
+                    ", message, payer, items FROM orders_archive");
+
+            // dropping a table also drops its triggers and indexes, including the V1 created_at_epoch triggers;
+            // foreign keys are not enforced on these connections, so no cascade reaches the copied items
+            for (String table : TABLES) {
+                statement.execute("DROP TABLE " + table);
+            }
+            for (String table : TABLES) {
+                statement.execute("ALTER TABLE " + table + "_v2 RENAME TO " + table);
+            }
+            statement.execute("CREATE INDEX idx_orders_created_at_epoch ON orders(created_at_epoch)");
+            statement.execute("CREATE INDEX idx_orders_status_created_at_epoch ON orders(status, created_at_epoch)");
+            statement.execute("CREATE INDEX idx_order_items_order_id ON order_items(order_id)");
+            statement.execute("CREATE INDEX idx_order_items_dish_id ON order_items(dish_id)");
+            statement.execute("CREATE UNIQUE INDEX idx_orders_archive_id ON orders_archive(id)");
+            SchemaMigrations.createOrderChangeTriggers(statement);
+            statement.execute("CREATE TABLE storage_format (" +
+                    "id INTEGER PRIMARY KEY CHECK (id = 1)," +
+                    "version INTEGER NOT NULL" +
+                    ")");
+            statement.execute("INSERT INTO storage_format(id, version) VALUES(1, 2)");
+            // every stored value was rewritten, so copies keyed on the change counter are outdated
+            statement.execute("UPDATE order_changes SET version = version + 1 WHERE id = 1");
+        }
+        restoreSequences(connection, sequences);
+        SalesRollups.rebuild(connection);
+    }
+
+    /**
+     * AUTOINCREMENT never reuses an id, even one whose row is gone; the rebuilt tables only know the ids
+     * copied into them, so the old counters are carried over.
+     */
+    private static Map<String, Long> readSequences(Connection connection) throws SQLException {
+        Map<String, Long> sequences = new LinkedHashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT name, seq FROM sqlite_sequence")) {
+            while (resultSet.next()) {
+                if (TABLES.contains(resultSet.getString("name"))) {
+                    sequences.put(resultSet.getString("name"), resultSet.getLong("seq"));
+                }
+            }
+        }
+        return sequences;
+    }
+
+    private static void restoreSequences(Connection connection, Map<String, Long> sequences) throws SQLException {
+        for (Map.Entry<String, Long> sequence : sequences.entrySet()) {
+            try (PreparedStatement update = connection.prepareStatement(
+                    "UPDATE sqlite_sequence SET seq = max(seq, ?) WHERE name = ?")) {
+                update.setLong(1, sequence.getValue());
+                update.setString(2, sequence.getKey());
+                if (update.executeUpdate() > 0) {
+                    continue;
+                }
+            }
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO sqlite_sequence(name, seq) VALUES(?, ?)")) {
+                insert.setString(1, sequence.getKey());
+                insert.setLong(2, sequence.getValue());
+                insert.executeUpdate();
+            }
+        }
+    }
+
+    private static String cents(String column) {
+        return "CAST(round(" + column + " * 100) AS INTEGER)";
+    }
+
+    /**
+     * Unknown statuses become {@link StatusOrder#ENCOURS}, which is how V1 reads them.
+     */
+    private static String statusCase() {
+        StringBuilder sql = new StringBuilder("CASE status");
+        for (StatusOrder status : StatusOrder.values()) {
+            sql.append(" WHEN '").append(status.name()).append("' THEN ").append(StorageFormat.statusCode(status));
+        }
+        return sql.append(" ELSE ").append(StorageFormat.statusCode(StatusOrder.ENCOURS)).append(" END").toString();
+    }
+
+    private static String categoryCase() {
+        StringBuilder sql = new StringBuilder("CASE category");
+        for (DishCategory category : DishCategory.values()) {
+            sql.append(" WHEN '").append(category.name()).append("' THEN ").append(StorageFormat.categoryCode(category));
+        }
+        return sql.append(" END").toString();
+    }
+}
@@ -0,0 +1,39 @@
+package backend.config.migration;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * One numbered schema change. Steps run inside the migrator's transaction and must not commit.
+ */
+public final class Migration {
+    private final int version;
+    private final String description;
+    private final Step step;
+
+    public Migration(int version, String description, Step step) {
+        if (version < 1) {
+            throw new IllegalArgumentException("Migration versions start at 1");
+        }
+        this.version = version;
+        this.description = description;
+        this.step = step;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    void apply(Connection connection) throws SQLException {
+        step.apply(connection);
+    }
+
+    @FunctionalInterface
+    public interface Step {
+        void apply(Connection connection) throws SQLException;
+    }
+}
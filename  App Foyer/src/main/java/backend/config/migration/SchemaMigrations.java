@@ -0,0 +1,195 @@
+package backend.config.migration;
+
+import backend.repository.impl.OrderSearchIndex;
+import backend.repository.impl.SalesRollups;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Ordered catalogue of the application's schema migrations. Append new steps; never edit shipped ones.
+ */
+public final class SchemaMigrations {
+    private SchemaMigrations() {
+    }
+
+    public static List<Migration> all() {
+        return List.of(
+                new Migration(1, "create base tables", SchemaMigrations::createBaseTables),
+                new Migration(2, "add orders.message", connection ->
+                        addColumnIfMissing(connection, "orders", "message", "TEXT")),
+                new Migration(3, "add orders.payer", connection ->
+                        addColumnIfMissing(connection, "orders", "payer", "INTEGER NOT NULL DEFAULT 0")),
+                new Migration(4, "sortable created_at and lookup indexes", SchemaMigrations::addOrderIndexes),
+                new Migration(5, "order archive", SchemaMigrations::createOrderArchive),
+                new Migration(6, "sales rollups", SchemaMigrations::createSalesRollups),
+                new Migration(7, "order full-text search", SchemaMigrations::createOrderSearch),
+                new Migration(8, "order change counter", SchemaMigrations::createOrderChangeCounter)
+        );
+    }
+
+    private static void createBaseTables(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS dishes (" +
+                    "id INTEGER PRIMARY KEY AUTOINCREMENT," +
+                    "name TEXT NOT NULL," +
+                    "price REAL NOT NULL," +
+                    "category TEXT NOT NULL" +
+                    ")");
+            statement.execute("CREATE TABLE IF NOT EXISTS orders (" +
+                    "id INTEGER PRIMARY KEY AUTOINCREMENT," +
+                    "customer_name TEXT NOT NULL," +
+                    "status TEXT NOT NULL," +
+                    "created_at TEXT NOT NULL," +
+                    "total REAL NOT NULL" +
+                    ")");
+            statement.execute("CREATE TABLE IF NOT EXISTS order_items (" +
+                    "id INTEGER PRIMARY KEY AUTOINCREMENT," +
+                    "order_id INTEGER NOT NULL," +
+                    "dish_id INTEGER NOT NULL," +
+                    "quantity INTEGER NOT NULL," +
+                    "price REAL NOT NULL," +
+                    "FOREIGN KEY(order_id) REFERENCES orders(id) ON DELETE CASCADE," +
+                    "FOREIGN KEY(dish_id) REFERENCES dishes(id)" +
+                    ")");
+        }
+    }
+
+    /**
+     * Mirrors {@code created_at} into an integer {@code created_at_epoch} (milliseconds, local time read as UTC)
+     * so range filters and sorting hit an index instead of wrapping the column in {@code datetime()}.
+     * Triggers fill the mirror for rows written without it.
+     */
+    private static void addOrderIndexes(Connection connection) throws SQLException {
+        String epochExpression = "CAST(ROUND((julianday(NEW.created_at) - 2440587.5) * 86400000.0) AS INTEGER)";
+        addColumnIfMissing(connection, "orders", "created_at_epoch", "INTEGER");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("UPDATE orders SET created_at_epoch = "
+                    + epochExpression.replace("NEW.", "") + " WHERE created_at_epoch IS NULL");
+            statement.execute("CREATE TRIGGER IF NOT EXISTS orders_created_at_epoch_insert AFTER INSERT ON orders " +
+                    "WHEN NEW.created_at_epoch IS NULL BEGIN " +
+                    "UPDATE orders SET created_at_epoch = " + epochExpression + " WHERE id = NEW.id; END");
+            statement.execute("CREATE TRIGGER IF NOT EXISTS orders_created_at_epoch_update AFTER UPDATE OF created_at ON orders " +
+                    "BEGIN UPDATE orders SET created_at_epoch = " + epochExpression + " WHERE id = NEW.id; END");
+            statement.execute("CREATE INDEX IF NOT EXISTS idx_orders_created_at_epoch ON orders(created_at_epoch)");
+            statement.execute("CREATE INDEX IF NOT EXISTS idx_orders_status_created_at_epoch ON orders(status, created_at_epoch)");
+            statement.execute("CREATE INDEX IF NOT EXISTS idx_order_items_order_id ON order_items(order_id)");
+            statement.execute("CREATE INDEX IF NOT EXISTS idx_order_items_dish_id ON order_items(dish_id)");
+        }
+    }
+
+    /**
+     * Cold storage for finished orders. Rows are clustered on {@code (created_at_epoch, id)} so date-range
+     * reads are sequential, and each order's items are folded into one compressed {@code items} blob.
+     */
+    private static void createOrderArchive(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS orders_archive (" +
+                    "id INTEGER NOT NULL," +
+                    "customer_name TEXT NOT NULL," +
+                    "status TEXT NOT NULL," +
+                    "created_at TEXT NOT NULL," +
+                    "created_at_epoch INTEGER NOT NULL," +
+                    "total REAL NOT NULL," +
+                    "message TEXT," +
+                    "payer INTEGER NOT NULL DEFAULT 0," +
+                    "items BLOB NOT NULL," +
+                    "PRIMARY KEY (created_at_epoch, id)" +
+                    ") WITHOUT ROWID");
+            statement.execute("CREATE UNIQUE INDEX IF NOT EXISTS idx_orders_archive_id ON orders_archive(id)");
+        }
+    }
+
+    /**
+     * Revenue and per-dish sales pre-summed per hour, day and month, filled from the existing history.
+     */
+    private static void createSalesRollups(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS revenue_rollup (" +
+                    "granularity TEXT NOT NULL," +
+                    "bucket_start INTEGER NOT NULL," +
+                    "order_count INTEGER NOT NULL," +
+                    "revenue REAL NOT NULL," +
+                    "PRIMARY KEY (granularity, bucket_start)" +
+                    ") WITHOUT ROWID");
+            statement.execute("CREATE TABLE IF NOT EXISTS dish_sales_rollup (" +
+                    "granularity TEXT NOT NULL," +
+                    "bucket_start INTEGER NOT NULL," +
+                    "dish_id INTEGER NOT NULL," +
+                    "dish_name TEXT NOT NULL," +
+                    "quantity INTEGER NOT NULL," +
+                    "revenue REAL NOT NULL," +
+                    "PRIMARY KEY (granularity, bucket_start, dish_id)" +
+                    ") WITHOUT ROWID");
+        }
+        SalesRollups.rebuild(connection);
+    }
+
+    /**
+     * FTS5 index over the order number, customer name, note and dish names, one row per order id. Accents
+     * are folded and two- and three-letter prefixes are indexed for search-as-you-type; ranking favours
+     * the customer name, then the number, the dishes and the note.
+     */
+    private static void createOrderSearch(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE VIRTUAL TABLE IF NOT EXISTS order_search USING fts5(" +
+                    "order_number, customer_name, message, dishes, " +
+                    "tokenize = 'unicode61 remove_diacritics 2', prefix = '2 3')");
+            statement.execute("INSERT INTO order_search(order_search, rank) VALUES('rank', 'bm25(5.0, 10.0, 1.0, 2.0)')");
+        }
+        OrderSearchIndex.rebuild(connection);
+    }
+
+    /**
+     * One-row {@code order_changes} table whose {@code version} goes up with every row written to
+     * {@code orders} or {@code orders_archive}, so a copy of the order history can tell whether it is still
+     * current with a single read. The random {@code generation} tells databases apart.
+     */
+    private static void createOrderChangeCounter(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS order_changes (" +
+                    "id INTEGER PRIMARY KEY CHECK (id = 1)," +
+                    "generation INTEGER NOT NULL," +
+                    "version INTEGER NOT NULL" +
+                    ")");
+            statement.execute("INSERT OR IGNORE INTO order_changes(id, generation, version) VALUES(1, abs(random()), 0)");
+            createOrderChangeTriggers(statement);
+        }
+    }
+
+    /**
+     * Triggers feeding {@code order_changes}; they go away with their table, so a rebuilt table needs them again.
+     */
+    static void createOrderChangeTriggers(Statement statement) throws SQLException {
+        for (String table : List.of("orders", "orders_archive")) {
+            for (String event : List.of("INSERT", "UPDATE", "DELETE")) {
+                statement.execute("CREATE TRIGGER IF NOT EXISTS " + table + "_count_" + event.toLowerCase(Locale.ROOT)
+                        + " AFTER " + event + " ON " + table
+                        + " BEGIN UPDATE order_changes SET version = version + 1 WHERE id = 1; END");
+            }
+        }
+    }
+
+    /**
+     * Databases created before migrations were tracked sit at version 0 but may already have the column,
+     * so this one-time step still has to look before altering.
+     */
+    private static void addColumnIfMissing(Connection connection, String table, String column, String definition)
+            throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (resultSet.next()) {
+                if (column.equalsIgnoreCase(resultSet.getString("name"))) {
+                    return;
+                }
+            }
+        }
+        try (Statement alterStatement = connection.createStatement()) {
+            alterStatement.execute("ALTER TABLE " + table + " ADD COLUMN " + column + " " + definition);
+        }
+    }
+}
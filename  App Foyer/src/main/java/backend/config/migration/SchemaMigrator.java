@@ -0,0 +1,78 @@
+package backend.config.migration;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Applies pending {@link Migration}s and records progress in {@code PRAGMA user_version}.
+ * On an up-to-date database the only work done is reading that integer.
+ */
+public final class SchemaMigrator {
+    private final List<Migration> migrations;
+
+    public SchemaMigrator(List<Migration> migrations) {
+        List<Migration> sorted = new ArrayList<>(migrations);
+        sorted.sort(Comparator.comparingInt(Migration::getVersion));
+        for (int i = 0; i < sorted.size(); i++) {
+            if (sorted.get(i).getVersion() != i + 1) {
+                throw new IllegalArgumentException("Migration versions must be contiguous from 1, found "
+                        + sorted.get(i).getVersion() + " at position " + (i + 1));
+            }
+        }
+        this.migrations = List.copyOf(sorted);
+    }
+
+    public int getLatestVersion() {
+        return migrations.size();
+    }
+
+    /**
+     * Brings the schema up to date, one transaction per migration.
+     *
+     * @return the number of migrations applied
+     */
+    public int migrate(Connection connection) throws SQLException {
+        int current = readVersion(connection);
+        if (current >= getLatestVersion()) {
+            return 0;
+        }
+        boolean autoCommit = connection.getAutoCommit();
+        int applied = 0;
+        try {
+            connection.setAutoCommit(false);
+            for (Migration migration : migrations.subList(current, migrations.size())) {
+                try {
+                    migration.apply(connection);
+                    writeVersion(connection, migration.getVersion());
+                    connection.commit();
+                    applied++;
+                } catch (SQLException | RuntimeException exception) {
+                    connection.rollback();
+                    throw new SQLException("Migration " + migration.getVersion() + " ("
+                            + migration.getDescription() + ") failed", exception);
+                }
+            }
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+        return applied;
+    }
+
+    public static int readVersion(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("PRAGMA user_version")) {
+            return resultSet.next() ? resultSet.getInt(1) : 0;
+        }
+    }
+
+    private static void writeVersion(Connection connection, int version) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("PRAGMA user_version = " + version);
+        }
+    }
+}
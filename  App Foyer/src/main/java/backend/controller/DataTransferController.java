@@ -0,0 +1,53 @@
+package backend.controller;
+
+import backend.repository.OrderQuery;
+import backend.service.DataTransferService;
+
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Backend controller exposed to the UI layer for menu and order history import/export.
+ */
+public class DataTransferController {
+    private final DataTransferService dataTransferService;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "data-transfer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public DataTransferController(DataTransferService dataTransferService) {
+        this.dataTransferService = dataTransferService;
+    }
+
+    /**
+     * Queues {@code transfer} on the background thread, after any transfer already in progress, so a large
+     * file never blocks the JavaFX thread.
+     */
+    public <T> CompletableFuture<T> runAsync(Supplier<T> transfer) {
+        return CompletableFuture.supplyAsync(transfer, executor);
+    }
+
+    public int exportDishes(Path file) {
+        return dataTransferService.exportDishes(file);
+    }
+
+    public int importDishes(Path file) {
+        return dataTransferService.importDishes(file);
+    }
+
+    /**
+     * Exports the whole history, archived orders included.
+     */
+    public long exportOrders(Path file) {
+        return dataTransferService.exportOrders(file, OrderQuery.all().includingArchive());
+    }
+
+    public long importOrders(Path file) {
+        return dataTransferService.importOrders(file);
+    }
+}
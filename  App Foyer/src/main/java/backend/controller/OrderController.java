@@ -2,6 +2,11 @@ package backend.controller;
 
 import backend.dto.OrderRequestDTO;
 import backend.dto.OrderResponseDTO;
+import backend.entity.StatusOrder;
+import backend.repository.OrderCursor;
+import backend.repository.OrderPage;
+import backend.repository.OrderQuery;
+import backend.repository.OrderSummary;
 import backend.service.OrderService;
 
 import java.util.List;
@@ -18,6 +23,26 @@ public class OrderController {
         return orderService.getOrders();
     }
 
+    public List<OrderResponseDTO> searchOrders(OrderQuery query) {
+        return orderService.findOrders(query);
+    }
+
+    public OrderPage<OrderResponseDTO> listOrderPage(OrderQuery query, OrderCursor cursor) {
+        return orderService.getOrderPage(query, cursor);
+    }
+
+    public List<OrderSummary> searchOrderSummaries(OrderQuery query) {
+        return orderService.findOrderSummaries(query);
+    }
+
+    public OrderPage<OrderSummary> listOrderSummaryPage(OrderQuery query, OrderCursor cursor) {
+        return orderService.getOrderSummaryPage(query, cursor);
+    }
+
+    public List<Long> searchOrderIds(String text, int limit) {
+        return orderService.searchOrderIds(text, limit);
+    }
+
     public Optional<OrderResponseDTO> getOrder(long id) {
         return orderService.getOrder(id);
     }
@@ -30,11 +55,19 @@ public class OrderController {
         orderService.updateOrder(request);
     }
 
+    public boolean updateStatus(long id, StatusOrder status) {
+        return orderService.updateStatus(id, status);
+    }
+
+    public boolean markPaid(long id) {
+        return orderService.markPaid(id);
+    }
+
     public void deleteOrder(long id) {
         orderService.deleteOrder(id);
     }
 
-    public void purgeCancelledOlderThanDays(int days) {
-        orderService.purgeCancelledOlderThanDays(days);
+    public int purgeCancelledOlderThanDays(int days) {
+        return orderService.purgeCancelledOlderThanDays(days);
     }
 }
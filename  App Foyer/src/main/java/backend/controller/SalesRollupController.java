@@ -0,0 +1,32 @@
+package backend.controller;
+
+import backend.repository.DishSales;
+import backend.repository.RevenueBucket;
+import backend.repository.RollupGranularity;
+import backend.service.SalesRollupService;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Backend controller exposing the pre-aggregated sales figures to the analytics screen.
+ */
+public class SalesRollupController {
+    private final SalesRollupService salesRollupService;
+
+    public SalesRollupController(SalesRollupService salesRollupService) {
+        this.salesRollupService = salesRollupService;
+    }
+
+    public List<RevenueBucket> getRevenue(RollupGranularity granularity, LocalDateTime from) {
+        return salesRollupService.getRevenue(granularity, from);
+    }
+
+    public List<DishSales> getDishSales(RollupGranularity granularity, LocalDateTime from) {
+        return salesRollupService.getDishSales(granularity, from);
+    }
+
+    public void rebuildRollups() {
+        salesRollupService.rebuildRollups();
+    }
+}
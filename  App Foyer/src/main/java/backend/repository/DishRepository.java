@@ -14,5 +14,11 @@ public interface DishRepository {
 
     void update(Dish dish);
 
+    /**
+     * Inserts the dishes without an id and updates the others, all in one transaction. Generated ids are
+     * written back with {@link Dish#setId}.
+     */
+    void saveAll(List<Dish> dishes);
+
     void delete(long id);
 }
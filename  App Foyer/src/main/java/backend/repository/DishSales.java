@@ -0,0 +1,28 @@
+package backend.repository;
+
+/**
+ * Quantity sold and revenue of one dish over a range of rollup buckets.
+ */
+public final class DishSales {
+    private final String dishName;
+    private final long quantity;
+    private final double revenue;
+
+    public DishSales(String dishName, long quantity, double revenue) {
+        this.dishName = dishName;
+        this.quantity = quantity;
+        this.revenue = revenue;
+    }
+
+    public String getDishName() {
+        return dishName;
+    }
+
+    public long getQuantity() {
+        return quantity;
+    }
+
+    public double getRevenue() {
+        return revenue;
+    }
+}
@@ -0,0 +1,23 @@
+package backend.repository;
+
+/**
+ * Keyset position in the order history, which is sorted newest first by (created_at, id).
+ * A page starts strictly after the cursor, so rows inserted meanwhile never shift later pages.
+ */
+public final class OrderCursor {
+    private final long createdAtEpoch;
+    private final long id;
+
+    public OrderCursor(long createdAtEpoch, long id) {
+        this.createdAtEpoch = createdAtEpoch;
+        this.id = id;
+    }
+
+    public long getCreatedAtEpoch() {
+        return createdAtEpoch;
+    }
+
+    public long getId() {
+        return id;
+    }
+}
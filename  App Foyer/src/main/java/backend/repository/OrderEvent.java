@@ -0,0 +1,152 @@
+package backend.repository;
+
+import backend.entity.Dish;
+import backend.entity.Order;
+import backend.entity.OrderItem;
+import backend.entity.StatusOrder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * One change to the order history as recorded in the order journal. Created and updated orders carry a
+ * full copy of the order, so every event can be applied again on its own.
+ */
+public final class OrderEvent {
+    public enum Type {
+        CREATED,
+        UPDATED,
+        STATUS_CHANGED,
+        PAID,
+        DELETED,
+        CANCELLED_PURGED,
+        FINISHED_ARCHIVED
+    }
+
+    private final long sequence;
+    private final Type type;
+    private final LocalDateTime recordedAt;
+    private final long orderId;
+    private final Order order;
+    private final StatusOrder status;
+    private final LocalDateTime cutoff;
+
+    public OrderEvent(long sequence, Type type, LocalDateTime recordedAt, long orderId, Order order,
+                      StatusOrder status, LocalDateTime cutoff) {
+        this.sequence = sequence;
+        this.type = type;
+        this.recordedAt = recordedAt;
+        this.orderId = orderId;
+        this.order = order != null ? copy(order) : null;
+        this.status = status;
+        this.cutoff = cutoff;
+    }
+
+    public static OrderEvent created(Order order) {
+        return new OrderEvent(0, Type.CREATED, LocalDateTime.now(), order.getId(), order, null, null);
+    }
+
+    public static OrderEvent updated(Order order) {
+        return new OrderEvent(0, Type.UPDATED, LocalDateTime.now(), order.getId(), order, null, null);
+    }
+
+    public static OrderEvent statusChanged(long orderId, StatusOrder status) {
+        return new OrderEvent(0, Type.STATUS_CHANGED, LocalDateTime.now(), orderId, null, status, null);
+    }
+
+    public static OrderEvent paid(long orderId) {
+        return new OrderEvent(0, Type.PAID, LocalDateTime.now(), orderId, null, null, null);
+    }
+
+    public static OrderEvent deleted(long orderId) {
+        return new OrderEvent(0, Type.DELETED, LocalDateTime.now(), orderId, null, null, null);
+    }
+
+    public static OrderEvent cancelledPurged(LocalDateTime cutoff) {
+        return new OrderEvent(0, Type.CANCELLED_PURGED, LocalDateTime.now(), 0, null, null, cutoff);
+    }
+
+    public static OrderEvent finishedArchived(LocalDateTime cutoff) {
+        return new OrderEvent(0, Type.FINISHED_ARCHIVED, LocalDateTime.now(), 0, null, null, cutoff);
+    }
+
+    /**
+     * Same event under the sequence number the journal gave it.
+     */
+    public OrderEvent withSequence(long newSequence) {
+        return new OrderEvent(newSequence, type, recordedAt, orderId, order, status, cutoff);
+    }
+
+    /**
+     * Replays the change on {@code repository}. Applying an event whose effect is already there changes
+     * nothing, so a journal can be replayed over a checkpoint that saw some of its events.
+     */
+    public void applyTo(OrderRepository repository) {
+        switch (type) {
+            case CREATED -> {
+                if (repository.findById(orderId).isEmpty()) {
+                    repository.createAll(List.of(copy(order)));
+                }
+            }
+            case UPDATED -> repository.update(copy(order));
+            case STATUS_CHANGED -> repository.updateStatus(orderId, status);
+            case PAID -> repository.markPaid(orderId);
+            case DELETED -> repository.delete(orderId);
+            case CANCELLED_PURGED -> repository.deleteCancelledBefore(cutoff);
+            case FINISHED_ARCHIVED -> repository.archiveFinishedBefore(cutoff);
+        }
+    }
+
+    /**
+     * Position in the journal, starting at 1; 0 until the event is appended.
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public LocalDateTime getRecordedAt() {
+        return recordedAt;
+    }
+
+    /**
+     * Order the event is about; 0 for the purge and archive events, which select orders by date.
+     */
+    public long getOrderId() {
+        return orderId;
+    }
+
+    /**
+     * The order as written, for {@link Type#CREATED} and {@link Type#UPDATED}.
+     */
+    public Optional<Order> getOrder() {
+        return order != null ? Optional.of(copy(order)) : Optional.empty();
+    }
+
+    public StatusOrder getStatus() {
+        return status;
+    }
+
+    /**
+     * Date bound of {@link Type#CANCELLED_PURGED} and {@link Type#FINISHED_ARCHIVED}.
+     */
+    public LocalDateTime getCutoff() {
+        return cutoff;
+    }
+
+    private static Order copy(Order order) {
+        List<OrderItem> items = new ArrayList<>(order.getItems().size());
+        for (OrderItem item : order.getItems()) {
+            Dish dish = item.getDish();
+            items.add(new OrderItem(item.getId(), new Dish(dish.getId(), dish.getName(), dish.getPrice(), dish.getCategory()),
+                    item.getQuantity(), item.getPrice()));
+        }
+        return new Order(order.getId(), order.getCustomerName(), order.getStatus(), order.getCreatedAt(), items,
+                order.getMessage(), order.isPayer());
+    }
+}
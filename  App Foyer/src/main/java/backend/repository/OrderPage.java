@@ -0,0 +1,37 @@
+package backend.repository;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * One slice of the order history plus the cursor to fetch the following slice.
+ */
+public final class OrderPage<T> {
+    private final List<T> items;
+    private final OrderCursor nextCursor;
+
+    public OrderPage(List<T> items, OrderCursor nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * Cursor for the next page, or {@code null} when this page reached the end of the history.
+     */
+    public OrderCursor getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+
+    public <R> OrderPage<R> map(Function<T, R> mapper) {
+        return new OrderPage<>(items.stream().map(mapper).collect(Collectors.toList()), nextCursor);
+    }
+}
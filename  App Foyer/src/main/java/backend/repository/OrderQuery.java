@@ -0,0 +1,116 @@
+package backend.repository;
+
+import backend.entity.StatusOrder;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Immutable filter over the order history, compiled by the repository into a single SQL statement.
+ * Every {@code with...} method returns a copy; unset criteria match everything.
+ */
+public final class OrderQuery {
+    private static final OrderQuery ALL =
+            new OrderQuery(EnumSet.noneOf(StatusOrder.class), null, null, null, null, 0, false);
+
+    private final EnumSet<StatusOrder> statuses;
+    private final LocalDateTime createdFrom;
+    private final LocalDateTime createdBefore;
+    private final Boolean payer;
+    private final String text;
+    private final int limit;
+    private final boolean archiveIncluded;
+
+    private OrderQuery(EnumSet<StatusOrder> statuses, LocalDateTime createdFrom, LocalDateTime createdBefore,
+                       Boolean payer, String text, int limit, boolean archiveIncluded) {
+        this.statuses = statuses;
+        this.createdFrom = createdFrom;
+        this.createdBefore = createdBefore;
+        this.payer = payer;
+        this.text = text;
+        this.limit = limit;
+        this.archiveIncluded = archiveIncluded;
+    }
+
+    public static OrderQuery all() {
+        return ALL;
+    }
+
+    public OrderQuery withStatuses(Collection<StatusOrder> newStatuses) {
+        EnumSet<StatusOrder> copy = newStatuses == null || newStatuses.isEmpty()
+                ? EnumSet.noneOf(StatusOrder.class)
+                : EnumSet.copyOf(newStatuses);
+        return new OrderQuery(copy, createdFrom, createdBefore, payer, text, limit, archiveIncluded);
+    }
+
+    /**
+     * Restricts to orders created in {@code [from, before)}; either bound may be null.
+     */
+    public OrderQuery createdBetween(LocalDateTime from, LocalDateTime before) {
+        return new OrderQuery(statuses, from, before, payer, text, limit, archiveIncluded);
+    }
+
+    /**
+     * Restricts to paid ({@code true}) or unpaid ({@code false}) orders; {@code null} accepts both.
+     */
+    public OrderQuery withPayer(Boolean newPayer) {
+        return new OrderQuery(statuses, createdFrom, createdBefore, newPayer, text, limit, archiveIncluded);
+    }
+
+    /**
+     * Matches orders where every word of {@code newText} starts a word of the number, customer name, note or
+     * dish names, ignoring case and accents; see {@link OrderRepository#search}.
+     */
+    public OrderQuery matching(String newText) {
+        String normalized = newText == null || newText.isBlank() ? null : newText.trim().toLowerCase(Locale.ROOT);
+        return new OrderQuery(statuses, createdFrom, createdBefore, payer, normalized, limit, archiveIncluded);
+    }
+
+    /**
+     * Maximum number of rows to return; {@code 0} means no limit. Also used as the page size when paging.
+     */
+    public OrderQuery withLimit(int newLimit) {
+        if (newLimit < 0) {
+            throw new IllegalArgumentException("Limit cannot be negative");
+        }
+        return new OrderQuery(statuses, createdFrom, createdBefore, payer, text, newLimit, archiveIncluded);
+    }
+
+    /**
+     * Also searches the archive of old finished orders; by default only the active tables are read.
+     */
+    public OrderQuery includingArchive() {
+        return new OrderQuery(statuses, createdFrom, createdBefore, payer, text, limit, true);
+    }
+
+    public Set<StatusOrder> getStatuses() {
+        return EnumSet.copyOf(statuses);
+    }
+
+    public LocalDateTime getCreatedFrom() {
+        return createdFrom;
+    }
+
+    public LocalDateTime getCreatedBefore() {
+        return createdBefore;
+    }
+
+    public Boolean getPayer() {
+        return payer;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public boolean isArchiveIncluded() {
+        return archiveIncluded;
+    }
+}
@@ -1,21 +1,106 @@
 package backend.repository;
 
 import backend.entity.Order;
+import backend.entity.StatusOrder;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface OrderRepository {
     List<Order> findAll();
 
+    /**
+     * Returns the orders matching {@code query}, newest first.
+     */
+    List<Order> find(OrderQuery query);
+
+    /**
+     * Returns up to {@code query.getLimit()} matching orders, newest first, starting after {@code cursor}
+     * (or at the most recent order when it is null).
+     */
+    OrderPage<Order> findPage(OrderQuery query, OrderCursor cursor);
+
+    /**
+     * Passes the orders matching {@code query} to {@code action} one at a time, newest first, reading them
+     * through a forward-only cursor so memory use does not grow with the history. The whole scan reads one
+     * snapshot; writes made meanwhile, including by {@code action}, are not seen.
+     */
+    void forEach(OrderQuery query, Consumer<Order> action);
+
+    /**
+     * Same selection as {@link #find}, without loading any items.
+     */
+    List<OrderSummary> findSummaries(OrderQuery query);
+
+    /**
+     * Same paging as {@link #findPage}, without loading any items.
+     */
+    OrderPage<OrderSummary> findSummaryPage(OrderQuery query, OrderCursor cursor);
+
+    /**
+     * Full-text search over the number, customer name, note and dish names of active and archived orders.
+     * Every word of {@code text} must start a word of the order, accents and case aside.
+     *
+     * @return up to {@code limit} order ids, best match first
+     */
+    List<Long> search(String text, int limit);
+
+    /**
+     * Looks the order up in the active tables, then in the archive.
+     */
     Optional<Order> findById(long id);
 
     long create(Order order);
 
-    void update(Order order);
+    /**
+     * Inserts {@code orders} in one transaction. Orders that already carry an id are stored under it;
+     * the others receive a generated one, written back with {@link Order#setId}.
+     */
+    void createAll(List<Order> orders);
+
+    /**
+     * Persists the order header and reconciles its items with the stored ones.
+     *
+     * @return the number of rows inserted, updated or deleted
+     */
+    int update(Order order);
+
+    /**
+     * Moves the order to {@code status} without touching its items.
+     *
+     * @return false when the order does not exist or already has that status
+     */
+    boolean updateStatus(long id, StatusOrder status);
+
+    /**
+     * Flags the order as paid without touching its items.
+     *
+     * @return false when the order does not exist or is already paid
+     */
+    boolean markPaid(long id);
 
     void delete(long id);
 
-    void deleteCancelledBefore(LocalDateTime cutoff);
+    /**
+     * Removes cancelled orders created before {@code cutoff}, with their items.
+     *
+     * @return the number of order and item rows deleted
+     */
+    int deleteCancelledBefore(LocalDateTime cutoff);
+
+    /**
+     * Moves finished orders created before {@code cutoff} out of the active tables into the archive.
+     *
+     * @return the number of orders archived
+     */
+    int archiveFinishedBefore(LocalDateTime cutoff);
+
+    /**
+     * Archives at most {@code limit} of those orders, oldest first, in one transaction.
+     *
+     * @return the number of orders archived; fewer than {@code limit} once none are left
+     */
+    int archiveFinishedBatch(LocalDateTime cutoff, int limit);
 }
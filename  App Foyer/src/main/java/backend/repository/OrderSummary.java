@@ -0,0 +1,61 @@
+package backend.repository;
+
+import backend.entity.StatusOrder;
+
+import java.time.LocalDateTime;
+
+/**
+ * Header-only view of an order, read straight from its row (stored {@code total} included) for list screens.
+ * Load the full {@link backend.entity.Order} by id when its items are needed.
+ */
+public final class OrderSummary {
+    private final long id;
+    private final String customerName;
+    private final StatusOrder status;
+    private final LocalDateTime createdAt;
+    private final double total;
+    private final boolean payer;
+    private final boolean archived;
+
+    public OrderSummary(long id, String customerName, StatusOrder status, LocalDateTime createdAt, double total,
+                        boolean payer, boolean archived) {
+        this.id = id;
+        this.customerName = customerName;
+        this.status = status;
+        this.createdAt = createdAt;
+        this.total = total;
+        this.payer = payer;
+        this.archived = archived;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getCustomerName() {
+        return customerName;
+    }
+
+    public StatusOrder getStatus() {
+        return status;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public double getTotal() {
+        return total;
+    }
+
+    public boolean isPayer() {
+        return payer;
+    }
+
+    /**
+     * Archived orders are read-only: they can be printed but no longer edited or cancelled.
+     */
+    public boolean isArchived() {
+        return archived;
+    }
+}
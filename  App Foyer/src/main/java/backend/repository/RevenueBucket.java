@@ -0,0 +1,30 @@
+package backend.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Paid orders and their revenue for one rollup bucket.
+ */
+public final class RevenueBucket {
+    private final LocalDateTime bucketStart;
+    private final long orderCount;
+    private final double revenue;
+
+    public RevenueBucket(LocalDateTime bucketStart, long orderCount, double revenue) {
+        this.bucketStart = bucketStart;
+        this.orderCount = orderCount;
+        this.revenue = revenue;
+    }
+
+    public LocalDateTime getBucketStart() {
+        return bucketStart;
+    }
+
+    public long getOrderCount() {
+        return orderCount;
+    }
+
+    public double getRevenue() {
+        return revenue;
+    }
+}
@@ -0,0 +1,24 @@
+package backend.repository;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Bucket width of the sales rollup tables.
+ */
+public enum RollupGranularity {
+    HOUR,
+    DAY,
+    MONTH;
+
+    /**
+     * Start of the bucket containing {@code dateTime}.
+     */
+    public LocalDateTime bucketStart(LocalDateTime dateTime) {
+        return switch (this) {
+            case HOUR -> dateTime.truncatedTo(ChronoUnit.HOURS);
+            case DAY -> dateTime.truncatedTo(ChronoUnit.DAYS);
+            case MONTH -> dateTime.toLocalDate().withDayOfMonth(1).atStartOfDay();
+        };
+    }
+}
@@ -0,0 +1,24 @@
+package backend.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Read side of the pre-aggregated sales tables, kept up to date by the order repository.
+ */
+public interface SalesRollupRepository {
+    /**
+     * Buckets from the one containing {@code from} ({@code null} = all history), oldest first.
+     */
+    List<RevenueBucket> findRevenue(RollupGranularity granularity, LocalDateTime from);
+
+    /**
+     * Per-dish totals over the same range, best sellers first.
+     */
+    List<DishSales> findDishSales(RollupGranularity granularity, LocalDateTime from);
+
+    /**
+     * Recomputes every rollup from the active and archived orders.
+     */
+    void rebuild();
+}
@@ -0,0 +1,115 @@
+package backend.repository.impl;
+
+import backend.entity.Dish;
+import backend.entity.DishCategory;
+import backend.entity.OrderItem;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Packs the items of an archived order into one deflated blob. Each line keeps a snapshot of its dish
+ * (name, category, menu price), so archived history survives later menu edits and deletions.
+ */
+final class ArchivedItemsCodec {
+    private static final int FORMAT_VERSION = 1;
+
+    private ArchivedItemsCodec() {
+    }
+
+    static byte[] encode(List<ArchivedItem> items) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + items.size() * 32);
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes, deflater))) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeInt(items.size());
+            for (ArchivedItem item : items) {
+                out.writeLong(item.id);
+                out.writeLong(item.dishId);
+                out.writeBoolean(item.dishName != null);
+                if (item.dishName != null) {
+                    out.writeUTF(item.dishName);
+                    out.writeUTF(item.dishCategory);
+                    out.writeDouble(item.dishPrice);
+                }
+                out.writeInt(item.quantity);
+                out.writeDouble(item.price);
+            }
+        } catch (IOException exception) {
+            throw new UncheckedIOException("Failed to encode archived items", exception);
+        } finally {
+            deflater.end();
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Lines whose dish no longer existed when the order was archived are left out, like the inner join
+     * used for live orders.
+     */
+    static List<OrderItem> decode(byte[] blob) {
+        Inflater inflater = new Inflater(true);
+        try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(blob), inflater))) {
+            int version = in.readUnsignedByte();
+            if (version != FORMAT_VERSION) {
+                throw new IllegalStateException("Unsupported archived items format " + version);
+            }
+            int count = in.readInt();
+            List<OrderItem> items = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                long id = in.readLong();
+                long dishId = in.readLong();
+                Dish dish = null;
+                if (in.readBoolean()) {
+                    String name = in.readUTF();
+                    String category = in.readUTF();
+                    dish = new Dish(dishId, name, in.readDouble(), DishCategory.valueOf(category));
+                }
+                int quantity = in.readInt();
+                double price = in.readDouble();
+                if (dish != null) {
+                    items.add(new OrderItem(id, dish, quantity, price));
+                }
+            }
+            return items;
+        } catch (IOException exception) {
+            throw new UncheckedIOException("Failed to decode archived items", exception);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * One {@code order_items} row joined with its dish, as read while archiving.
+     */
+    static final class ArchivedItem {
+        private final long id;
+        private final long dishId;
+        private final String dishName;
+        private final String dishCategory;
+        private final double dishPrice;
+        private final int quantity;
+        private final double price;
+
+        ArchivedItem(long id, long dishId, String dishName, String dishCategory, double dishPrice,
+                     int quantity, double price) {
+            this.id = id;
+            this.dishId = dishId;
+            this.dishName = dishName;
+            this.dishCategory = dishCategory;
+            this.dishPrice = dishPrice;
+            this.quantity = quantity;
+            this.price = price;
+        }
+    }
+}
@@ -1,8 +1,8 @@
 package backend.repository.impl;
 
 import backend.config.DatabaseConfig;
+import backend.config.StorageFormat;
 import backend.entity.Dish;
-import backend.entity.DishCategory;
 import backend.repository.DishRepository;
 
 import java.sql.Connection;
@@ -19,11 +19,12 @@ public class DishRepositoryImpl implements DishRepository {
     public List<Dish> findAll() {
         List<Dish> dishes = new ArrayList<>();
         String query = "SELECT id, name, price, category FROM dishes ORDER BY name";
-        try (Connection connection = DatabaseConfig.getConnection();
+        StorageFormat format = DatabaseConfig.getStorageFormat();
+        try (Connection connection = DatabaseConfig.getReadConnection();
              PreparedStatement statement = connection.prepareStatement(query);
              ResultSet resultSet = statement.executeQuery()) {
             while (resultSet.next()) {
-                dishes.add(mapDish(resultSet));
+                dishes.add(mapDish(resultSet, format));
             }
         } catch (SQLException exception) {
             throw new RuntimeException("Failed to fetch dishes", exception);
@@ -34,12 +35,12 @@ public class DishRepositoryImpl implements DishRepository {
     @Override
     public Optional<Dish> findById(long id) {
         String query = "SELECT id, name, price, category FROM dishes WHERE id = ?";
-        try (Connection connection = DatabaseConfig.getConnection();
+        try (Connection connection = DatabaseConfig.getReadConnection();
              PreparedStatement statement = connection.prepareStatement(query)) {
             statement.setLong(1, id);
             try (ResultSet resultSet = statement.executeQuery()) {
                 if (resultSet.next()) {
-                    return Optional.of(mapDish(resultSet));
+                    return Optional.of(mapDish(resultSet, DatabaseConfig.getStorageFormat()));
                 }
             }
         } catch (SQLException exception) {
@@ -53,9 +54,10 @@ public class DishRepositoryImpl implements DishRepository {
         String sql = "INSERT INTO dishes(name, price, category) VALUES(?, ?, ?)";
         try (Connection connection = DatabaseConfig.getConnection();
              PreparedStatement statement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            StorageFormat format = DatabaseConfig.getStorageFormat();
             statement.setString(1, dish.getName());
-            statement.setDouble(2, dish.getPrice());
-            statement.setString(3, dish.getCategory().name());
+            statement.setObject(2, format.money(dish.getPrice()));
+            statement.setObject(3, format.category(dish.getCategory()));
             statement.executeUpdate();
             try (ResultSet keys = statement.getGeneratedKeys()) {
                 if (keys.next()) {
@@ -70,39 +72,118 @@ public class DishRepositoryImpl implements DishRepository {
         return -1L;
     }
 
+    /**
+     * A rename also refreshes the search index of the active orders holding the dish.
+     */
     @Override
     public void update(Dish dish) {
         String sql = "UPDATE dishes SET name = ?, price = ?, category = ? WHERE id = ?";
-        try (Connection connection = DatabaseConfig.getConnection();
-             PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.setString(1, dish.getName());
-            statement.setDouble(2, dish.getPrice());
-            statement.setString(3, dish.getCategory().name());
-            statement.setLong(4, dish.getId());
-            statement.executeUpdate();
+        try {
+            DatabaseConfig.inTransaction(connection -> {
+                StorageFormat format = DatabaseConfig.getStorageFormat();
+                boolean renamed = isRenamed(connection, dish);
+                try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                    statement.setString(1, dish.getName());
+                    statement.setObject(2, format.money(dish.getPrice()));
+                    statement.setObject(3, format.category(dish.getCategory()));
+                    statement.setLong(4, dish.getId());
+                    statement.executeUpdate();
+                }
+                if (renamed) {
+                    refreshOrdersWithDish(connection, dish.getId());
+                }
+                return null;
+            });
         } catch (SQLException exception) {
             throw new RuntimeException("Failed to update dish", exception);
         }
     }
 
+    @Override
+    public void saveAll(List<Dish> dishes) {
+        String insertSql = "INSERT INTO dishes(name, price, category) VALUES(?, ?, ?)";
+        String updateSql = "UPDATE dishes SET name = ?, price = ?, category = ? WHERE id = ?";
+        try {
+            DatabaseConfig.inTransaction(connection -> {
+                StorageFormat format = DatabaseConfig.getStorageFormat();
+                List<Long> renamed = new ArrayList<>();
+                try (PreparedStatement insert = connection.prepareStatement(insertSql, Statement.RETURN_GENERATED_KEYS);
+                     PreparedStatement update = connection.prepareStatement(updateSql)) {
+                    for (Dish dish : dishes) {
+                        PreparedStatement statement = dish.getId() == null ? insert : update;
+                        statement.setString(1, dish.getName());
+                        statement.setObject(2, format.money(dish.getPrice()));
+                        statement.setObject(3, format.category(dish.getCategory()));
+                        if (dish.getId() != null) {
+                            if (isRenamed(connection, dish)) {
+                                renamed.add(dish.getId());
+                            }
+                            update.setLong(4, dish.getId());
+                            update.addBatch();
+                            continue;
+                        }
+                        insert.executeUpdate();
+                        try (ResultSet keys = insert.getGeneratedKeys()) {
+                            if (!keys.next()) {
+                                throw new SQLException("Dish insert did not return id");
+                            }
+                            dish.setId(keys.getLong(1));
+                        }
+                    }
+                    update.executeBatch();
+                }
+                for (long id : renamed) {
+                    refreshOrdersWithDish(connection, id);
+                }
+                return null;
+            });
+        } catch (SQLException exception) {
+            throw new RuntimeException("Failed to save dishes", exception);
+        }
+    }
+
+    /**
+     * The dish's lines in active orders leave the sales rollups in the same transaction, as a rebuild would drop them.
+     */
     @Override
     public void delete(long id) {
         String sql = "DELETE FROM dishes WHERE id = ?";
-        try (Connection connection = DatabaseConfig.getConnection();
-             PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.setLong(1, id);
-            statement.executeUpdate();
+        try {
+            DatabaseConfig.inTransaction(connection -> {
+                SalesRollups.subtractDish(connection, id);
+                try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                    statement.setLong(1, id);
+                    statement.executeUpdate();
+                }
+                // lines of a deleted dish are no longer shown, so their name leaves the index too
+                refreshOrdersWithDish(connection, id);
+                return null;
+            });
         } catch (SQLException exception) {
             throw new RuntimeException("Failed to delete dish", exception);
         }
     }
 
-    private Dish mapDish(ResultSet resultSet) throws SQLException {
+    private static boolean isRenamed(Connection connection, Dish dish) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT name FROM dishes WHERE id = ?")) {
+            statement.setLong(1, dish.getId());
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() && !resultSet.getString(1).equals(dish.getName());
+            }
+        }
+    }
+
+    private static void refreshOrdersWithDish(Connection connection, long dishId) throws SQLException {
+        OrderSearchIndex.refresh(connection, "o.id IN (SELECT order_id FROM order_items WHERE dish_id = ?)",
+                List.<Object>of(dishId));
+    }
+
+    private Dish mapDish(ResultSet resultSet, StorageFormat format) throws SQLException {
         Dish dish = new Dish();
         dish.setId(resultSet.getLong("id"));
         dish.setName(resultSet.getString("name"));
-        dish.setPrice(resultSet.getDouble("price"));
-        dish.setCategory(DishCategory.valueOf(resultSet.getString("category")));
+        dish.setPrice(format.readMoney(resultSet, "price"));
+        dish.setCategory(format.readCategory(resultSet, "category"));
         return dish;
     }
 }
@@ -0,0 +1,90 @@
+package backend.repository.impl;
+
+import backend.entity.Dish;
+import backend.repository.DishRepository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Menu held in an {@link InMemoryStore}, with the same behaviour as {@link DishRepositoryImpl}: dishes come
+ * back as copies, and updating an id that does not exist does nothing.
+ */
+public class InMemoryDishRepository implements DishRepository {
+    private final InMemoryStore store;
+
+    public InMemoryDishRepository(InMemoryStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public List<Dish> findAll() {
+        List<Dish> dishes = new ArrayList<>(store.dishes.size());
+        store.dishes.values().forEach(dish -> dishes.add(InMemoryStore.copy(dish)));
+        dishes.sort(Comparator.comparing(Dish::getName));
+        return dishes;
+    }
+
+    @Override
+    public Optional<Dish> findById(long id) {
+        Dish dish = store.dishes.get(id);
+        return dish != null ? Optional.of(InMemoryStore.copy(dish)) : Optional.empty();
+    }
+
+    @Override
+    public long save(Dish dish) {
+        store.writeLock.lock();
+        try {
+            long id = ++store.lastDishId;
+            dish.setId(id);
+            store.putDish(dish);
+            return id;
+        } finally {
+            store.writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void update(Dish dish) {
+        store.writeLock.lock();
+        try {
+            if (store.dishes.containsKey(dish.getId())) {
+                store.putDish(dish);
+            }
+        } finally {
+            store.writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void saveAll(List<Dish> dishes) {
+        store.writeLock.lock();
+        try {
+            for (Dish dish : dishes) {
+                if (dish.getId() == null) {
+                    dish.setId(++store.lastDishId);
+                    store.putDish(dish);
+                } else if (store.dishes.containsKey(dish.getId())) {
+                    store.putDish(dish);
+                }
+            }
+        } finally {
+            store.writeLock.unlock();
+        }
+    }
+
+    /**
+     * Lines of active orders pointing at the dish disappear from those orders, as with the SQL join.
+     */
+    @Override
+    public void delete(long id) {
+        store.writeLock.lock();
+        try {
+            store.removeDish(id);
+        } finally {
+            store.writeLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,536 @@
+package backend.repository.impl;
+
+import backend.entity.Dish;
+import backend.entity.Order;
+import backend.entity.OrderItem;
+import backend.entity.StatusOrder;
+import backend.repository.OrderCursor;
+import backend.repository.OrderPage;
+import backend.repository.OrderQuery;
+import backend.repository.OrderRepository;
+import backend.repository.OrderSummary;
+import backend.repository.impl.InMemoryStore.OrderKey;
+import backend.repository.impl.InMemoryStore.StoredItem;
+import backend.repository.impl.InMemoryStore.StoredOrder;
+
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Order history held in an {@link InMemoryStore}, with the same results as {@link OrderRepositoryImpl}:
+ * newest first, the same cursor paging, the archive only on request, active lines resolved against the
+ * current menu and archived lines against the dish snapshot taken when they were archived.
+ * <p>
+ * Queries walk the newest-first date indexes, one per requested status plus the archive, and merge them,
+ * so a limited query stops after {@code limit} matches. Reads take no lock; an order written during a scan
+ * may be missed, never returned twice.
+ */
+public class InMemoryOrderRepository implements OrderRepository {
+    private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final int CUSTOMER_WEIGHT = 10;
+    private static final int NUMBER_WEIGHT = 5;
+    private static final int DISHES_WEIGHT = 2;
+    private static final int MESSAGE_WEIGHT = 1;
+
+    private final InMemoryStore store;
+    private final Map<String, List<String>> foldedDishNames = new ConcurrentHashMap<>();
+
+    public InMemoryOrderRepository(InMemoryStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public List<Order> findAll() {
+        return find(OrderQuery.all());
+    }
+
+    @Override
+    public List<Order> find(OrderQuery query) {
+        List<Order> orders = new ArrayList<>();
+        scan(query, null, query.getLimit()).forEach(order -> orders.add(toOrder(order)));
+        return orders;
+    }
+
+    @Override
+    public OrderPage<Order> findPage(OrderQuery query, OrderCursor cursor) {
+        return page(query, cursor).map(this::toOrder);
+    }
+
+    /**
+     * Collects the matching rows first, so {@code action} may write to the repository without affecting the scan.
+     */
+    @Override
+    public void forEach(OrderQuery query, Consumer<Order> action) {
+        scan(query, null, query.getLimit()).forEach(order -> action.accept(toOrder(order)));
+    }
+
+    @Override
+    public List<OrderSummary> findSummaries(OrderQuery query) {
+        List<OrderSummary> summaries = new ArrayList<>();
+        scan(query, null, query.getLimit()).forEach(order -> summaries.add(toSummary(order)));
+        return summaries;
+    }
+
+    @Override
+    public OrderPage<OrderSummary> findSummaryPage(OrderQuery query, OrderCursor cursor) {
+        return page(query, cursor).map(InMemoryOrderRepository::toSummary);
+    }
+
+    /**
+     * Ranks with the column weights of the FTS5 index (customer 10, number 5, dishes 2, note 1), summed over
+     * the columns each word matches; ties go to the newest order.
+     */
+    @Override
+    public List<Long> search(String text, int limit) {
+        List<String> terms = terms(text);
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, StoredOrder> matches = new HashMap<>();
+        Map<Long, Integer> scores = new HashMap<>();
+        for (NavigableSet<OrderKey> index : List.of(store.activeByDate, store.archivedByDate)) {
+            for (OrderKey key : index) {
+                StoredOrder order = store.orders.get(key.id);
+                if (order != null && !matches.containsKey(order.id)) {
+                    int score = score(order, terms);
+                    if (score > 0) {
+                        matches.put(order.id, order);
+                        scores.put(order.id, score);
+                    }
+                }
+            }
+        }
+        Comparator<StoredOrder> byRank = Comparator.<StoredOrder>comparingInt(order -> scores.get(order.id)).reversed()
+                .thenComparing((left, right) -> OrderKey.compare(left.key, right.key));
+        List<Long> ids = new ArrayList<>();
+        matches.values().stream()
+                .sorted(byRank)
+                .limit(limit > 0 ? limit : Long.MAX_VALUE)
+                .forEach(order -> ids.add(order.id));
+        return ids;
+    }
+
+    @Override
+    public Optional<Order> findById(long id) {
+        StoredOrder order = store.orders.get(id);
+        return order != null ? Optional.of(toOrder(order)) : Optional.empty();
+    }
+
+    @Override
+    public long create(Order order) {
+        store.writeLock.lock();
+        try {
+            return insert(order, null);
+        } finally {
+            store.writeLock.unlock();
+        }
+    }
+
+    /**
+     * All or nothing: a taken id rejects the whole list before anything is stored.
+     */
+    @Override
+    public void createAll(List<Order> orders) {
+        store.writeLock.lock();
+        try {
+            Set<Long> explicitIds = new HashSet<>();
+            for (Order order : orders) {
+                if (order.getId() != null && (store.orders.containsKey(order.getId()) || !explicitIds.add(order.getId()))) {
+                    throw new RuntimeException("Failed to create orders",
+                            new IllegalStateException("Order id " + order.getId() + " already exists"));
+                }
+            }
+            for (Order order : orders) {
+                order.setId(insert(order, order.getId()));
+            }
+        } finally {
+            store.writeLock.unlock();
+        }
+    }
+
+    /**
+     * Reconciles the items by dish like {@link OrderRepositoryImpl}: unchanged lines keep their id, lines for
+     * the same dish are merged, and only the lines actually inserted, updated or removed are counted.
+     */
+    @Override
+    public int update(Order order) {
+        store.writeLock.lock();
+        try {
+            StoredOrder stored = store.orders.get(order.getId());
+            if (stored == null || stored.archived) {
+                return 0;
+            }
+            Map<Long, OrderItem> incoming = new LinkedHashMap<>();
+            for (OrderItem item : order.getItems()) {
+                OrderItem existing = incoming.get(item.getDish().getId());
+                if (existing == null) {
+                    incoming.put(item.getDish().getId(), new OrderItem(null, item.getDish(), item.getQuantity(), item.getPrice()));
+                } else {
+                    existing.setQuantity(existing.getQuantity() + item.getQuantity());
+                }
+            }
+            int touched = 1;
+            List<StoredItem> items = new ArrayList<>();
+            Set<Long> matched = new HashSet<>();
+            for (StoredItem item : stored.items) {
+                OrderItem wanted = incoming.get(item.dishId);
+                if (wanted == null || !matched.add(item.dishId)) {
+                    touched++;
+                } else if (wanted.getQuantity() != item.quantity || Double.compare(wanted.getPrice(), item.price) != 0) {
+                    items.add(new StoredItem(item.id, item.dishId, wanted.getQuantity(), wanted.getPrice(), null));
+                    touched++;
+                } else {
+                    items.add(item);
+                }
+            }
+            for (Map.Entry<Long, OrderItem> entry : incoming.entrySet()) {
+                if (!matched.contains(entry.getKey())) {
+                    OrderItem item = entry.getValue();
+                    items.add(new StoredItem(++store.lastItemId, entry.getKey(), item.getQuantity(), item.getPrice(), null));
+                    touched++;
+                }
+            }
+            store.put(new StoredOrder(stored.id, order.getCustomerName(), statusOf(order), stored.createdAt,
+                    order.getMessage(), order.isPayer(), order.getTotal(), false, items));
+            return touched;
+        } finally {
+            store.writeLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean updateStatus(long id, StatusOrder status) {
+        store.writeLock.lock();
+        try {
+            StoredOrder stored = store.orders.get(id);
+            if (stored == null || stored.archived || stored.status == status) {
+                return false;
+            }
+            store.put(new StoredOrder(stored.id, stored.customerName, status, stored.createdAt, stored.message,
+                    stored.payer, stored.total, false, stored.items));
+            return true;
+        } finally {
+            store.writeLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean markPaid(long id) {
+        store.writeLock.lock();
+        try {
+            StoredOrder stored = store.orders.get(id);
+            if (stored == null || stored.archived || stored.payer) {
+                return false;
+            }
+            store.put(new StoredOrder(stored.id, stored.customerName, stored.status, stored.createdAt, stored.message,
+                    true, stored.total, false, stored.items));
+            return true;
+        } finally {
+            store.writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void delete(long id) {
+        store.writeLock.lock();
+        try {
+            store.remove(id);
+        } finally {
+            store.writeLock.unlock();
+        }
+    }
+
+    @Override
+    public int deleteCancelledBefore(LocalDateTime cutoff) {
+        store.writeLock.lock();
+        try {
+            int removed = 0;
+            for (OrderKey key : new ArrayList<>(olderThan(store.activeByStatus.get(StatusOrder.ANNULER), cutoff))) {
+                StoredOrder order = store.remove(key.id);
+                removed += 1 + order.items.size();
+            }
+            return removed;
+        } finally {
+            store.writeLock.unlock();
+        }
+    }
+
+    /**
+     * Archived lines keep a copy of their dish; a line whose dish is gone is kept without one and no longer shown.
+     */
+    @Override
+    public int archiveFinishedBefore(LocalDateTime cutoff) {
+        return archiveFinishedBatch(cutoff, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int archiveFinishedBatch(LocalDateTime cutoff, int limit) {
+        store.writeLock.lock();
+        try {
+            List<OrderKey> keys = new ArrayList<>();
+            Iterator<OrderKey> oldestFirst = olderThan(store.activeByStatus.get(StatusOrder.FINI), cutoff)
+                    .descendingIterator();
+            while (keys.size() < limit && oldestFirst.hasNext()) {
+                keys.add(oldestFirst.next());
+            }
+            for (OrderKey key : keys) {
+                StoredOrder order = store.orders.get(key.id);
+                List<StoredItem> items = new ArrayList<>(order.items.size());
+                for (StoredItem item : order.items) {
+                    Dish dish = store.dishes.get(item.dishId);
+                    items.add(new StoredItem(item.id, item.dishId, item.quantity, item.price,
+                            dish != null ? InMemoryStore.copy(dish) : null));
+                }
+                store.put(new StoredOrder(order.id, order.customerName, order.status, order.createdAt, order.message,
+                        order.payer, order.total, true, items));
+            }
+            return keys.size();
+        } finally {
+            store.writeLock.unlock();
+        }
+    }
+
+    /**
+     * Folds case and accents like the {@code unicode61 remove_diacritics 2} tokenizer of the SQLite index.
+     */
+    static String fold(String text) {
+        return MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    static List<String> terms(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text != null) {
+            for (String word : WORD_SEPARATOR.split(fold(text))) {
+                if (!word.isEmpty()) {
+                    terms.add(word);
+                }
+            }
+        }
+        return terms;
+    }
+
+    private long insert(Order order, Long explicitId) {
+        long id;
+        if (explicitId != null) {
+            id = explicitId;
+            store.lastOrderId = Math.max(store.lastOrderId, id);
+        } else {
+            id = ++store.lastOrderId;
+        }
+        List<StoredItem> items = new ArrayList<>(order.getItems().size());
+        for (OrderItem item : order.getItems()) {
+            items.add(new StoredItem(++store.lastItemId, item.getDish().getId(), item.getQuantity(), item.getPrice(), null));
+        }
+        store.put(new StoredOrder(id, order.getCustomerName(), statusOf(order), order.getCreatedAt(),
+                order.getMessage(), order.isPayer(), order.getTotal(), false, items));
+        return id;
+    }
+
+    private OrderPage<StoredOrder> page(OrderQuery query, OrderCursor cursor) {
+        int limit = query.getLimit();
+        if (limit < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1");
+        }
+        List<StoredOrder> orders = scan(query, cursor, limit + 1);
+        OrderCursor nextCursor = null;
+        if (orders.size() > limit) {
+            orders = new ArrayList<>(orders.subList(0, limit));
+            StoredOrder last = orders.get(limit - 1);
+            nextCursor = new OrderCursor(last.key.epoch, last.id);
+        }
+        return new OrderPage<>(orders, nextCursor);
+    }
+
+    /**
+     * Merges the index ranges the query selects, newest first, stopping after {@code limit} matches (0 = all).
+     * A key is only trusted when the current row still belongs to the index it was read from, which skips
+     * keys left behind by a concurrent status change or archiving.
+     */
+    private List<StoredOrder> scan(OrderQuery query, OrderCursor cursor, int limit) {
+        List<Source> sources = new ArrayList<>();
+        if (query.getStatuses().isEmpty()) {
+            sources.add(new Source(range(store.activeByDate, query, cursor), order -> !order.archived));
+        } else {
+            for (StatusOrder status : query.getStatuses()) {
+                sources.add(new Source(range(store.activeByStatus.get(status), query, cursor),
+                        order -> !order.archived && order.status == status));
+            }
+        }
+        if (query.isArchiveIncluded()) {
+            Set<StatusOrder> statuses = query.getStatuses();
+            sources.add(new Source(range(store.archivedByDate, query, cursor),
+                    order -> order.archived && (statuses.isEmpty() || statuses.contains(order.status))));
+        }
+        List<String> terms = terms(query.getText());
+        Boolean payer = query.getPayer();
+        List<StoredOrder> matches = new ArrayList<>();
+        OrderKey previous = null;
+        while (limit == 0 || matches.size() < limit) {
+            Source next = null;
+            for (Source source : sources) {
+                if (source.head != null && (next == null || OrderKey.compare(source.head, next.head) < 0)) {
+                    next = source;
+                }
+            }
+            if (next == null) {
+                break;
+            }
+            OrderKey key = next.head;
+            next.advance();
+            if (previous != null && OrderKey.compare(previous, key) == 0) {
+                // the same order seen again under the status it moved to during the scan
+                continue;
+            }
+            previous = key;
+            StoredOrder order = store.orders.get(key.id);
+            if (order == null || order.key.epoch != key.epoch || !next.owns.test(order)) {
+                continue;
+            }
+            if ((payer == null || payer == order.payer) && (terms.isEmpty() || score(order, terms) > 0)) {
+                matches.add(order);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Keys of {@code index} within the query's date range and strictly after {@code cursor}.
+     */
+    private static NavigableSet<OrderKey> range(NavigableSet<OrderKey> index, OrderQuery query, OrderCursor cursor) {
+        OrderKey after = null;
+        if (query.getCreatedBefore() != null) {
+            after = new OrderKey(InMemoryStore.toEpochMillis(query.getCreatedBefore()), Long.MIN_VALUE);
+        }
+        if (cursor != null) {
+            OrderKey cursorKey = new OrderKey(cursor.getCreatedAtEpoch(), cursor.getId());
+            if (after == null || OrderKey.compare(cursorKey, after) > 0) {
+                after = cursorKey;
+            }
+        }
+        OrderKey before = query.getCreatedFrom() != null
+                ? new OrderKey(InMemoryStore.toEpochMillis(query.getCreatedFrom()), Long.MIN_VALUE)
+                : null;
+        if (after != null && before != null) {
+            return OrderKey.compare(after, before) < 0
+                    ? index.subSet(after, false, before, false)
+                    : Collections.emptyNavigableSet();
+        }
+        if (after != null) {
+            return index.tailSet(after, false);
+        }
+        return before != null ? index.headSet(before, false) : index;
+    }
+
+    private static NavigableSet<OrderKey> olderThan(NavigableSet<OrderKey> index, LocalDateTime cutoff) {
+        return index.tailSet(new OrderKey(InMemoryStore.toEpochMillis(cutoff), Long.MIN_VALUE), false);
+    }
+
+    /**
+     * Sum of the column weights matched by each term, or 0 when one term matches no column.
+     */
+    private int score(StoredOrder order, List<String> terms) {
+        List<String> customer = order.customerWords;
+        if (customer == null) {
+            customer = List.copyOf(terms(order.customerName));
+            order.customerWords = customer;
+        }
+        List<String> message = order.messageWords;
+        if (message == null) {
+            message = List.copyOf(terms(order.message));
+            order.messageWords = message;
+        }
+        List<String> number = List.of(Long.toString(order.id));
+        List<String> dishes = null;
+        int score = 0;
+        for (String term : terms) {
+            int termScore = (startsAny(customer, term) ? CUSTOMER_WEIGHT : 0)
+                    + (startsAny(number, term) ? NUMBER_WEIGHT : 0)
+                    + (startsAny(message, term) ? MESSAGE_WEIGHT : 0);
+            if (dishes == null) {
+                dishes = dishWords(order);
+            }
+            if (startsAny(dishes, term)) {
+                termScore += DISHES_WEIGHT;
+            }
+            if (termScore == 0) {
+                return 0;
+            }
+            score += termScore;
+        }
+        return score;
+    }
+
+    /**
+     * Folded words of the dish names an order shows, folded once per distinct name.
+     */
+    private List<String> dishWords(StoredOrder order) {
+        List<String> words = new ArrayList<>();
+        for (StoredItem item : order.items) {
+            Dish dish = order.archived ? item.dishSnapshot : store.dishes.get(item.dishId);
+            if (dish != null) {
+                words.addAll(foldedDishNames.computeIfAbsent(dish.getName(), InMemoryOrderRepository::terms));
+            }
+        }
+        return words;
+    }
+
+    private static boolean startsAny(List<String> words, String term) {
+        for (String word : words) {
+            if (word.startsWith(term)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static StatusOrder statusOf(Order order) {
+        return order.getStatus() != null ? order.getStatus() : StatusOrder.ENCOURS;
+    }
+
+    private Order toOrder(StoredOrder order) {
+        return new Order(order.id, order.customerName, order.status, order.createdAt, store.visibleItems(order),
+                order.message, order.payer);
+    }
+
+    private static OrderSummary toSummary(StoredOrder order) {
+        return new OrderSummary(order.id, order.customerName, order.status, order.createdAt, order.total, order.payer,
+                order.archived);
+    }
+
+    /**
+     * One index range being merged, with the key it will yield next.
+     */
+    private static final class Source {
+        private final Iterator<OrderKey> keys;
+        private final Predicate<StoredOrder> owns;
+        private OrderKey head;
+
+        private Source(NavigableSet<OrderKey> keys, Predicate<StoredOrder> owns) {
+            this.keys = keys.iterator();
+            this.owns = owns;
+            advance();
+        }
+
+        private void advance() {
+            head = keys.hasNext() ? keys.next() : null;
+        }
+    }
+}
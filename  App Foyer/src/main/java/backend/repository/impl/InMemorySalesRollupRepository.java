@@ -0,0 +1,90 @@
+package backend.repository.impl;
+
+import backend.entity.OrderItem;
+import backend.repository.DishSales;
+import backend.repository.RevenueBucket;
+import backend.repository.RollupGranularity;
+import backend.repository.SalesRollupRepository;
+import backend.repository.impl.InMemoryStore.StoredOrder;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Sales figures of an {@link InMemoryStore}, summed from the orders on every call instead of being kept in
+ * rollup tables, with the same rules as {@link SalesRollups}: paid orders whatever their status, active and
+ * archived, and only the lines whose dish can still be shown.
+ */
+public class InMemorySalesRollupRepository implements SalesRollupRepository {
+    private final InMemoryStore store;
+
+    public InMemorySalesRollupRepository(InMemoryStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public List<RevenueBucket> findRevenue(RollupGranularity granularity, LocalDateTime from) {
+        long lowerBound = lowerBound(granularity, from);
+        Map<Long, long[]> counts = new TreeMap<>();
+        Map<Long, Double> revenues = new HashMap<>();
+        for (StoredOrder order : store.orders.values()) {
+            long bucket = SalesRollups.bucketStart(granularity, order.key.epoch);
+            if (!order.payer || bucket < lowerBound) {
+                continue;
+            }
+            double revenue = 0;
+            for (OrderItem item : store.visibleItems(order)) {
+                revenue += item.getQuantity() * item.getPrice();
+            }
+            counts.computeIfAbsent(bucket, key -> new long[1])[0]++;
+            revenues.merge(bucket, revenue, Double::sum);
+        }
+        List<RevenueBucket> buckets = new ArrayList<>(counts.size());
+        counts.forEach((bucket, count) -> buckets.add(new RevenueBucket(
+                LocalDateTime.ofEpochSecond(bucket / 1000L, 0, ZoneOffset.UTC), count[0], revenues.get(bucket))));
+        return buckets;
+    }
+
+    @Override
+    public List<DishSales> findDishSales(RollupGranularity granularity, LocalDateTime from) {
+        long lowerBound = lowerBound(granularity, from);
+        Map<String, long[]> quantities = new HashMap<>();
+        Map<String, Double> revenues = new HashMap<>();
+        for (StoredOrder order : store.orders.values()) {
+            if (!order.payer || SalesRollups.bucketStart(granularity, order.key.epoch) < lowerBound) {
+                continue;
+            }
+            for (OrderItem item : store.visibleItems(order)) {
+                String name = item.getDish().getName();
+                quantities.computeIfAbsent(name, key -> new long[1])[0] += item.getQuantity();
+                revenues.merge(name, item.getQuantity() * item.getPrice(), Double::sum);
+            }
+        }
+        List<DishSales> sales = new ArrayList<>(quantities.size());
+        quantities.forEach((name, quantity) -> {
+            if (quantity[0] > 0) {
+                sales.add(new DishSales(name, quantity[0], revenues.get(name)));
+            }
+        });
+        sales.sort(Comparator.comparingDouble(DishSales::getRevenue).reversed());
+        return sales;
+    }
+
+    /**
+     * Nothing to rebuild: the figures are always computed from the current orders.
+     */
+    @Override
+    public void rebuild() {
+    }
+
+    private static long lowerBound(RollupGranularity granularity, LocalDateTime from) {
+        return from == null ? Long.MIN_VALUE
+                : granularity.bucketStart(from).toEpochSecond(ZoneOffset.UTC) * 1000L;
+    }
+}
@@ -0,0 +1,520 @@
+package backend.repository.impl;
+
+import backend.entity.Dish;
+import backend.entity.DishCategory;
+import backend.entity.OrderItem;
+import backend.entity.StatusOrder;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Data held by {@link InMemoryDishRepository} and {@link InMemoryOrderRepository}: concurrent maps keyed on
+ * the id, plus newest-first date indexes per status and for the archive. Stored rows are immutable and are
+ * replaced whole, so readers never lock and never see half an update; writers are serialized by one lock,
+ * which keeps the indexes in step with the maps.
+ * <p>
+ * The store can be written to a file and read back. {@link #shared()} is the instance used by the
+ * {@code -Dfoyer.storage=memory} mode, restored from {@code -Dfoyer.memory.snapshotFile} when set and saved
+ * there every {@code -Dfoyer.memory.snapshotIntervalSeconds} (default 60) and on {@link #close()}.
+ * With the order journal enabled, a snapshot is also a checkpoint: it records the last journal sequence it
+ * covers, and {@link #shared()} replays the events after it.
+ */
+public final class InMemoryStore implements AutoCloseable {
+    private static final String PREFIX = "foyer.memory.";
+    private static final int SNAPSHOT_MAGIC = 0x464F594D;
+    private static final int SNAPSHOT_VERSION = 2;
+    private static final Comparator<OrderKey> NEWEST_FIRST = Comparator.comparingLong((OrderKey key) -> key.epoch)
+            .thenComparingLong(key -> key.id).reversed();
+    private static volatile InMemoryStore shared;
+
+    final Map<Long, Dish> dishes = new ConcurrentHashMap<>();
+    final Map<Long, StoredOrder> orders = new ConcurrentHashMap<>();
+    final NavigableSet<OrderKey> activeByDate = new ConcurrentSkipListSet<>(NEWEST_FIRST);
+    final Map<StatusOrder, NavigableSet<OrderKey>> activeByStatus = new EnumMap<>(StatusOrder.class);
+    final NavigableSet<OrderKey> archivedByDate = new ConcurrentSkipListSet<>(NEWEST_FIRST);
+    final ReentrantLock writeLock = new ReentrantLock();
+    long lastDishId;
+    long lastOrderId;
+    long lastItemId;
+    private long changes;
+    private long savedChanges;
+    private volatile long checkpointSequence;
+    private volatile OrderJournal journal;
+    private Path snapshotFile;
+    private ScheduledExecutorService snapshotExecutor;
+
+    public InMemoryStore() {
+        for (StatusOrder status : StatusOrder.values()) {
+            activeByStatus.put(status, new ConcurrentSkipListSet<>(NEWEST_FIRST));
+        }
+    }
+
+    /**
+     * Process-wide store for the in-memory storage mode, created on first use from the system properties.
+     * A store that starts without dishes takes the SQLite menu, under the same ids.
+     */
+    public static InMemoryStore shared() {
+        InMemoryStore current = shared;
+        if (current == null) {
+            synchronized (InMemoryStore.class) {
+                current = shared;
+                if (current == null) {
+                    current = new InMemoryStore();
+                    String file = System.getProperty(PREFIX + "snapshotFile");
+                    Path path = file != null && !file.isBlank() ? Paths.get(file) : null;
+                    if (path != null && Files.exists(path)) {
+                        current.restore(path);
+                    }
+                    if (current.dishes.isEmpty()) {
+                        current.loadMenu(new DishRepositoryImpl().findAll());
+                    }
+                    InMemoryStore store = current;
+                    OrderJournal.shared().ifPresent(orderJournal -> {
+                        JournaledOrderRepository.replay(orderJournal, store.checkpointSequence,
+                                new InMemoryOrderRepository(store));
+                        store.journal = orderJournal;
+                    });
+                    if (path != null) {
+                        current.startSnapshots(path, Long.getLong(PREFIX + "snapshotIntervalSeconds", 60));
+                    }
+                    shared = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * True when {@code -Dfoyer.storage=memory} selects this store over SQLite.
+     */
+    public static boolean isSelected() {
+        return "memory".equalsIgnoreCase(System.getProperty("foyer.storage", "sqlite").trim());
+    }
+
+    /**
+     * Saves the shared store one last time and stops its schedule; a no-op when it was never used.
+     */
+    public static synchronized void shutdownShared() {
+        if (shared != null) {
+            shared.close();
+            shared = null;
+        }
+    }
+
+    public boolean isEmpty() {
+        return dishes.isEmpty() && orders.isEmpty();
+    }
+
+    /**
+     * Last journal sequence covered by the restored snapshot; 0 without one.
+     */
+    public long getCheckpointSequence() {
+        return checkpointSequence;
+    }
+
+    /**
+     * Saves the store to {@code file} every {@code intervalSeconds} when something changed since the last save.
+     */
+    public synchronized void startSnapshots(Path file, long intervalSeconds) {
+        if (intervalSeconds < 1) {
+            throw new IllegalArgumentException("Snapshot interval must be at least one second");
+        }
+        if (snapshotExecutor != null) {
+            throw new IllegalStateException("Snapshots are already scheduled");
+        }
+        snapshotFile = file;
+        snapshotExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "memory-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        snapshotExecutor.scheduleWithFixedDelay(this::snapshotIfChanged, intervalSeconds, intervalSeconds,
+                TimeUnit.SECONDS);
+    }
+
+    /**
+     * Writes every dish and order to {@code file}. The rows are collected under the write lock, which only
+     * copies references, and serialized after it is released; the file is replaced atomically.
+     */
+    public void snapshot(Path file) {
+        List<Dish> dishCopy;
+        List<StoredOrder> orderCopy;
+        long[] sequences;
+        long version;
+        // read before copying: every event up to here is already applied, later ones are replayed idempotently
+        OrderJournal currentJournal = journal;
+        long checkpoint = currentJournal != null ? currentJournal.getLastSequence() : checkpointSequence;
+        writeLock.lock();
+        try {
+            dishCopy = new ArrayList<>(dishes.values());
+            orderCopy = new ArrayList<>(orders.values());
+            sequences = new long[]{lastDishId, lastOrderId, lastItemId};
+            version = changes;
+        } finally {
+            writeLock.unlock();
+        }
+        Path partial = file.resolveSibling(file.getFileName() + ".part");
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(partial), 1 << 16))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(SNAPSHOT_VERSION);
+                for (long sequence : sequences) {
+                    out.writeLong(sequence);
+                }
+                out.writeLong(checkpoint);
+                out.writeInt(dishCopy.size());
+                for (Dish dish : dishCopy) {
+                    writeDish(out, dish);
+                }
+                out.writeInt(orderCopy.size());
+                for (StoredOrder order : orderCopy) {
+                    writeOrder(out, order);
+                }
+            }
+            Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException exception) {
+            throw new UncheckedIOException("Failed to write memory snapshot", exception);
+        }
+        synchronized (this) {
+            savedChanges = Math.max(savedChanges, version);
+        }
+    }
+
+    /**
+     * Replaces the whole content of the store with the snapshot in {@code file}.
+     */
+    public void restore(Path file) {
+        List<Dish> restoredDishes = new ArrayList<>();
+        List<StoredOrder> restoredOrders = new ArrayList<>();
+        long[] sequences = new long[3];
+        long checkpoint = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("Not a memory snapshot: " + file);
+            }
+            int version = in.readInt();
+            if (version < 1 || version > SNAPSHOT_VERSION) {
+                throw new IOException("Unsupported memory snapshot version " + version);
+            }
+            for (int i = 0; i < sequences.length; i++) {
+                sequences[i] = in.readLong();
+            }
+            if (version >= 2) {
+                checkpoint = in.readLong();
+            }
+            int dishCount = in.readInt();
+            for (int i = 0; i < dishCount; i++) {
+                restoredDishes.add(readDish(in));
+            }
+            int orderCount = in.readInt();
+            for (int i = 0; i < orderCount; i++) {
+                restoredOrders.add(readOrder(in));
+            }
+        } catch (IOException exception) {
+            throw new UncheckedIOException("Failed to read memory snapshot", exception);
+        }
+        writeLock.lock();
+        try {
+            dishes.clear();
+            orders.clear();
+            activeByDate.clear();
+            activeByStatus.values().forEach(NavigableSet::clear);
+            archivedByDate.clear();
+            restoredDishes.forEach(dish -> dishes.put(dish.getId(), dish));
+            restoredOrders.forEach(this::put);
+            lastDishId = sequences[0];
+            lastOrderId = sequences[1];
+            lastItemId = sequences[2];
+            checkpointSequence = checkpoint;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Stops the schedule and, when one is configured, saves a final snapshot.
+     */
+    @Override
+    public synchronized void close() {
+        if (snapshotExecutor == null) {
+            return;
+        }
+        snapshotExecutor.shutdownNow();
+        try {
+            snapshotExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+        snapshotExecutor = null;
+        snapshotIfChanged();
+    }
+
+    private void loadMenu(List<Dish> menu) {
+        writeLock.lock();
+        try {
+            for (Dish dish : menu) {
+                putDish(dish);
+                lastDishId = Math.max(lastDishId, dish.getId());
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Stores {@code order}, replacing the row with the same id, and moves it between the indexes.
+     * Callers hold {@link #writeLock}.
+     */
+    void put(StoredOrder order) {
+        StoredOrder previous = orders.put(order.id, order);
+        if (previous != null) {
+            unindex(previous);
+        }
+        if (order.archived) {
+            archivedByDate.add(order.key);
+        } else {
+            activeByDate.add(order.key);
+            activeByStatus.get(order.status).add(order.key);
+        }
+        changes++;
+    }
+
+    /**
+     * Callers hold {@link #writeLock}.
+     */
+    StoredOrder remove(long id) {
+        StoredOrder previous = orders.remove(id);
+        if (previous != null) {
+            unindex(previous);
+            changes++;
+        }
+        return previous;
+    }
+
+    /**
+     * Callers hold {@link #writeLock}.
+     */
+    void putDish(Dish dish) {
+        dishes.put(dish.getId(), copy(dish));
+        changes++;
+    }
+
+    /**
+     * Callers hold {@link #writeLock}.
+     */
+    void removeDish(long id) {
+        if (dishes.remove(id) != null) {
+            changes++;
+        }
+    }
+
+    /**
+     * Lines that can be shown: active ones whose dish still exists, archived ones with a dish snapshot.
+     */
+    List<OrderItem> visibleItems(StoredOrder order) {
+        List<OrderItem> items = new ArrayList<>(order.items.size());
+        for (StoredItem item : order.items) {
+            Dish dish = order.archived ? item.dishSnapshot : dishes.get(item.dishId);
+            if (dish != null) {
+                items.add(new OrderItem(item.id, copy(dish), item.quantity, item.price));
+            }
+        }
+        return items;
+    }
+
+    static Dish copy(Dish dish) {
+        return new Dish(dish.getId(), dish.getName(), dish.getPrice(), dish.getCategory());
+    }
+
+    /**
+     * Same convention as the {@code created_at_epoch} column: the local timestamp read as UTC, in milliseconds.
+     */
+    static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * 1000L + Math.round(dateTime.getNano() / 1_000_000.0);
+    }
+
+    private void unindex(StoredOrder order) {
+        if (order.archived) {
+            archivedByDate.remove(order.key);
+        } else {
+            activeByDate.remove(order.key);
+            activeByStatus.get(order.status).remove(order.key);
+        }
+    }
+
+    private void snapshotIfChanged() {
+        Path file;
+        synchronized (this) {
+            file = snapshotFile;
+            if (file == null) {
+                return;
+            }
+        }
+        long current;
+        writeLock.lock();
+        try {
+            current = changes;
+        } finally {
+            writeLock.unlock();
+        }
+        synchronized (this) {
+            if (current == savedChanges) {
+                return;
+            }
+        }
+        snapshot(file);
+    }
+
+    private static void writeDish(DataOutputStream out, Dish dish) throws IOException {
+        out.writeLong(dish.getId());
+        out.writeUTF(dish.getName());
+        out.writeDouble(dish.getPrice());
+        out.writeUTF(dish.getCategory().name());
+    }
+
+    private static Dish readDish(DataInputStream in) throws IOException {
+        return new Dish(in.readLong(), in.readUTF(), in.readDouble(), DishCategory.valueOf(in.readUTF()));
+    }
+
+    private static void writeOrder(DataOutputStream out, StoredOrder order) throws IOException {
+        out.writeLong(order.id);
+        out.writeUTF(order.customerName);
+        out.writeUTF(order.status.name());
+        out.writeLong(order.createdAt.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(order.createdAt.getNano());
+        out.writeBoolean(order.message != null);
+        if (order.message != null) {
+            out.writeUTF(order.message);
+        }
+        out.writeBoolean(order.payer);
+        out.writeDouble(order.total);
+        out.writeBoolean(order.archived);
+        out.writeInt(order.items.size());
+        for (StoredItem item : order.items) {
+            out.writeLong(item.id);
+            out.writeLong(item.dishId);
+            out.writeInt(item.quantity);
+            out.writeDouble(item.price);
+            out.writeBoolean(item.dishSnapshot != null);
+            if (item.dishSnapshot != null) {
+                writeDish(out, item.dishSnapshot);
+            }
+        }
+    }
+
+    private static StoredOrder readOrder(DataInputStream in) throws IOException {
+        long id = in.readLong();
+        String customerName = in.readUTF();
+        StatusOrder status = StatusOrder.valueOf(in.readUTF());
+        LocalDateTime createdAt = LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+        String message = in.readBoolean() ? in.readUTF() : null;
+        boolean payer = in.readBoolean();
+        double total = in.readDouble();
+        boolean archived = in.readBoolean();
+        int itemCount = in.readInt();
+        List<StoredItem> items = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            long itemId = in.readLong();
+            long dishId = in.readLong();
+            int quantity = in.readInt();
+            double price = in.readDouble();
+            Dish snapshot = in.readBoolean() ? readDish(in) : null;
+            items.add(new StoredItem(itemId, dishId, quantity, price, snapshot));
+        }
+        return new StoredOrder(id, customerName, status, createdAt, message, payer, total, archived, items);
+    }
+
+    /**
+     * Position of an order in the date indexes, ordered newest first like the SQL queries.
+     */
+    static final class OrderKey {
+        final long epoch;
+        final long id;
+
+        OrderKey(long epoch, long id) {
+            this.epoch = epoch;
+            this.id = id;
+        }
+
+        static int compare(OrderKey left, OrderKey right) {
+            return NEWEST_FIRST.compare(left, right);
+        }
+    }
+
+    static final class StoredOrder {
+        final long id;
+        final String customerName;
+        final StatusOrder status;
+        final LocalDateTime createdAt;
+        final String message;
+        final boolean payer;
+        final double total;
+        final boolean archived;
+        final List<StoredItem> items;
+        final OrderKey key;
+        // folded words of the customer name and note, filled in by the first search that reads them; searches
+        // take no lock, so concurrent ones may both fill one in, with equal unmodifiable lists
+        volatile List<String> customerWords;
+        volatile List<String> messageWords;
+
+        StoredOrder(long id, String customerName, StatusOrder status, LocalDateTime createdAt, String message,
+                    boolean payer, double total, boolean archived, List<StoredItem> items) {
+            this.id = id;
+            this.customerName = customerName;
+            this.status = status;
+            this.createdAt = createdAt;
+            this.message = message;
+            this.payer = payer;
+            this.total = total;
+            this.archived = archived;
+            this.items = Collections.unmodifiableList(items);
+            this.key = new OrderKey(toEpochMillis(createdAt), id);
+        }
+    }
+
+    /**
+     * One order line. Active lines point at the menu by {@code dishId}; archived ones carry a snapshot of
+     * the dish as it was when the order was archived.
+     */
+    static final class StoredItem {
+        final long id;
+        final long dishId;
+        final int quantity;
+        final double price;
+        final Dish dishSnapshot;
+
+        StoredItem(long id, long dishId, int quantity, double price, Dish dishSnapshot) {
+            this.id = id;
+            this.dishId = dishId;
+            this.quantity = quantity;
+            this.price = price;
+            this.dishSnapshot = dishSnapshot;
+        }
+    }
+}
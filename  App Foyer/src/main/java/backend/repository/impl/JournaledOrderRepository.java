@@ -0,0 +1,168 @@
+package backend.repository.impl;
+
+import backend.entity.Order;
+import backend.entity.StatusOrder;
+import backend.repository.OrderCursor;
+import backend.repository.OrderEvent;
+import backend.repository.OrderPage;
+import backend.repository.OrderQuery;
+import backend.repository.OrderRepository;
+import backend.repository.OrderSummary;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Order repository that records every successful change in an {@link OrderJournal}, after the wrapped
+ * repository applied it. Reads go straight to the wrapped repository. Changes that touched nothing, such as
+ * setting the status an order already has, are not recorded.
+ */
+public class JournaledOrderRepository implements OrderRepository {
+    private static final int ARCHIVE_BATCH_SIZE = 500;
+
+    private final OrderRepository delegate;
+    private final OrderJournal journal;
+
+    public JournaledOrderRepository(OrderRepository delegate, OrderJournal journal) {
+        this.delegate = delegate;
+        this.journal = journal;
+    }
+
+    /**
+     * Wraps {@code repository} with the shared journal, or returns it unchanged when the journal is disabled.
+     */
+    public static OrderRepository withSharedJournal(OrderRepository repository) {
+        return OrderJournal.shared()
+                .<OrderRepository>map(journal -> new JournaledOrderRepository(repository, journal))
+                .orElse(repository);
+    }
+
+    /**
+     * Applies the events recorded after {@code afterSequence} to {@code target}, e.g. to bring a restored
+     * checkpoint up to date or to rebuild a read model from scratch.
+     *
+     * @return the sequence of the last event applied
+     */
+    public static long replay(OrderJournal journal, long afterSequence, OrderRepository target) {
+        return journal.replay(afterSequence, event -> event.applyTo(target));
+    }
+
+    @Override
+    public List<Order> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public List<Order> find(OrderQuery query) {
+        return delegate.find(query);
+    }
+
+    @Override
+    public OrderPage<Order> findPage(OrderQuery query, OrderCursor cursor) {
+        return delegate.findPage(query, cursor);
+    }
+
+    @Override
+    public void forEach(OrderQuery query, Consumer<Order> action) {
+        delegate.forEach(query, action);
+    }
+
+    @Override
+    public List<OrderSummary> findSummaries(OrderQuery query) {
+        return delegate.findSummaries(query);
+    }
+
+    @Override
+    public OrderPage<OrderSummary> findSummaryPage(OrderQuery query, OrderCursor cursor) {
+        return delegate.findSummaryPage(query, cursor);
+    }
+
+    @Override
+    public List<Long> search(String text, int limit) {
+        return delegate.search(text, limit);
+    }
+
+    @Override
+    public Optional<Order> findById(long id) {
+        return delegate.findById(id);
+    }
+
+    @Override
+    public long create(Order order) {
+        return journal.record(() -> delegate.create(order), id -> {
+            Order created = new Order(id, order.getCustomerName(), order.getStatus(), order.getCreatedAt(),
+                    order.getItems(), order.getMessage(), order.isPayer());
+            return List.of(OrderEvent.created(created));
+        });
+    }
+
+    @Override
+    public void createAll(List<Order> orders) {
+        journal.record(() -> {
+            delegate.createAll(orders);
+            return orders;
+        }, created -> {
+            List<OrderEvent> events = new ArrayList<>(created.size());
+            created.forEach(order -> events.add(OrderEvent.created(order)));
+            return events;
+        });
+    }
+
+    @Override
+    public int update(Order order) {
+        return journal.record(() -> delegate.update(order),
+                touched -> touched > 0 ? List.of(OrderEvent.updated(order)) : List.of());
+    }
+
+    @Override
+    public boolean updateStatus(long id, StatusOrder status) {
+        return journal.record(() -> delegate.updateStatus(id, status),
+                changed -> changed ? List.of(OrderEvent.statusChanged(id, status)) : List.of());
+    }
+
+    @Override
+    public boolean markPaid(long id) {
+        return journal.record(() -> delegate.markPaid(id),
+                changed -> changed ? List.of(OrderEvent.paid(id)) : List.of());
+    }
+
+    @Override
+    public void delete(long id) {
+        journal.record(() -> {
+            delegate.delete(id);
+            return id;
+        }, deleted -> List.of(OrderEvent.deleted(deleted)));
+    }
+
+    @Override
+    public int deleteCancelledBefore(LocalDateTime cutoff) {
+        return journal.record(() -> delegate.deleteCancelledBefore(cutoff),
+                removed -> removed > 0 ? List.of(OrderEvent.cancelledPurged(cutoff)) : List.of());
+    }
+
+    /**
+     * Archives and journals one batch at a time, so other writers can record their changes in between.
+     * Replaying any of these events archives every order the cutoff covers; the later ones then find
+     * nothing left to move.
+     */
+    @Override
+    public int archiveFinishedBefore(LocalDateTime cutoff) {
+        int archived = 0;
+        while (true) {
+            int moved = archiveFinishedBatch(cutoff, ARCHIVE_BATCH_SIZE);
+            archived += moved;
+            if (moved < ARCHIVE_BATCH_SIZE) {
+                return archived;
+            }
+        }
+    }
+
+    @Override
+    public int archiveFinishedBatch(LocalDateTime cutoff, int limit) {
+        return journal.record(() -> delegate.archiveFinishedBatch(cutoff, limit),
+                archived -> archived > 0 ? List.of(OrderEvent.finishedArchived(cutoff)) : List.of());
+    }
+}
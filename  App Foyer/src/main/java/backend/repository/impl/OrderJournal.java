@@ -0,0 +1,579 @@
+package backend.repository.impl;
+
+import backend.config.JournalSettings;
+import backend.entity.Dish;
+import backend.entity.DishCategory;
+import backend.entity.Order;
+import backend.entity.OrderItem;
+import backend.entity.StatusOrder;
+import backend.repository.OrderEvent;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of {@link OrderEvent}s, written sequentially to segment files named after their first
+ * sequence number ({@code orders-00000000000000000001.journal}). Each record is length-prefixed and
+ * checksummed; a record cut short by a crash is dropped when the journal is opened.
+ * <p>
+ * Writers that wait for durability share fsyncs: the first one to need a sync flushes everything appended
+ * so far, and the writers that queued up meanwhile are covered by that same call or by the next one.
+ */
+public final class OrderJournal implements AutoCloseable {
+    private static final int SEGMENT_MAGIC = 0x464F594A;
+    private static final int FORMAT_VERSION = 1;
+    private static final int SEGMENT_HEADER_BYTES = 8;
+    private static final int RECORD_HEADER_BYTES = 8;
+    private static final int MAX_RECORD_BYTES = 16 * 1024 * 1024;
+    private static final String SEGMENT_PREFIX = "orders-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static volatile OrderJournal shared;
+
+    private final JournalSettings settings;
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final Object syncMonitor = new Object();
+    private FileChannel channel;
+    private long segmentSize;
+    private volatile long lastSequence;
+    private boolean closed;
+    private long durableSequence;
+    private boolean syncing;
+    private long syncCount;
+    private long failedRecords;
+    private RuntimeException lastFailure;
+    private ScheduledExecutorService syncExecutor;
+
+    private OrderJournal(JournalSettings settings) {
+        this.settings = settings;
+    }
+
+    /**
+     * Opens the journal in the configured directory, creating it if needed and dropping a torn last record.
+     */
+    public static OrderJournal open(JournalSettings settings) {
+        OrderJournal journal = new OrderJournal(settings);
+        try {
+            journal.openLastSegment();
+        } catch (IOException exception) {
+            throw new UncheckedIOException("Failed to open order journal", exception);
+        }
+        if (settings.getSyncIntervalMillis() > 0) {
+            journal.syncExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "journal-sync");
+                thread.setDaemon(true);
+                return thread;
+            });
+            journal.syncExecutor.scheduleWithFixedDelay(journal::syncQuietly, settings.getSyncIntervalMillis(),
+                    settings.getSyncIntervalMillis(), TimeUnit.MILLISECONDS);
+        }
+        return journal;
+    }
+
+    /**
+     * Process-wide journal, opened on first use from {@link JournalSettings#fromSystemProperties()};
+     * empty when the journal is disabled.
+     */
+    public static Optional<OrderJournal> shared() {
+        OrderJournal current = shared;
+        if (current == null) {
+            synchronized (OrderJournal.class) {
+                current = shared;
+                if (current == null) {
+                    JournalSettings settings = JournalSettings.fromSystemProperties();
+                    if (!settings.isEnabled()) {
+                        return Optional.empty();
+                    }
+                    current = open(settings);
+                    shared = current;
+                }
+            }
+        }
+        return Optional.of(current);
+    }
+
+    public static synchronized void shutdownShared() {
+        if (shared != null) {
+            shared.close();
+            shared = null;
+        }
+    }
+
+    /**
+     * Runs {@code change} and appends the events it produced as one step, so the journal lists changes in
+     * the order they were applied, then waits until those events are durable. Keep each change to a single
+     * transaction: the append lock is held while it runs.
+     * <p>
+     * Once {@code change} has returned it is committed, so a journal that fails to append or sync does not
+     * fail the caller, who would otherwise retry a change that already happened; the failure is counted
+     * instead, see {@link #getFailedRecords()}.
+     */
+    public <T> T record(Supplier<T> change, Function<? super T, List<OrderEvent>> events) {
+        long sequence = 0;
+        T result;
+        appendLock.lock();
+        try {
+            result = change.get();
+            try {
+                for (OrderEvent event : events.apply(result)) {
+                    sequence = append(event);
+                }
+            } catch (RuntimeException exception) {
+                recordFailure(exception);
+                return result;
+            }
+        } finally {
+            appendLock.unlock();
+        }
+        if (sequence > 0) {
+            try {
+                awaitDurable(sequence);
+            } catch (RuntimeException exception) {
+                recordFailure(exception);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Writes {@code event} at the end of the journal without waiting for the disk.
+     *
+     * @return the sequence number it was given
+     */
+    public long append(OrderEvent event) {
+        appendLock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Order journal is closed");
+            }
+            long sequence = lastSequence + 1;
+            ByteBuffer record = encode(event.withSequence(sequence));
+            if (segmentSize + record.remaining() > settings.getSegmentBytes() && segmentSize > SEGMENT_HEADER_BYTES) {
+                channel.force(false);
+                channel.close();
+                startSegment(sequence);
+            }
+            long start = segmentSize;
+            try {
+                while (record.hasRemaining()) {
+                    segmentSize += channel.write(record);
+                }
+            } catch (IOException exception) {
+                // never leave half a record in front of the next one
+                channel.truncate(start);
+                channel.position(start);
+                segmentSize = start;
+                throw exception;
+            }
+            lastSequence = sequence;
+            return sequence;
+        } catch (IOException exception) {
+            throw new UncheckedIOException("Failed to append to order journal", exception);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Blocks until every event up to {@code sequence} is on disk. Returns at once when the journal syncs on
+     * a timer instead.
+     */
+    public void awaitDurable(long sequence) {
+        if (settings.getSyncIntervalMillis() == 0) {
+            syncUpTo(sequence);
+        }
+    }
+
+    /**
+     * Forces everything appended so far to disk.
+     */
+    public void sync() {
+        syncUpTo(lastSequence);
+    }
+
+    /**
+     * Passes the events after {@code afterSequence} to {@code consumer}, oldest first.
+     *
+     * @return the sequence of the last event read, or {@code afterSequence} when there was none
+     */
+    public long replay(long afterSequence, Consumer<OrderEvent> consumer) {
+        try {
+            List<Path> segments = listSegments();
+            long last = afterSequence;
+            for (int i = 0; i < segments.size(); i++) {
+                if (i + 1 < segments.size() && firstSequence(segments.get(i + 1)) <= afterSequence + 1) {
+                    continue;
+                }
+                boolean lastSegment = i == segments.size() - 1;
+                last = Math.max(last, readSegment(segments.get(i), lastSegment, event -> {
+                    if (event.getSequence() > afterSequence) {
+                        consumer.accept(event);
+                    }
+                }).lastSequence);
+            }
+            return last;
+        } catch (IOException exception) {
+            throw new UncheckedIOException("Failed to replay order journal", exception);
+        }
+    }
+
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    public long getDurableSequence() {
+        synchronized (syncMonitor) {
+            return durableSequence;
+        }
+    }
+
+    /**
+     * Number of fsyncs issued since the journal was opened; compare with {@link #getLastSequence()} to see
+     * how many events each one covered.
+     */
+    public long getSyncCount() {
+        synchronized (syncMonitor) {
+            return syncCount;
+        }
+    }
+
+    /**
+     * Number of committed changes whose events could not be appended or synced. Once it is above zero, a
+     * replay of this journal misses changes, so take a fresh checkpoint before relying on it again.
+     */
+    public long getFailedRecords() {
+        synchronized (syncMonitor) {
+            return failedRecords;
+        }
+    }
+
+    public Optional<RuntimeException> getLastFailure() {
+        synchronized (syncMonitor) {
+            return Optional.ofNullable(lastFailure);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (syncExecutor != null) {
+            syncExecutor.shutdownNow();
+        }
+        appendLock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            channel.force(false);
+            channel.close();
+        } catch (IOException exception) {
+            throw new UncheckedIOException("Failed to close order journal", exception);
+        } finally {
+            appendLock.unlock();
+        }
+        synchronized (syncMonitor) {
+            durableSequence = lastSequence;
+            syncMonitor.notifyAll();
+        }
+    }
+
+    private void recordFailure(RuntimeException exception) {
+        synchronized (syncMonitor) {
+            failedRecords++;
+            lastFailure = exception;
+        }
+    }
+
+    private void syncQuietly() {
+        try {
+            sync();
+        } catch (RuntimeException exception) {
+            // the next tick retries; writers do not wait for these syncs
+        }
+    }
+
+    private void syncUpTo(long sequence) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                synchronized (syncMonitor) {
+                    while (durableSequence < sequence && syncing) {
+                        try {
+                            syncMonitor.wait();
+                        } catch (InterruptedException exception) {
+                            interrupted = true;
+                        }
+                    }
+                    if (durableSequence >= sequence) {
+                        return;
+                    }
+                    syncing = true;
+                }
+                long target;
+                FileChannel current;
+                appendLock.lock();
+                try {
+                    target = lastSequence;
+                    current = channel;
+                } finally {
+                    appendLock.unlock();
+                }
+                boolean synced = false;
+                try {
+                    current.force(false);
+                    synced = true;
+                } catch (ClosedChannelException exception) {
+                    // a segment switch or close forced this channel before closing it
+                    synced = true;
+                } catch (IOException exception) {
+                    throw new UncheckedIOException("Failed to sync order journal", exception);
+                } finally {
+                    synchronized (syncMonitor) {
+                        syncing = false;
+                        if (synced) {
+                            durableSequence = Math.max(durableSequence, target);
+                            syncCount++;
+                        }
+                        syncMonitor.notifyAll();
+                    }
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void openLastSegment() throws IOException {
+        Files.createDirectories(settings.getDirectory());
+        List<Path> segments = listSegments();
+        if (segments.isEmpty()) {
+            startSegment(1);
+            lastSequence = 0;
+        } else {
+            Path last = segments.get(segments.size() - 1);
+            SegmentEnd end = readSegment(last, true, event -> {
+            });
+            channel = FileChannel.open(last, StandardOpenOption.WRITE);
+            if (channel.size() > end.validBytes) {
+                channel.truncate(end.validBytes);
+            }
+            channel.position(end.validBytes);
+            segmentSize = end.validBytes;
+            lastSequence = end.lastSequence;
+        }
+        durableSequence = lastSequence;
+    }
+
+    private void startSegment(long firstSequence) throws IOException {
+        Path path = settings.getDirectory().resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX));
+        channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER_BYTES).putInt(SEGMENT_MAGIC).putInt(FORMAT_VERSION);
+        header.flip();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+        segmentSize = SEGMENT_HEADER_BYTES;
+    }
+
+    private List<Path> listSegments() throws IOException {
+        if (!Files.isDirectory(settings.getDirectory())) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(settings.getDirectory())) {
+            List<Path> segments = new ArrayList<>();
+            files.filter(path -> {
+                String name = path.getFileName().toString();
+                return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+            }).forEach(segments::add);
+            segments.sort((left, right) -> Long.compare(firstSequence(left), firstSequence(right)));
+            return segments;
+        }
+    }
+
+    private static long firstSequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * Reads every record of {@code segment}. In the last segment an incomplete or damaged record marks the
+     * end of the journal; anywhere else it means the journal is corrupt.
+     */
+    private static SegmentEnd readSegment(Path segment, boolean lastSegment, Consumer<OrderEvent> consumer)
+            throws IOException {
+        long firstSequence = firstSequence(segment);
+        // earlier segments are complete, so their size is where their last record ends
+        long end = lastSegment ? Long.MAX_VALUE : Files.size(segment);
+        try (InputStream stream = new BufferedInputStream(Files.newInputStream(segment), 1 << 16);
+             DataInputStream in = new DataInputStream(stream)) {
+            if (in.readInt() != SEGMENT_MAGIC || in.readInt() != FORMAT_VERSION) {
+                throw new IOException("Not an order journal segment: " + segment);
+            }
+            long validBytes = SEGMENT_HEADER_BYTES;
+            long last = firstSequence - 1;
+            CRC32 crc = new CRC32();
+            while (validBytes < end) {
+                byte[] body;
+                try {
+                    int length = in.readInt();
+                    int checksum = in.readInt();
+                    if (length <= 0 || length > MAX_RECORD_BYTES) {
+                        throw new IOException("Bad record length " + length);
+                    }
+                    body = new byte[length];
+                    in.readFully(body);
+                    crc.reset();
+                    crc.update(body);
+                    if ((int) crc.getValue() != checksum) {
+                        throw new IOException("Checksum mismatch");
+                    }
+                } catch (EOFException exception) {
+                    if (!lastSegment) {
+                        throw new IOException("Truncated order journal segment " + segment, exception);
+                    }
+                    return new SegmentEnd(validBytes, last);
+                } catch (IOException exception) {
+                    if (!lastSegment) {
+                        throw new IOException("Corrupt order journal segment " + segment, exception);
+                    }
+                    return new SegmentEnd(validBytes, last);
+                }
+                OrderEvent event = decode(body);
+                if (event.getSequence() != last + 1) {
+                    throw new IOException("Order journal sequence jumps from " + last + " to " + event.getSequence());
+                }
+                consumer.accept(event);
+                last = event.getSequence();
+                validBytes += RECORD_HEADER_BYTES + body.length;
+            }
+            return new SegmentEnd(validBytes, last);
+        }
+    }
+
+    private static ByteBuffer encode(OrderEvent event) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeLong(event.getSequence());
+            out.writeByte(event.getType().ordinal());
+            writeDateTime(out, event.getRecordedAt());
+            out.writeLong(event.getOrderId());
+            switch (event.getType()) {
+                case CREATED, UPDATED -> writeOrder(out, event.getOrder().orElseThrow());
+                case STATUS_CHANGED -> out.writeUTF(event.getStatus().name());
+                case CANCELLED_PURGED, FINISHED_ARCHIVED -> writeDateTime(out, event.getCutoff());
+                default -> {
+                }
+            }
+        }
+        byte[] body = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_BYTES + body.length);
+        record.putInt(body.length).putInt((int) crc.getValue()).put(body).flip();
+        return record;
+    }
+
+    private static OrderEvent decode(byte[] body) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+        long sequence = in.readLong();
+        OrderEvent.Type type = OrderEvent.Type.values()[in.readUnsignedByte()];
+        LocalDateTime recordedAt = readDateTime(in);
+        long orderId = in.readLong();
+        Order order = null;
+        StatusOrder status = null;
+        LocalDateTime cutoff = null;
+        switch (type) {
+            case CREATED, UPDATED -> order = readOrder(in);
+            case STATUS_CHANGED -> status = StatusOrder.valueOf(in.readUTF());
+            case CANCELLED_PURGED, FINISHED_ARCHIVED -> cutoff = readDateTime(in);
+            default -> {
+            }
+        }
+        return new OrderEvent(sequence, type, recordedAt, orderId, order, status, cutoff);
+    }
+
+    private static void writeOrder(DataOutputStream out, Order order) throws IOException {
+        out.writeLong(order.getId());
+        out.writeUTF(order.getCustomerName());
+        out.writeUTF((order.getStatus() != null ? order.getStatus() : StatusOrder.ENCOURS).name());
+        writeDateTime(out, order.getCreatedAt());
+        out.writeBoolean(order.getMessage() != null);
+        if (order.getMessage() != null) {
+            out.writeUTF(order.getMessage());
+        }
+        out.writeBoolean(order.isPayer());
+        out.writeInt(order.getItems().size());
+        for (OrderItem item : order.getItems()) {
+            Dish dish = item.getDish();
+            out.writeLong(dish.getId());
+            out.writeUTF(dish.getName());
+            out.writeDouble(dish.getPrice());
+            out.writeUTF(dish.getCategory().name());
+            out.writeInt(item.getQuantity());
+            out.writeDouble(item.getPrice());
+        }
+    }
+
+    private static Order readOrder(DataInputStream in) throws IOException {
+        long id = in.readLong();
+        String customerName = in.readUTF();
+        StatusOrder status = StatusOrder.valueOf(in.readUTF());
+        LocalDateTime createdAt = readDateTime(in);
+        String message = in.readBoolean() ? in.readUTF() : null;
+        boolean payer = in.readBoolean();
+        int itemCount = in.readInt();
+        List<OrderItem> items = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            Dish dish = new Dish(in.readLong(), in.readUTF(), in.readDouble(), DishCategory.valueOf(in.readUTF()));
+            items.add(new OrderItem(null, dish, in.readInt(), in.readDouble()));
+        }
+        return new Order(id, customerName, status, createdAt, items, message, payer);
+    }
+
+    private static void writeDateTime(DataOutputStream out, LocalDateTime dateTime) throws IOException {
+        out.writeLong(dateTime.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(dateTime.getNano());
+    }
+
+    private static LocalDateTime readDateTime(DataInputStream in) throws IOException {
+        return LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+    }
+
+    private static final class SegmentEnd {
+        private final long validBytes;
+        private final long lastSequence;
+
+        private SegmentEnd(long validBytes, long lastSequence) {
+            this.validBytes = validBytes;
+            this.lastSequence = lastSequence;
+        }
+    }
+}
@@ -1,12 +1,17 @@
 package backend.repository.impl;
 
 import backend.config.DatabaseConfig;
+import backend.config.StorageFormat;
 import backend.entity.Dish;
 import backend.entity.Order;
 import backend.entity.OrderItem;
 import backend.entity.DishCategory;
 import backend.entity.StatusOrder;
+import backend.repository.OrderCursor;
+import backend.repository.OrderPage;
+import backend.repository.OrderQuery;
 import backend.repository.OrderRepository;
+import backend.repository.OrderSummary;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -14,154 +19,770 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
 
 public class OrderRepositoryImpl implements OrderRepository {
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    private static final int ITEM_BATCH_SIZE = 500;
+    private static final int ITEM_INSERT_ROWS = 100;
+    private static final String ITEM_SELECT = "SELECT oi.id, oi.order_id as orderId, oi.quantity, oi.price, " +
+            "d.id as dishId, d.name, d.price as dishPrice, d.category as dishCategory " +
+            "FROM order_items oi INNER JOIN dishes d ON oi.dish_id = d.id ";
+    private static final int ARCHIVE_BATCH_SIZE = 500;
+    private static final int DEFAULT_FETCH_SIZE = 200;
+
+    private final int fetchSize;
+
+    /**
+     * Streams with the fetch size from {@code foyer.orders.fetchSize} (default {@value #DEFAULT_FETCH_SIZE}).
+     */
+    public OrderRepositoryImpl() {
+        this(Integer.getInteger("foyer.orders.fetchSize", DEFAULT_FETCH_SIZE));
+    }
+
+    /**
+     * @param fetchSize rows {@link #forEach} reads ahead, which is also how many orders get their items in one query
+     */
+    public OrderRepositoryImpl(int fetchSize) {
+        if (fetchSize < 1) {
+            throw new IllegalArgumentException("Fetch size must be at least 1");
+        }
+        this.fetchSize = fetchSize;
+    }
 
     @Override
     public List<Order> findAll() {
-        List<Order> orders = new ArrayList<>();
-        String sql = "SELECT id, customer_name, status, created_at, message, payer FROM orders ORDER BY datetime(created_at) DESC";
-        try (Connection connection = DatabaseConfig.getConnection();
-             PreparedStatement statement = connection.prepareStatement(sql);
-             ResultSet resultSet = statement.executeQuery()) {
-            while (resultSet.next()) {
-                Order order = mapOrder(resultSet);
-                order.setItems(loadItemsForOrder(connection, order.getId()));
-                orders.add(order);
+        return find(OrderQuery.all());
+    }
+
+    @Override
+    public List<Order> find(OrderQuery query) {
+        StorageFormat format = DatabaseConfig.getStorageFormat();
+        List<Object> parameters = new ArrayList<>();
+        String sql = buildSelect(format, orderSelect(format), query, null, query.getLimit(), parameters);
+        Map<Order, Long> epochs = new IdentityHashMap<>();
+        try (Connection connection = DatabaseConfig.getReadConnection()) {
+            List<Order> orders = queryOrders(connection, format, sql, parameters, epochs, false);
+            if (!parameters.isEmpty()) {
+                attachItems(connection, format, orders);
+            } else {
+                attachAllItems(connection, format, orders);
+            }
+            if (query.isArchiveIncluded()) {
+                List<Order> archived = findArchived(connection, format, query, null, query.getLimit(), epochs);
+                orders = mergeNewestFirst(orders, archived, epochs, Order::getId, query.getLimit());
             }
+            return orders;
         } catch (SQLException exception) {
             throw new RuntimeException("Unable to load orders", exception);
         }
-        return orders;
+    }
+
+    @Override
+    public OrderPage<Order> findPage(OrderQuery query, OrderCursor cursor) {
+        int limit = query.getLimit();
+        if (limit < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1");
+        }
+        StorageFormat format = DatabaseConfig.getStorageFormat();
+        List<Object> parameters = new ArrayList<>();
+        String sql = buildSelect(format, orderSelect(format), query, cursor, limit + 1, parameters);
+        Map<Order, Long> epochs = new IdentityHashMap<>();
+        List<Order> orders;
+        try (Connection connection = DatabaseConfig.getReadConnection()) {
+            orders = queryOrders(connection, format, sql, parameters, epochs, false);
+            attachItems(connection, format, orders);
+            if (query.isArchiveIncluded()) {
+                List<Order> archived = findArchived(connection, format, query, cursor, limit + 1, epochs);
+                orders = mergeNewestFirst(orders, archived, epochs, Order::getId, limit + 1);
+            }
+        } catch (SQLException exception) {
+            throw new RuntimeException("Unable to load orders", exception);
+        }
+        OrderCursor nextCursor = null;
+        if (orders.size() > limit) {
+            orders = new ArrayList<>(orders.subList(0, limit));
+            Order last = orders.get(limit - 1);
+            nextCursor = new OrderCursor(epochs.get(last), last.getId());
+        }
+        return new OrderPage<>(orders, nextCursor);
+    }
+
+    /**
+     * Keeps at most {@code fetchSize} active orders (with their items) and one archived order in memory: the
+     * active cursor is read a chunk at a time, each chunk gets its items in one {@code IN (...)} query, and
+     * archived rows are merged in newest first as they come.
+     */
+    @Override
+    public void forEach(OrderQuery query, Consumer<Order> action) {
+        StorageFormat format = DatabaseConfig.getStorageFormat();
+        List<Object> parameters = new ArrayList<>();
+        String sql = buildSelect(format, orderSelect(format), query, null, query.getLimit(), parameters);
+        List<Object> archiveParameters = new ArrayList<>();
+        String archiveSql = buildSelect(format, archiveSelect(format), query, null, query.getLimit(), archiveParameters);
+        int limit = query.getLimit();
+        try (Connection connection = DatabaseConfig.getReadConnection();
+             PreparedStatement statement = prepare(connection, sql, parameters);
+             PreparedStatement archiveStatement = query.isArchiveIncluded()
+                     ? prepare(connection, archiveSql, archiveParameters) : null) {
+            statement.setFetchSize(fetchSize);
+            ArrayDeque<Order> chunk = new ArrayDeque<>(fetchSize);
+            Map<Order, Long> epochs = new IdentityHashMap<>();
+            Order archived = null;
+            int emitted = 0;
+            try (ResultSet resultSet = statement.executeQuery();
+                 ResultSet archiveResultSet = archiveStatement != null ? archiveStatement.executeQuery() : null) {
+                boolean activeOpen = true;
+                boolean archiveOpen = archiveResultSet != null;
+                while (limit == 0 || emitted < limit) {
+                    if (chunk.isEmpty() && activeOpen) {
+                        activeOpen = readChunk(connection, format, resultSet, chunk, epochs);
+                    }
+                    if (archived == null && archiveOpen) {
+                        archiveOpen = archiveResultSet.next();
+                        if (archiveOpen) {
+                            archived = mapOrder(archiveResultSet, format);
+                            archived.setItems(ArchivedItemsCodec.decode(archiveResultSet.getBytes("items")));
+                            epochs.put(archived, archiveResultSet.getLong("created_at_epoch"));
+                        }
+                    }
+                    Order next;
+                    if (chunk.isEmpty() && archived == null) {
+                        return;
+                    } else if (archived == null || (!chunk.isEmpty() && isNewer(chunk.peekFirst(), archived, epochs))) {
+                        next = chunk.pollFirst();
+                    } else {
+                        next = archived;
+                        archived = null;
+                    }
+                    epochs.remove(next);
+                    action.accept(next);
+                    emitted++;
+                }
+            }
+        } catch (SQLException exception) {
+            throw new RuntimeException("Unable to stream orders", exception);
+        }
+    }
+
+    /**
+     * Reads up to {@code fetchSize} orders from {@code resultSet} and attaches their items.
+     *
+     * @return false once the cursor is exhausted
+     */
+    private boolean readChunk(Connection connection, StorageFormat format, ResultSet resultSet,
+                              ArrayDeque<Order> chunk, Map<Order, Long> epochs) throws SQLException {
+        List<Order> orders = new ArrayList<>(fetchSize);
+        boolean more = true;
+        while (orders.size() < fetchSize) {
+            if (!resultSet.next()) {
+                more = false;
+                break;
+            }
+            Order order = mapOrder(resultSet, format);
+            epochs.put(order, resultSet.getLong("created_at_epoch"));
+            orders.add(order);
+        }
+        attachItems(connection, format, orders);
+        chunk.addAll(orders);
+        return more;
+    }
+
+    private static boolean isNewer(Order first, Order second, Map<Order, Long> epochs) {
+        int byEpoch = Long.compare(epochs.get(first), epochs.get(second));
+        return byEpoch != 0 ? byEpoch > 0 : first.getId() > second.getId();
+    }
+
+    @Override
+    public List<OrderSummary> findSummaries(OrderQuery query) {
+        return loadSummaries(query, null, query.getLimit(), new IdentityHashMap<>());
+    }
+
+    @Override
+    public OrderPage<OrderSummary> findSummaryPage(OrderQuery query, OrderCursor cursor) {
+        int limit = query.getLimit();
+        if (limit < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1");
+        }
+        Map<OrderSummary, Long> epochs = new IdentityHashMap<>();
+        List<OrderSummary> summaries = loadSummaries(query, cursor, limit + 1, epochs);
+        OrderCursor nextCursor = null;
+        if (summaries.size() > limit) {
+            summaries = new ArrayList<>(summaries.subList(0, limit));
+            OrderSummary last = summaries.get(limit - 1);
+            nextCursor = new OrderCursor(epochs.get(last), last.getId());
+        }
+        return new OrderPage<>(summaries, nextCursor);
+    }
+
+    @Override
+    public List<Long> search(String text, int limit) {
+        String match = OrderSearchIndex.matchExpression(text);
+        if (match == null) {
+            return List.of();
+        }
+        String sql = "SELECT rowid FROM order_search WHERE order_search MATCH ? ORDER BY rank LIMIT ?";
+        List<Long> ids = new ArrayList<>();
+        try (Connection connection = DatabaseConfig.getReadConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, match);
+            statement.setInt(2, limit > 0 ? limit : -1);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    ids.add(resultSet.getLong(1));
+                }
+            }
+            return ids;
+        } catch (SQLException exception) {
+            throw new RuntimeException("Failed to search orders", exception);
+        }
     }
 
     @Override
     public Optional<Order> findById(long id) {
-        String sql = "SELECT id, customer_name, status, created_at, message, payer FROM orders WHERE id = ?";
-        try (Connection connection = DatabaseConfig.getConnection();
+        StorageFormat format = DatabaseConfig.getStorageFormat();
+        String sql = orderSelect(format) + " WHERE id = ?";
+        try (Connection connection = DatabaseConfig.getReadConnection();
              PreparedStatement statement = connection.prepareStatement(sql)) {
             statement.setLong(1, id);
             try (ResultSet resultSet = statement.executeQuery()) {
                 if (resultSet.next()) {
-                    Order order = mapOrder(resultSet);
-                    order.setItems(loadItemsForOrder(connection, id));
+                    Order order = mapOrder(resultSet, format);
+                    order.setItems(loadItemsForOrder(connection, format, id));
                     return Optional.of(order);
                 }
             }
+            return findArchivedById(connection, format, id);
         } catch (SQLException exception) {
             throw new RuntimeException("Unable to fetch order", exception);
         }
-        return Optional.empty();
     }
 
     @Override
     public long create(Order order) {
-        String orderSql = "INSERT INTO orders(customer_name, status, created_at, total, message, payer) VALUES(?, ?, ?, ?, ?, ?)";
-        try (Connection connection = DatabaseConfig.getConnection();
-             PreparedStatement statement = connection.prepareStatement(orderSql, Statement.RETURN_GENERATED_KEYS)) {
-            statement.setString(1, order.getCustomerName());
-            statement.setString(2, order.getStatus() != null ? order.getStatus().name() : null);
-            statement.setString(3, order.getCreatedAt().format(FORMATTER));
-            statement.setDouble(4, order.getTotal());
-            statement.setString(5, order.getMessage());
-            statement.setInt(6, order.isPayer() ? 1 : 0);
+        try {
+            return DatabaseConfig.inTransaction(connection -> {
+                long id = insertOrder(connection, DatabaseConfig.getStorageFormat(), order, null);
+                SalesRollups.addActive(connection, "o.id = ?", List.<Object>of(id));
+                OrderSearchIndex.add(connection, "o.id = ?", List.<Object>of(id));
+                return id;
+            });
+        } catch (SQLException exception) {
+            throw new RuntimeException("Failed to create order", exception);
+        }
+    }
+
+    @Override
+    public void createAll(List<Order> orders) {
+        try {
+            DatabaseConfig.inTransaction(connection -> {
+                StorageFormat format = DatabaseConfig.getStorageFormat();
+                List<Object> ids = new ArrayList<>(orders.size());
+                for (Order order : orders) {
+                    order.setId(insertOrder(connection, format, order, order.getId()));
+                    ids.add(order.getId());
+                }
+                for (int from = 0; from < ids.size(); from += ITEM_BATCH_SIZE) {
+                    List<Object> batch = ids.subList(from, Math.min(from + ITEM_BATCH_SIZE, ids.size()));
+                    String condition = "o.id IN (" + placeholders(batch.size()) + ")";
+                    SalesRollups.addActive(connection, condition, batch);
+                    OrderSearchIndex.add(connection, condition, batch);
+                }
+                return null;
+            });
+        } catch (SQLException exception) {
+            throw new RuntimeException("Failed to create orders", exception);
+        }
+    }
+
+    /**
+     * Highest order id ever handed out, including ids of deleted rows that AUTOINCREMENT will not reuse.
+     */
+    long findLastAssignedId() {
+        String sql = "SELECT max(coalesce((SELECT max(id) FROM orders), 0), " +
+                "coalesce((SELECT seq FROM sqlite_sequence WHERE name = 'orders'), 0))";
+        try (Connection connection = DatabaseConfig.getReadConnection();
+             PreparedStatement statement = connection.prepareStatement(sql);
+             ResultSet resultSet = statement.executeQuery()) {
+            return resultSet.next() ? resultSet.getLong(1) : 0;
+        } catch (SQLException exception) {
+            throw new RuntimeException("Failed to read last order id", exception);
+        }
+    }
+
+    private long insertOrder(Connection connection, StorageFormat format, Order order, Long id) throws SQLException {
+        boolean explicitId = id != null;
+        boolean textDate = format == StorageFormat.V1;
+        String orderSql = "INSERT INTO orders(customer_name, status, " + format.createdAtColumns() + ", total, message, payer"
+                + (explicitId ? ", id) VALUES(" : ") VALUES(") + placeholders((textDate ? 7 : 6) + (explicitId ? 1 : 0)) + ")";
+        long orderId;
+        try (PreparedStatement statement = connection.prepareStatement(orderSql, Statement.RETURN_GENERATED_KEYS)) {
+            int index = 1;
+            statement.setString(index++, order.getCustomerName());
+            statement.setObject(index++, format.status(order.getStatus()));
+            if (textDate) {
+                statement.setString(index++, order.getCreatedAt().format(FORMATTER));
+            }
+            statement.setLong(index++, toEpochMillis(order.getCreatedAt()));
+            statement.setObject(index++, format.money(order.getTotal()));
+            statement.setString(index++, order.getMessage());
+            statement.setInt(index++, order.isPayer() ? 1 : 0);
+            if (explicitId) {
+                statement.setLong(index, id);
+            }
             statement.executeUpdate();
-            long orderId;
-            try (ResultSet keys = statement.getGeneratedKeys()) {
-                if (!keys.next()) {
-                    throw new SQLException("Order insert did not return id");
+            if (explicitId) {
+                orderId = id;
+            } else {
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    if (!keys.next()) {
+                        throw new SQLException("Order insert did not return id");
+                    }
+                    orderId = keys.getLong(1);
                 }
-                orderId = keys.getLong(1);
             }
-            saveItems(connection, orderId, order.getItems());
-            return orderId;
-        } catch (SQLException exception) {
-            throw new RuntimeException("Failed to create order", exception);
         }
+        saveItems(connection, format, orderId, order.getItems());
+        return orderId;
     }
 
+    /**
+     * Only active orders can be edited; an archived or missing one is left alone and 0 is returned.
+     */
     @Override
-    public void update(Order order) {
+    public int update(Order order) {
         String updateSql = "UPDATE orders SET customer_name = ?, status = ?, total = ?, message = ?, payer = ? WHERE id = ?";
-        try (Connection connection = DatabaseConfig.getConnection();
-             PreparedStatement statement = connection.prepareStatement(updateSql)) {
-            statement.setString(1, order.getCustomerName());
-            statement.setString(2, order.getStatus() != null ? order.getStatus().name() : null);
-            statement.setDouble(3, order.getTotal());
-            statement.setString(4, order.getMessage());
-            statement.setInt(5, order.isPayer() ? 1 : 0);
-            statement.setLong(6, order.getId());
-            statement.executeUpdate();
-            deleteItems(connection, order.getId());
-            saveItems(connection, order.getId(), order.getItems());
+        try {
+            return DatabaseConfig.inTransaction(connection -> {
+                StorageFormat format = DatabaseConfig.getStorageFormat();
+                List<Object> idParameter = List.of(order.getId());
+                SalesRollups.subtractActive(connection, "o.id = ?", idParameter);
+                int touched;
+                try (PreparedStatement statement = connection.prepareStatement(updateSql)) {
+                    statement.setString(1, order.getCustomerName());
+                    statement.setObject(2, format.status(order.getStatus()));
+                    statement.setObject(3, format.money(order.getTotal()));
+                    statement.setString(4, order.getMessage());
+                    statement.setInt(5, order.isPayer() ? 1 : 0);
+                    statement.setLong(6, order.getId());
+                    touched = statement.executeUpdate();
+                }
+                if (touched == 0) {
+                    // archived or deleted: its lines must not be recreated under an id that has no row
+                    return 0;
+                }
+                touched += syncItems(connection, format, order.getId(), order.getItems());
+                SalesRollups.addActive(connection, "o.id = ?", idParameter);
+                OrderSearchIndex.refresh(connection, "o.id = ?", idParameter);
+                return touched;
+            });
         } catch (SQLException exception) {
             throw new RuntimeException("Failed to update order", exception);
         }
     }
 
+    /**
+     * Leaves the sales rollups alone: they count paid orders whatever their status.
+     */
     @Override
-    public void delete(long id) {
-        String sql = "DELETE FROM orders WHERE id = ?";
+    public boolean updateStatus(long id, StatusOrder status) {
+        String sql = "UPDATE orders SET status = ? WHERE id = ? AND status <> ?";
         try (Connection connection = DatabaseConfig.getConnection();
              PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.setLong(1, id);
-            statement.executeUpdate();
+            Object value = DatabaseConfig.getStorageFormat().status(status);
+            statement.setObject(1, value);
+            statement.setLong(2, id);
+            statement.setObject(3, value);
+            return statement.executeUpdate() > 0;
+        } catch (SQLException exception) {
+            throw new RuntimeException("Failed to update order status", exception);
+        }
+    }
+
+    @Override
+    public boolean markPaid(long id) {
+        String sql = "UPDATE orders SET payer = 1 WHERE id = ? AND payer = 0";
+        try {
+            return DatabaseConfig.inTransaction(connection -> {
+                try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                    statement.setLong(1, id);
+                    if (statement.executeUpdate() == 0) {
+                        return false;
+                    }
+                }
+                SalesRollups.addActive(connection, "o.id = ?", List.<Object>of(id));
+                return true;
+            });
+        } catch (SQLException exception) {
+            throw new RuntimeException("Failed to mark order as paid", exception);
+        }
+    }
+
+    @Override
+    public void delete(long id) {
+        String sql = "DELETE FROM orders WHERE id = ?";
+        try {
+            DatabaseConfig.inTransaction(connection -> {
+                SalesRollups.subtractActive(connection, "o.id = ?", List.<Object>of(id));
+                subtractArchived(connection, id);
+                OrderSearchIndex.remove(connection, id);
+                deleteItems(connection, id);
+                try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                    statement.setLong(1, id);
+                    statement.executeUpdate();
+                }
+                try (PreparedStatement statement = connection.prepareStatement("DELETE FROM orders_archive WHERE id = ?")) {
+                    statement.setLong(1, id);
+                    statement.executeUpdate();
+                }
+                return null;
+            });
         } catch (SQLException exception) {
             throw new RuntimeException("Failed to delete order", exception);
         }
     }
 
+    /**
+     * Set-based purge. Foreign keys are not enforced on pooled connections, so {@code ON DELETE CASCADE}
+     * does not fire and the items are removed by the first statement.
+     */
     @Override
-    public void deleteCancelledBefore(LocalDateTime cutoff) {
-        String selectSql = "SELECT id FROM orders WHERE status = ? AND datetime(created_at) < ?";
-        try (Connection connection = DatabaseConfig.getConnection();
-             PreparedStatement selectStatement = connection.prepareStatement(selectSql)) {
-            selectStatement.setString(1, StatusOrder.ANNULER.name());
-            selectStatement.setString(2, cutoff.format(FORMATTER));
-            List<Long> ids = new ArrayList<>();
-            try (ResultSet resultSet = selectStatement.executeQuery()) {
+    public int deleteCancelledBefore(LocalDateTime cutoff) {
+        String condition = "status = ? AND created_at_epoch < ?";
+        String deleteItemsSql = "DELETE FROM order_items WHERE order_id IN (SELECT id FROM orders WHERE " + condition + ")";
+        String deleteOrdersSql = "DELETE FROM orders WHERE " + condition;
+        List<Object> params = List.of(DatabaseConfig.getStorageFormat().status(StatusOrder.ANNULER), toEpochMillis(cutoff));
+        try {
+            return DatabaseConfig.inTransaction(connection -> {
+                SalesRollups.subtractActive(connection, "o.status = ? AND o.created_at_epoch < ?", params);
+                OrderSearchIndex.remove(connection, "o.status = ? AND o.created_at_epoch < ?", params);
+                int removed;
+                try (PreparedStatement statement = prepare(connection, deleteItemsSql, params)) {
+                    removed = statement.executeUpdate();
+                }
+                try (PreparedStatement statement = prepare(connection, deleteOrdersSql, params)) {
+                    removed += statement.executeUpdate();
+                }
+                return removed;
+            });
+        } catch (SQLException exception) {
+            throw new RuntimeException("Failed to purge cancelled orders", exception);
+        }
+    }
+
+    /**
+     * Works through the candidates oldest first, {@value #ARCHIVE_BATCH_SIZE} orders per transaction, so the
+     * write lock is only held briefly even when a large backlog is archived for the first time.
+     */
+    @Override
+    public int archiveFinishedBefore(LocalDateTime cutoff) {
+        int archived = 0;
+        while (true) {
+            int moved = archiveFinishedBatch(cutoff, ARCHIVE_BATCH_SIZE);
+            archived += moved;
+            if (moved < ARCHIVE_BATCH_SIZE) {
+                return archived;
+            }
+        }
+    }
+
+    @Override
+    public int archiveFinishedBatch(LocalDateTime cutoff, int limit) {
+        long cutoffEpoch = toEpochMillis(cutoff);
+        try {
+            return DatabaseConfig.inTransaction(connection -> archiveBatch(connection, cutoffEpoch, limit));
+        } catch (SQLException exception) {
+            throw new RuntimeException("Failed to archive finished orders", exception);
+        }
+    }
+
+    private int archiveBatch(Connection connection, long cutoffEpoch, int limit) throws SQLException {
+        StorageFormat format = DatabaseConfig.getStorageFormat();
+        // both tables share the layout, so header values are copied as stored
+        String headerColumns = "id, customer_name, status, " + format.createdAtColumns() + ", total, message, payer";
+        String selectSql = "SELECT " + headerColumns +
+                " FROM orders WHERE status = ? AND created_at_epoch < ? ORDER BY created_at_epoch, id LIMIT ?";
+        List<Long> ids = new ArrayList<>();
+        List<Object[]> headers = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement(selectSql)) {
+            statement.setObject(1, format.status(StatusOrder.FINI));
+            statement.setLong(2, cutoffEpoch);
+            statement.setInt(3, limit);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                int columns = resultSet.getMetaData().getColumnCount();
                 while (resultSet.next()) {
                     ids.add(resultSet.getLong("id"));
+                    Object[] header = new Object[columns];
+                    for (int i = 0; i < columns; i++) {
+                        header[i] = resultSet.getObject(i + 1);
+                    }
+                    headers.add(header);
                 }
             }
-            
-            if (ids.isEmpty()) {
-                return;
+        }
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        // LEFT JOIN: lines whose dish was deleted are still archived, only without a dish snapshot
+        String itemSql = "SELECT oi.id, oi.order_id, oi.dish_id, oi.quantity, oi.price, " +
+                "d.name, d.price as dishPrice, d.category as dishCategory " +
+                "FROM order_items oi LEFT JOIN dishes d ON oi.dish_id = d.id " +
+                "WHERE oi.order_id IN (" + placeholders(ids.size()) + ") ORDER BY oi.order_id, oi.id";
+        Map<Long, List<ArchivedItemsCodec.ArchivedItem>> itemsByOrder = new HashMap<>();
+        try (PreparedStatement statement = prepare(connection, itemSql, new ArrayList<>(ids));
+             ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                itemsByOrder.computeIfAbsent(resultSet.getLong("order_id"), key -> new ArrayList<>())
+                        .add(new ArchivedItemsCodec.ArchivedItem(resultSet.getLong("id"), resultSet.getLong("dish_id"),
+                                resultSet.getString("name"), categoryName(format.readCategory(resultSet, "dishCategory")),
+                                format.readMoney(resultSet, "dishPrice"), resultSet.getInt("quantity"),
+                                format.readMoney(resultSet, "price")));
             }
+        }
 
-            for (Long orderId : ids) {
-                deleteItems(connection, orderId);
+        String insertSql = "INSERT INTO orders_archive(" + headerColumns + ", items) VALUES("
+                + placeholders(headers.get(0).length + 1) + ")";
+        try (PreparedStatement statement = connection.prepareStatement(insertSql)) {
+            for (int row = 0; row < headers.size(); row++) {
+                Object[] header = headers.get(row);
+                for (int i = 0; i < header.length; i++) {
+                    statement.setObject(i + 1, header[i]);
+                }
+                statement.setBytes(header.length + 1,
+                        ArchivedItemsCodec.encode(itemsByOrder.getOrDefault(ids.get(row), List.of())));
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+        String idList = placeholders(ids.size());
+        for (String deleteSql : List.of("DELETE FROM order_items WHERE order_id IN (" + idList + ")",
+                "DELETE FROM orders WHERE id IN (" + idList + ")")) {
+            try (PreparedStatement statement = prepare(connection, deleteSql, new ArrayList<>(ids))) {
+                statement.executeUpdate();
             }
+        }
+        return ids.size();
+    }
 
-            String deleteSql = "DELETE FROM orders WHERE id = ?";
-            try (PreparedStatement deleteStatement = connection.prepareStatement(deleteSql)) {
-                for (Long orderId : ids) {
-                    deleteStatement.setLong(1, orderId);
-                    deleteStatement.addBatch();
+    private void subtractArchived(Connection connection, long id) throws SQLException {
+        String sql = "SELECT created_at_epoch, payer, items FROM orders_archive WHERE id = ?";
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, id);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (resultSet.next()) {
+                    SalesRollups.applyOrder(connection, resultSet.getLong("created_at_epoch"),
+                            resultSet.getInt("payer") == 1, ArchivedItemsCodec.decode(resultSet.getBytes("items")), -1);
                 }
-                deleteStatement.executeBatch();
             }
+        }
+    }
+
+    /**
+     * Reads only the order rows, taking the stored {@code total} instead of summing items.
+     */
+    private List<OrderSummary> loadSummaries(OrderQuery query, OrderCursor cursor, int limit,
+                                             Map<OrderSummary, Long> epochs) {
+        StorageFormat format = DatabaseConfig.getStorageFormat();
+        List<Object> parameters = new ArrayList<>();
+        String sql = buildSelect(format, summaryColumns(format) + " FROM orders", query, cursor, limit, parameters);
+        try (Connection connection = DatabaseConfig.getReadConnection()) {
+            List<OrderSummary> summaries = querySummaries(connection, format, sql, parameters, epochs, false);
+            if (query.isArchiveIncluded()) {
+                List<Object> archiveParameters = new ArrayList<>();
+                String archiveSql = buildSelect(format, summaryColumns(format) + " FROM orders_archive", query, cursor,
+                        limit, archiveParameters);
+                List<OrderSummary> archived = querySummaries(connection, format, archiveSql, archiveParameters, epochs,
+                        true);
+                summaries = mergeNewestFirst(summaries, archived, epochs, OrderSummary::getId, limit);
+            }
+            return summaries;
         } catch (SQLException exception) {
-            throw new RuntimeException("Failed to purge cancelled orders", exception);
+            throw new RuntimeException("Unable to load order summaries", exception);
         }
     }
 
-    private void saveItems(Connection connection, long orderId, List<OrderItem> items) throws SQLException {
-        String insertSql = "INSERT INTO order_items(order_id, dish_id, quantity, price) VALUES(?, ?, ?, ?)";
-        try (PreparedStatement statement = connection.prepareStatement(insertSql)) {
-            for (OrderItem item : items) {
-                statement.setLong(1, orderId);
-                statement.setLong(2, item.getDish().getId());
-                statement.setInt(3, item.getQuantity());
-                statement.setDouble(4, item.getPrice());
-                statement.addBatch();
+    private List<OrderSummary> querySummaries(Connection connection, StorageFormat format, String sql,
+                                              List<Object> parameters, Map<OrderSummary, Long> epochs,
+                                              boolean archived) throws SQLException {
+        List<OrderSummary> summaries = new ArrayList<>();
+        try (PreparedStatement statement = prepare(connection, sql, parameters);
+             ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                OrderSummary summary = new OrderSummary(resultSet.getLong("id"), resultSet.getString("customer_name"),
+                        format.readStatus(resultSet, "status"), format.readCreatedAt(resultSet),
+                        format.readMoney(resultSet, "total"), resultSet.getInt("payer") == 1, archived);
+                epochs.put(summary, resultSet.getLong("created_at_epoch"));
+                summaries.add(summary);
+            }
+        }
+        return summaries;
+    }
+
+    private List<Order> findArchived(Connection connection, StorageFormat format, OrderQuery query,
+                                     OrderCursor cursor, int limit, Map<Order, Long> epochs) throws SQLException {
+        List<Object> parameters = new ArrayList<>();
+        String sql = buildSelect(format, archiveSelect(format), query, cursor, limit, parameters);
+        return queryOrders(connection, format, sql, parameters, epochs, true);
+    }
+
+    private Optional<Order> findArchivedById(Connection connection, StorageFormat format, long id) throws SQLException {
+        List<Order> orders = queryOrders(connection, format, archiveSelect(format) + " WHERE id = ?",
+                List.<Object>of(id), new IdentityHashMap<>(), true);
+        return orders.stream().findFirst();
+    }
+
+    /**
+     * Runs an order select, remembering each row's {@code created_at_epoch} for merging and cursors.
+     * Archived rows carry their items inline; active ones get them attached by the caller.
+     */
+    private List<Order> queryOrders(Connection connection, StorageFormat format, String sql, List<Object> parameters,
+                                    Map<Order, Long> epochs, boolean archived) throws SQLException {
+        List<Order> orders = new ArrayList<>();
+        try (PreparedStatement statement = prepare(connection, sql, parameters);
+             ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                Order order = mapOrder(resultSet, format);
+                if (archived) {
+                    order.setItems(ArchivedItemsCodec.decode(resultSet.getBytes("items")));
+                }
+                epochs.put(order, resultSet.getLong("created_at_epoch"));
+                orders.add(order);
+            }
+        }
+        return orders;
+    }
+
+    /**
+     * Merges two lists already sorted newest first into one, keeping at most {@code limit} orders (0 = all).
+     */
+    private static <T> List<T> mergeNewestFirst(List<T> first, List<T> second, Map<T, Long> epochs,
+                                                ToLongFunction<T> idOf, int limit) {
+        Comparator<T> newestFirst = Comparator.<T>comparingLong(epochs::get)
+                .thenComparingLong(idOf)
+                .reversed();
+        List<T> merged = new ArrayList<>(first.size() + second.size());
+        int i = 0;
+        int j = 0;
+        while ((i < first.size() || j < second.size()) && (limit == 0 || merged.size() < limit)) {
+            if (j >= second.size() || (i < first.size() && newestFirst.compare(first.get(i), second.get(j)) <= 0)) {
+                merged.add(first.get(i++));
+            } else {
+                merged.add(second.get(j++));
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Brings the stored items of an order in line with {@code items}, keyed by dish: unchanged lines are left
+     * alone, changed quantities or prices are updated in place, and only new or removed dishes are inserted
+     * or deleted. Incoming lines for the same dish are merged.
+     *
+     * @return the number of order_items rows written
+     */
+    private int syncItems(Connection connection, StorageFormat format, long orderId, List<OrderItem> items)
+            throws SQLException {
+        Map<Long, OrderItem> incoming = new LinkedHashMap<>();
+        for (OrderItem item : items) {
+            OrderItem existing = incoming.get(item.getDish().getId());
+            if (existing == null) {
+                incoming.put(item.getDish().getId(), new OrderItem(null, item.getDish(), item.getQuantity(), item.getPrice()));
+            } else {
+                existing.setQuantity(existing.getQuantity() + item.getQuantity());
+            }
+        }
+
+        List<Long> obsoleteIds = new ArrayList<>();
+        List<OrderItem> changed = new ArrayList<>();
+        Map<Long, Boolean> matched = new HashMap<>();
+        String selectSql = "SELECT id, dish_id, quantity, price FROM order_items WHERE order_id = ? ORDER BY id";
+        try (PreparedStatement statement = connection.prepareStatement(selectSql)) {
+            statement.setLong(1, orderId);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    long rowId = resultSet.getLong("id");
+                    long dishId = resultSet.getLong("dish_id");
+                    OrderItem wanted = incoming.get(dishId);
+                    if (wanted == null || matched.containsKey(dishId)) {
+                        obsoleteIds.add(rowId);
+                        continue;
+                    }
+                    matched.put(dishId, Boolean.TRUE);
+                    if (wanted.getQuantity() != resultSet.getInt("quantity")
+                            || Double.compare(wanted.getPrice(), format.readMoney(resultSet, "price")) != 0) {
+                        wanted.setId(rowId);
+                        changed.add(wanted);
+                    }
+                }
+            }
+        }
+
+        int touched = 0;
+        if (!obsoleteIds.isEmpty()) {
+            String deleteSql = "DELETE FROM order_items WHERE id IN (" + placeholders(obsoleteIds.size()) + ")";
+            try (PreparedStatement statement = connection.prepareStatement(deleteSql)) {
+                for (int i = 0; i < obsoleteIds.size(); i++) {
+                    statement.setLong(i + 1, obsoleteIds.get(i));
+                }
+                touched += statement.executeUpdate();
+            }
+        }
+        if (!changed.isEmpty()) {
+            String updateSql = "UPDATE order_items SET quantity = ?, price = ? WHERE id = ?";
+            try (PreparedStatement statement = connection.prepareStatement(updateSql)) {
+                for (OrderItem item : changed) {
+                    statement.setInt(1, item.getQuantity());
+                    statement.setObject(2, format.money(item.getPrice()));
+                    statement.setLong(3, item.getId());
+                    touched += statement.executeUpdate();
+                }
+            }
+        }
+        List<OrderItem> added = new ArrayList<>();
+        incoming.forEach((dishId, item) -> {
+            if (!matched.containsKey(dishId)) {
+                added.add(item);
+            }
+        });
+        saveItems(connection, format, orderId, added);
+        return touched + added.size();
+    }
+
+    /**
+     * Inserts the items with multi-row {@code VALUES} statements, {@value #ITEM_INSERT_ROWS} rows at a time,
+     * so a typical order is written by a single statement.
+     */
+    private void saveItems(Connection connection, StorageFormat format, long orderId, List<OrderItem> items)
+            throws SQLException {
+        for (int from = 0; from < items.size(); from += ITEM_INSERT_ROWS) {
+            List<OrderItem> chunk = items.subList(from, Math.min(from + ITEM_INSERT_ROWS, items.size()));
+            StringBuilder insertSql = new StringBuilder("INSERT INTO order_items(order_id, dish_id, quantity, price) VALUES ");
+            for (int i = 0; i < chunk.size(); i++) {
+                insertSql.append(i == 0 ? "(?, ?, ?, ?)" : ", (?, ?, ?, ?)");
+            }
+            try (PreparedStatement statement = connection.prepareStatement(insertSql.toString())) {
+                int index = 1;
+                for (OrderItem item : chunk) {
+                    statement.setLong(index++, orderId);
+                    statement.setLong(index++, item.getDish().getId());
+                    statement.setInt(index++, item.getQuantity());
+                    statement.setObject(index++, format.money(item.getPrice()));
+                }
+                statement.executeUpdate();
             }
-            statement.executeBatch();
         }
     }
 
@@ -173,49 +794,202 @@ public class OrderRepositoryImpl implements OrderRepository {
         }
     }
 
-    private List<OrderItem> loadItemsForOrder(Connection connection, long orderId) throws SQLException {
-        String sql = "SELECT oi.id, oi.quantity, oi.price, d.id as dishId, d.name, d.price as dishPrice, d.category as dishCategory " +
-                "FROM order_items oi INNER JOIN dishes d ON oi.dish_id = d.id WHERE order_id = ?";
+    private List<OrderItem> loadItemsForOrder(Connection connection, StorageFormat format, long orderId)
+            throws SQLException {
+        String sql = ITEM_SELECT + "WHERE oi.order_id = ? ORDER BY oi.id";
         List<OrderItem> items = new ArrayList<>();
         try (PreparedStatement statement = connection.prepareStatement(sql)) {
             statement.setLong(1, orderId);
             try (ResultSet resultSet = statement.executeQuery()) {
+                Map<Long, Dish> dishes = new HashMap<>();
                 while (resultSet.next()) {
-                    OrderItem item = new OrderItem();
-                    item.setId(resultSet.getLong("id"));
-                    Dish dish = new Dish();
-                    dish.setId(resultSet.getLong("dishId"));
-                    dish.setName(resultSet.getString("name"));
-                    dish.setPrice(resultSet.getDouble("dishPrice"));
-                    dish.setCategory(DishCategory.valueOf(resultSet.getString("dishCategory")));
-                    item.setDish(dish);
-                    item.setQuantity(resultSet.getInt("quantity"));
-                    item.setPrice(resultSet.getDouble("price"));
-                    items.add(item);
+                    items.add(mapItem(resultSet, format, dishes));
                 }
             }
         }
         return items;
     }
 
-    private Order mapOrder(ResultSet resultSet) throws SQLException {
+    /**
+     * Loads the items of every order in one joined scan of {@code order_items} and stitches them onto
+     * their orders in memory, instead of issuing one item query per order.
+     */
+    private void attachAllItems(Connection connection, StorageFormat format, List<Order> orders) throws SQLException {
+        if (orders.isEmpty()) {
+            return;
+        }
+        Map<Long, Order> ordersById = new HashMap<>(orders.size() * 2);
+        for (Order order : orders) {
+            order.setItems(new ArrayList<>());
+            ordersById.put(order.getId(), order);
+        }
+        Map<Long, Dish> dishes = new HashMap<>();
+        try (PreparedStatement statement = connection.prepareStatement(ITEM_SELECT + "ORDER BY oi.order_id, oi.id");
+             ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                Order order = ordersById.get(resultSet.getLong("orderId"));
+                if (order != null) {
+                    order.getItems().add(mapItem(resultSet, format, dishes));
+                }
+            }
+        }
+    }
+
+    /**
+     * Loads the items of a subset of orders with one {@code IN (...)} query per {@value #ITEM_BATCH_SIZE} orders.
+     */
+    private void attachItems(Connection connection, StorageFormat format, List<Order> orders) throws SQLException {
+        if (orders.isEmpty()) {
+            return;
+        }
+        Map<Long, Order> ordersById = new HashMap<>(orders.size() * 2);
+        for (Order order : orders) {
+            order.setItems(new ArrayList<>());
+            ordersById.put(order.getId(), order);
+        }
+        Map<Long, Dish> dishes = new HashMap<>();
+        List<Long> ids = new ArrayList<>(ordersById.keySet());
+        for (int from = 0; from < ids.size(); from += ITEM_BATCH_SIZE) {
+            List<Long> batch = ids.subList(from, Math.min(from + ITEM_BATCH_SIZE, ids.size()));
+            String sql = ITEM_SELECT + "WHERE oi.order_id IN (" + placeholders(batch.size()) + ") ORDER BY oi.order_id, oi.id";
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                for (int i = 0; i < batch.size(); i++) {
+                    statement.setLong(i + 1, batch.get(i));
+                }
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        ordersById.get(resultSet.getLong("orderId")).getItems().add(mapItem(resultSet, format, dishes));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Builds a newest-first select over {@code base} (the active or the archive table), optionally resuming
+     * after {@code cursor}; {@code limit} 0 means unbounded.
+     */
+    private static String buildSelect(StorageFormat format, String base, OrderQuery query, OrderCursor cursor,
+                                      int limit, List<Object> parameters) {
+        StringBuilder sql = new StringBuilder(base);
+        appendFilters(format, sql, parameters, query);
+        if (cursor != null) {
+            sql.append(" AND (created_at_epoch, id) < (?, ?)");
+            parameters.add(cursor.getCreatedAtEpoch());
+            parameters.add(cursor.getId());
+        }
+        sql.append(" ORDER BY created_at_epoch DESC, id DESC");
+        if (limit > 0) {
+            sql.append(" LIMIT ?");
+            parameters.add(limit);
+        }
+        return sql.toString();
+    }
+
+    /**
+     * Compiles {@code query} into a WHERE clause over indexed columns, collecting bind values in order.
+     */
+    private static void appendFilters(StorageFormat format, StringBuilder sql, List<Object> parameters,
+                                      OrderQuery query) {
+        sql.append(" WHERE 1 = 1");
+        if (!query.getStatuses().isEmpty()) {
+            sql.append(" AND status IN (").append(placeholders(query.getStatuses().size())).append(')');
+            query.getStatuses().forEach(status -> parameters.add(format.status(status)));
+        }
+        if (query.getCreatedFrom() != null) {
+            sql.append(" AND created_at_epoch >= ?");
+            parameters.add(toEpochMillis(query.getCreatedFrom()));
+        }
+        if (query.getCreatedBefore() != null) {
+            sql.append(" AND created_at_epoch < ?");
+            parameters.add(toEpochMillis(query.getCreatedBefore()));
+        }
+        if (query.getPayer() != null) {
+            sql.append(" AND payer = ?");
+            parameters.add(query.getPayer() ? 1 : 0);
+        }
+        String match = OrderSearchIndex.matchExpression(query.getText());
+        if (match != null) {
+            sql.append(" AND id IN (SELECT rowid FROM order_search WHERE order_search MATCH ?)");
+            parameters.add(match);
+        }
+    }
+
+    private static PreparedStatement prepare(Connection connection, String sql, List<Object> parameters) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(sql);
+        try {
+            for (int i = 0; i < parameters.size(); i++) {
+                statement.setObject(i + 1, parameters.get(i));
+            }
+        } catch (SQLException exception) {
+            statement.close();
+            throw exception;
+        }
+        return statement;
+    }
+
+    private static String placeholders(int count) {
+        StringBuilder builder = new StringBuilder(count * 2);
+        for (int i = 0; i < count; i++) {
+            builder.append(i == 0 ? "?" : ",?");
+        }
+        return builder.toString();
+    }
+
+    private OrderItem mapItem(ResultSet resultSet, StorageFormat format, Map<Long, Dish> dishes) throws SQLException {
+        OrderItem item = new OrderItem();
+        item.setId(resultSet.getLong("id"));
+        long dishId = resultSet.getLong("dishId");
+        Dish dish = dishes.get(dishId);
+        if (dish == null) {
+            dish = new Dish();
+            dish.setId(dishId);
+            dish.setName(resultSet.getString("name"));
+            dish.setPrice(format.readMoney(resultSet, "dishPrice"));
+            dish.setCategory(format.readCategory(resultSet, "dishCategory"));
+            dishes.put(dishId, dish);
+        }
+        item.setDish(dish);
+        item.setQuantity(resultSet.getInt("quantity"));
+        item.setPrice(format.readMoney(resultSet, "price"));
+        return item;
+    }
+
+    /**
+     * Matches the {@code created_at_epoch} mirror: the local timestamp read as if it were UTC,
+     * rounded to the nearest millisecond like SQLite's {@code julianday()}.
+     */
+    static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * 1000L + Math.round(dateTime.getNano() / 1_000_000.0);
+    }
+
+    private Order mapOrder(ResultSet resultSet, StorageFormat format) throws SQLException {
         Order order = new Order();
         order.setId(resultSet.getLong("id"));
         order.setCustomerName(resultSet.getString("customer_name"));
-        String statusValue = resultSet.getString("status");
-        if (statusValue != null && !statusValue.isBlank()) {
-            try {
-                order.setStatus(StatusOrder.valueOf(statusValue));
-            } catch (IllegalArgumentException ex) {
-                order.setStatus(StatusOrder.ENCOURS);
-            }
-        } else {
-            order.setStatus(StatusOrder.ENCOURS);
-        }
-        String createdAt = resultSet.getString("created_at");
-        order.setCreatedAt(LocalDateTime.parse(createdAt, FORMATTER));
+        order.setStatus(format.readStatus(resultSet, "status"));
+        order.setCreatedAt(format.readCreatedAt(resultSet));
         order.setMessage(resultSet.getString("message"));
         order.setPayer(resultSet.getInt("payer") == 1);
         return order;
     }
+
+    private static String categoryName(DishCategory category) {
+        return category != null ? category.name() : null;
+    }
+
+    private static String orderSelect(StorageFormat format) {
+        return "SELECT id, customer_name, status, " + format.createdAtColumns() + ", message, payer FROM orders";
+    }
+
+    private static String archiveSelect(StorageFormat format) {
+        return "SELECT id, customer_name, status, " + format.createdAtColumns() + ", message, payer, items FROM orders_archive";
+    }
+
+    /**
+     * Order row columns without the items; {@code total} is the stored one.
+     */
+    private static String summaryColumns(StorageFormat format) {
+        return "SELECT id, customer_name, status, " + format.createdAtColumns() + ", total, payer";
+    }
 }
@@ -0,0 +1,123 @@
+package backend.repository.impl;
+
+import backend.entity.OrderItem;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * Maintains {@code order_search}, an FTS5 index over the number, customer name, note and dish names of every
+ * order, active or archived, keyed on the order id. Writers refresh the rows they touch inside their own
+ * transaction, like {@link SalesRollups}. Archiving leaves the index alone: the id stays the same and the
+ * archive keeps a snapshot of the dish names.
+ */
+public final class OrderSearchIndex {
+    private static final String INSERT_ACTIVE = "INSERT INTO order_search(rowid, order_number, customer_name, message, dishes) " +
+            "SELECT o.id, o.id, o.customer_name, coalesce(o.message, ''), " +
+            "coalesce((SELECT group_concat(d.name, ' ') FROM order_items oi INNER JOIN dishes d ON oi.dish_id = d.id " +
+            "WHERE oi.order_id = o.id), '') FROM orders o WHERE ";
+
+    private OrderSearchIndex() {
+    }
+
+    /**
+     * Indexes the freshly inserted orders matching {@code condition} (a predicate over {@code orders o}).
+     */
+    static void add(Connection connection, String condition, List<Object> parameters) throws SQLException {
+        try (PreparedStatement statement = prepare(connection, INSERT_ACTIVE + "(" + condition + ")", parameters)) {
+            statement.executeUpdate();
+        }
+    }
+
+    /**
+     * Replaces the rows of the active orders matching {@code condition}, after their text or items changed.
+     */
+    static void refresh(Connection connection, String condition, List<Object> parameters) throws SQLException {
+        remove(connection, condition, parameters);
+        add(connection, condition, parameters);
+    }
+
+    /**
+     * Drops the rows of the active orders matching {@code condition}; call it before the orders are deleted.
+     */
+    static void remove(Connection connection, String condition, List<Object> parameters) throws SQLException {
+        String sql = "DELETE FROM order_search WHERE rowid IN (SELECT o.id FROM orders o WHERE " + condition + ")";
+        try (PreparedStatement statement = prepare(connection, sql, parameters)) {
+            statement.executeUpdate();
+        }
+    }
+
+    static void remove(Connection connection, long id) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("DELETE FROM order_search WHERE rowid = ?")) {
+            statement.setLong(1, id);
+            statement.executeUpdate();
+        }
+    }
+
+    /**
+     * Empties the index and fills it again from the active orders and the archive.
+     */
+    public static void rebuild(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DELETE FROM order_search");
+        }
+        add(connection, "1 = 1", List.of());
+        // FTS5 flushes its pending segment whenever a rowid is not above the previous one, so feed it in id order
+        String archiveSql = "SELECT id, customer_name, message, items FROM orders_archive ORDER BY id";
+        String insertSql = "INSERT INTO order_search(rowid, order_number, customer_name, message, dishes) " +
+                "VALUES(?, ?, ?, ?, ?)";
+        try (PreparedStatement select = connection.prepareStatement(archiveSql);
+             PreparedStatement insert = connection.prepareStatement(insertSql);
+             ResultSet resultSet = select.executeQuery()) {
+            while (resultSet.next()) {
+                long id = resultSet.getLong("id");
+                StringJoiner dishes = new StringJoiner(" ");
+                for (OrderItem item : ArchivedItemsCodec.decode(resultSet.getBytes("items"))) {
+                    dishes.add(item.getDish().getName());
+                }
+                String message = resultSet.getString("message");
+                insert.setLong(1, id);
+                insert.setLong(2, id);
+                insert.setString(3, resultSet.getString("customer_name"));
+                insert.setString(4, message != null ? message : "");
+                insert.setString(5, dishes.toString());
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+    }
+
+    /**
+     * Turns free text into an FTS5 query: every word must match the start of a word in any column.
+     * Punctuation is dropped, which also keeps FTS5 operators out of user input.
+     *
+     * @return the query, or {@code null} when {@code text} holds no word
+     */
+    static String matchExpression(String text) {
+        if (text == null) {
+            return null;
+        }
+        List<String> terms = new ArrayList<>();
+        for (String word : text.split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                terms.add('"' + word + "\"*");
+            }
+        }
+        return terms.isEmpty() ? null : String.join(" ", terms);
+    }
+
+    private static PreparedStatement prepare(Connection connection, String sql, List<Object> parameters)
+            throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(sql);
+        for (int i = 0; i < parameters.size(); i++) {
+            statement.setObject(i + 1, parameters.get(i));
+        }
+        return statement;
+    }
+}
@@ -0,0 +1,424 @@
+package backend.repository.impl;
+
+import backend.config.DatabaseConfig;
+import backend.config.StorageFormat;
+import backend.entity.StatusOrder;
+import backend.repository.OrderCursor;
+import backend.repository.OrderPage;
+import backend.repository.OrderQuery;
+import backend.repository.OrderSummary;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.CRC32;
+
+/**
+ * Every order summary, active and archived, in a binary file that is memory-mapped rather than decoded:
+ * fixed-size rows sorted newest first by (created_at, id), followed by the UTF-8 customer names. Queries
+ * read the row fields in place and only build an {@link OrderSummary} for the rows they return.
+ * <p>
+ * The file records the {@code order_changes} generation and version it was taken at, plus a CRC32 of its
+ * content. {@link #open} turns down a damaged or outdated file, and {@link #isCurrent()} tells when the
+ * database has changed since.
+ */
+public final class OrderSummarySnapshot {
+    private static final int MAGIC = 0x464F5953;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 40;
+    private static final int RECORD_BYTES = 48;
+    private static final int ID = 0;
+    private static final int EPOCH = 8;
+    private static final int CREATED_SECOND = 16;
+    private static final int CREATED_NANO = 24;
+    private static final int NAME_OFFSET = 28;
+    private static final int TOTAL = 32;
+    private static final int NAME_LENGTH = 40;
+    private static final int STATUS = 44;
+    private static final int PAYER = 45;
+    private static final int ARCHIVED = 46;
+    private static final StatusOrder[] STATUSES = StatusOrder.values();
+
+    private final MappedByteBuffer buffer;
+    private final ChangeStamp stamp;
+    private final int count;
+    private final int namesStart;
+
+    private OrderSummarySnapshot(MappedByteBuffer buffer, ChangeStamp stamp, int count) {
+        this.buffer = buffer;
+        this.stamp = stamp;
+        this.count = count;
+        this.namesStart = HEADER_BYTES + count * RECORD_BYTES;
+    }
+
+    /**
+     * Maps {@code file} if it is intact and matches the database as it is now; empty when it is missing,
+     * damaged or outdated, in which case the caller reads SQLite instead.
+     */
+    public static Optional<OrderSummarySnapshot> open(Path file) {
+        Header header = readHeader(file);
+        // an outdated file is never mapped, so it can still be replaced on platforms that lock mapped files
+        if (header == null || !header.stamp.equals(currentStamp())) {
+            return Optional.empty();
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, header.size);
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(HEADER_BYTES, (int) header.size - HEADER_BYTES));
+            if (crc.getValue() != header.checksum) {
+                return Optional.empty();
+            }
+            return Optional.of(new OrderSummarySnapshot(buffer, header.stamp, header.count));
+        } catch (IOException exception) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Writes a snapshot of the current order summaries to {@code file}, replacing it atomically.
+     */
+    public static synchronized void save(Path file) {
+        ByteArrayOutputStream records = new ByteArrayOutputStream(64 * 1024);
+        ByteArrayOutputStream names = new ByteArrayOutputStream(16 * 1024);
+        ChangeStamp stamp;
+        int count = 0;
+        try (Connection connection = DatabaseConfig.getReadConnection();
+             DataOutputStream out = new DataOutputStream(records)) {
+            // one read transaction, so the counter and the rows describe the same state
+            connection.setAutoCommit(false);
+            stamp = readStamp(connection);
+            StorageFormat format = DatabaseConfig.getStorageFormat();
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(summarySelect(format))) {
+                while (resultSet.next()) {
+                    byte[] name = resultSet.getString("customer_name").getBytes(StandardCharsets.UTF_8);
+                    LocalDateTime createdAt = format.readCreatedAt(resultSet);
+                    out.writeLong(resultSet.getLong("id"));
+                    out.writeLong(resultSet.getLong("created_at_epoch"));
+                    out.writeLong(createdAt.toEpochSecond(ZoneOffset.UTC));
+                    out.writeInt(createdAt.getNano());
+                    out.writeInt(names.size());
+                    out.writeDouble(format.readMoney(resultSet, "total"));
+                    out.writeInt(name.length);
+                    out.writeByte(format.readStatus(resultSet, "status").ordinal());
+                    out.writeByte(resultSet.getInt("payer") == 1 ? 1 : 0);
+                    out.writeByte(resultSet.getInt("archived"));
+                    out.writeByte(0);
+                    names.write(name);
+                    count++;
+                }
+            }
+            connection.commit();
+        } catch (SQLException exception) {
+            throw new RuntimeException("Unable to read order summaries for the snapshot", exception);
+        } catch (IOException exception) {
+            throw new UncheckedIOException("Failed to encode order summary snapshot", exception);
+        }
+        CRC32 crc = new CRC32();
+        byte[] recordBytes = records.toByteArray();
+        byte[] nameBytes = names.toByteArray();
+        crc.update(recordBytes);
+        crc.update(nameBytes);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+                .putInt(MAGIC)
+                .putInt(FORMAT_VERSION)
+                .putLong(stamp.generation)
+                .putLong(stamp.version)
+                .putInt(count)
+                .putInt(nameBytes.length)
+                .putLong(crc.getValue());
+        header.flip();
+        Path partial = file.resolveSibling(file.getFileName() + ".part");
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                for (ByteBuffer part : new ByteBuffer[]{header, ByteBuffer.wrap(recordBytes), ByteBuffer.wrap(nameBytes)}) {
+                    while (part.hasRemaining()) {
+                        channel.write(part);
+                    }
+                }
+                channel.force(false);
+            }
+            Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException exception) {
+            throw new UncheckedIOException("Failed to write order summary snapshot", exception);
+        }
+    }
+
+    /**
+     * Saves a new snapshot unless {@code file} already matches the database.
+     *
+     * @return whether a snapshot was written
+     */
+    public static synchronized boolean refresh(Path file) {
+        Header header = readHeader(file);
+        if (header != null && header.stamp.equals(currentStamp())) {
+            return false;
+        }
+        save(file);
+        return true;
+    }
+
+    /**
+     * Saves a snapshot from a daemon thread. A failure is dropped: the next start reads SQLite again and
+     * tries once more.
+     */
+    public static void saveInBackground(Path file) {
+        Thread thread = new Thread(() -> {
+            try {
+                save(file);
+            } catch (RuntimeException exception) {
+                // nothing depends on the snapshot; the next start falls back to SQLite
+            }
+        }, "summary-snapshot");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * True while no order has been written since the snapshot was taken. Once false it stays false.
+     */
+    public boolean isCurrent() {
+        return stamp.equals(currentStamp());
+    }
+
+    /**
+     * Text search needs the full-text index, so only queries without search text are answered here.
+     */
+    public boolean canAnswer(OrderQuery query) {
+        return query.getText() == null;
+    }
+
+    /**
+     * Same rows and order as {@link OrderRepositoryImpl#findSummaries} for a query {@link #canAnswer} accepts.
+     */
+    public List<OrderSummary> find(OrderQuery query) {
+        int[] rows = scan(query, null, query.getLimit());
+        List<OrderSummary> summaries = new ArrayList<>(rows.length);
+        for (int row : rows) {
+            summaries.add(summaryAt(row));
+        }
+        return summaries;
+    }
+
+    /**
+     * Same page as {@link OrderRepositoryImpl#findSummaryPage} for a query {@link #canAnswer} accepts.
+     */
+    public OrderPage<OrderSummary> findPage(OrderQuery query, OrderCursor cursor) {
+        int limit = query.getLimit();
+        if (limit < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1");
+        }
+        int[] rows = scan(query, cursor, limit + 1);
+        int shown = Math.min(rows.length, limit);
+        List<OrderSummary> summaries = new ArrayList<>(shown);
+        for (int i = 0; i < shown; i++) {
+            summaries.add(summaryAt(rows[i]));
+        }
+        OrderCursor nextCursor = null;
+        if (rows.length > limit) {
+            int last = offset(rows[limit - 1]);
+            nextCursor = new OrderCursor(buffer.getLong(last + EPOCH), buffer.getLong(last + ID));
+        }
+        return new OrderPage<>(summaries, nextCursor);
+    }
+
+    /**
+     * Number of orders in the snapshot.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Indexes of the rows matching {@code query} after {@code cursor}, at most {@code limit} (0 = all). The
+     * cursor and the upper date bound are found by binary search, and the scan stops at the lower one.
+     */
+    private int[] scan(OrderQuery query, OrderCursor cursor, int limit) {
+        int row = 0;
+        if (cursor != null) {
+            row = firstBelow(cursor.getCreatedAtEpoch(), cursor.getId());
+        }
+        if (query.getCreatedBefore() != null) {
+            row = Math.max(row, firstBelow(OrderRepositoryImpl.toEpochMillis(query.getCreatedBefore()), Long.MIN_VALUE));
+        }
+        long from = query.getCreatedFrom() == null ? Long.MIN_VALUE
+                : OrderRepositoryImpl.toEpochMillis(query.getCreatedFrom());
+        int statusMask = 0;
+        for (StatusOrder status : query.getStatuses()) {
+            statusMask |= 1 << status.ordinal();
+        }
+        Boolean payer = query.getPayer();
+        boolean archiveIncluded = query.isArchiveIncluded();
+        int[] matches = new int[Math.max(1, limit > 0 ? Math.min(limit, count) : 64)];
+        int found = 0;
+        for (; row < count && (limit == 0 || found < limit); row++) {
+            int base = offset(row);
+            if (buffer.getLong(base + EPOCH) < from) {
+                break;
+            }
+            if ((!archiveIncluded && buffer.get(base + ARCHIVED) != 0)
+                    || (statusMask != 0 && (statusMask & (1 << buffer.get(base + STATUS))) == 0)
+                    || (payer != null && (buffer.get(base + PAYER) != 0) != payer)) {
+                continue;
+            }
+            if (found == matches.length) {
+                matches = Arrays.copyOf(matches, found * 2);
+            }
+            matches[found++] = row;
+        }
+        return Arrays.copyOf(matches, found);
+    }
+
+    /**
+     * First row sorting strictly after (older than) {@code (epoch, id)}.
+     */
+    private int firstBelow(long epoch, long id) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int base = offset(middle);
+            long rowEpoch = buffer.getLong(base + EPOCH);
+            if (rowEpoch < epoch || (rowEpoch == epoch && buffer.getLong(base + ID) < id)) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+
+    private OrderSummary summaryAt(int row) {
+        int base = offset(row);
+        byte[] name = new byte[buffer.getInt(base + NAME_LENGTH)];
+        buffer.get(namesStart + buffer.getInt(base + NAME_OFFSET), name);
+        LocalDateTime createdAt = LocalDateTime.ofEpochSecond(buffer.getLong(base + CREATED_SECOND),
+                buffer.getInt(base + CREATED_NANO), ZoneOffset.UTC);
+        return new OrderSummary(buffer.getLong(base + ID), new String(name, StandardCharsets.UTF_8),
+                STATUSES[buffer.get(base + STATUS)], createdAt, buffer.getDouble(base + TOTAL),
+                buffer.get(base + PAYER) != 0, buffer.get(base + ARCHIVED) != 0);
+    }
+
+    private static int offset(int row) {
+        return HEADER_BYTES + row * RECORD_BYTES;
+    }
+
+    /**
+     * Header of {@code file}, or null when it is missing, not a snapshot, or not the size it announces.
+     */
+    private static Header readHeader(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer bytes = ByteBuffer.allocate(HEADER_BYTES);
+            while (bytes.hasRemaining() && channel.read(bytes) >= 0) {
+                // keep reading until the header is complete or the file ends
+            }
+            if (bytes.hasRemaining()) {
+                return null;
+            }
+            bytes.flip();
+            if (bytes.getInt() != MAGIC || bytes.getInt() != FORMAT_VERSION) {
+                return null;
+            }
+            Header header = new Header(new ChangeStamp(bytes.getLong(), bytes.getLong()), bytes.getInt(), bytes.getInt(),
+                    bytes.getLong());
+            if (header.count < 0 || header.nameBytes < 0 || header.size > Integer.MAX_VALUE || channel.size() != header.size) {
+                return null;
+            }
+            return header;
+        } catch (IOException exception) {
+            return null;
+        }
+    }
+
+    private static ChangeStamp currentStamp() {
+        try (Connection connection = DatabaseConfig.getReadConnection()) {
+            return readStamp(connection);
+        } catch (SQLException exception) {
+            throw new RuntimeException("Unable to read the order change counter", exception);
+        }
+    }
+
+    private static String summarySelect(StorageFormat format) {
+        String columns = "id, customer_name, status, " + format.createdAtColumns() + ", total, payer";
+        return "SELECT " + columns + ", 0 AS archived FROM orders " +
+                "UNION ALL SELECT " + columns + ", 1 FROM orders_archive " +
+                "ORDER BY created_at_epoch DESC, id DESC";
+    }
+
+    private static ChangeStamp readStamp(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT generation, version FROM order_changes WHERE id = 1")) {
+            return resultSet.next()
+                    ? new ChangeStamp(resultSet.getLong("generation"), resultSet.getLong("version"))
+                    : new ChangeStamp(0, -1);
+        }
+    }
+
+    private static final class Header {
+        private final ChangeStamp stamp;
+        private final int count;
+        private final int nameBytes;
+        private final long checksum;
+        private final long size;
+
+        private Header(ChangeStamp stamp, int count, int nameBytes, long checksum) {
+            this.stamp = stamp;
+            this.count = count;
+            this.nameBytes = nameBytes;
+            this.checksum = checksum;
+            this.size = HEADER_BYTES + (long) count * RECORD_BYTES + nameBytes;
+        }
+    }
+
+    /**
+     * Position in the history of one database, from its {@code order_changes} row.
+     */
+    private static final class ChangeStamp {
+        private final long generation;
+        private final long version;
+
+        private ChangeStamp(long generation, long version) {
+            this.generation = generation;
+            this.version = version;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof ChangeStamp
+                    && ((ChangeStamp) other).generation == generation
+                    && ((ChangeStamp) other).version == version;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(generation) * 31 + Long.hashCode(version);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package backend.repository.impl;
+
+import backend.config.DatabaseConfig;
+import backend.repository.DishSales;
+import backend.repository.RevenueBucket;
+import backend.repository.RollupGranularity;
+import backend.repository.SalesRollupRepository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+public class SalesRollupRepositoryImpl implements SalesRollupRepository {
+    @Override
+    public List<RevenueBucket> findRevenue(RollupGranularity granularity, LocalDateTime from) {
+        String sql = "SELECT bucket_start, order_count, revenue FROM revenue_rollup " +
+                "WHERE granularity = ? AND bucket_start >= ? AND order_count > 0 ORDER BY bucket_start";
+        List<RevenueBucket> buckets = new ArrayList<>();
+        try (Connection connection = DatabaseConfig.getReadConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, granularity.name());
+            statement.setLong(2, lowerBound(granularity, from));
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    LocalDateTime bucketStart = LocalDateTime.ofEpochSecond(resultSet.getLong("bucket_start") / 1000L,
+                            0, ZoneOffset.UTC);
+                    buckets.add(new RevenueBucket(bucketStart, resultSet.getLong("order_count"),
+                            resultSet.getDouble("revenue")));
+                }
+            }
+            return buckets;
+        } catch (SQLException exception) {
+            throw new RuntimeException("Unable to load revenue rollup", exception);
+        }
+    }
+
+    @Override
+    public List<DishSales> findDishSales(RollupGranularity granularity, LocalDateTime from) {
+        String sql = "SELECT dish_name, sum(quantity) AS quantity, sum(revenue) AS revenue FROM dish_sales_rollup " +
+                "WHERE granularity = ? AND bucket_start >= ? GROUP BY dish_name HAVING sum(quantity) > 0 " +
+                "ORDER BY revenue DESC";
+        List<DishSales> sales = new ArrayList<>();
+        try (Connection connection = DatabaseConfig.getReadConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, granularity.name());
+            statement.setLong(2, lowerBound(granularity, from));
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    sales.add(new DishSales(resultSet.getString("dish_name"), resultSet.getLong("quantity"),
+                            resultSet.getDouble("revenue")));
+                }
+            }
+            return sales;
+        } catch (SQLException exception) {
+            throw new RuntimeException("Unable to load dish sales rollup", exception);
+        }
+    }
+
+    @Override
+    public void rebuild() {
+        try {
+            DatabaseConfig.inTransaction(connection -> {
+                SalesRollups.rebuild(connection);
+                return null;
+            });
+        } catch (SQLException exception) {
+            throw new RuntimeException("Failed to rebuild sales rollups", exception);
+        }
+    }
+
+    /**
+     * Ranges are widened to whole buckets: the bucket containing {@code from} is included.
+     */
+    private static long lowerBound(RollupGranularity granularity, LocalDateTime from) {
+        return from == null ? Long.MIN_VALUE
+                : granularity.bucketStart(from).toEpochSecond(ZoneOffset.UTC) * 1000L;
+    }
+}
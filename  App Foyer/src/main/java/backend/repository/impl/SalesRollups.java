@@ -0,0 +1,200 @@
+package backend.repository.impl;
+
+import backend.config.DatabaseConfig;
+import backend.config.StorageFormat;
+import backend.entity.OrderItem;
+import backend.repository.RollupGranularity;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maintains {@code revenue_rollup} and {@code dish_sales_rollup}: paid orders summed per hour, day and month,
+ * keyed on the bucket start in {@code created_at_epoch} units. Writers apply signed deltas inside their own
+ * transaction, adding an order's contribution after it is written and subtracting it before it changes or
+ * goes away, so the rollups commit or roll back together with the orders.
+ * <p>
+ * Like the analytics screen they feed, the rollups count every paid order whatever its status, and only the
+ * lines whose dish exists. Archiving an order leaves them untouched.
+ */
+public final class SalesRollups {
+    private static final String REVENUE_UPSERT = "ON CONFLICT(granularity, bucket_start) DO UPDATE SET " +
+            "order_count = order_count + excluded.order_count, revenue = revenue + excluded.revenue";
+    private static final String DISH_UPSERT = "ON CONFLICT(granularity, bucket_start, dish_id) DO UPDATE SET " +
+            "dish_name = CASE WHEN excluded.quantity > 0 THEN excluded.dish_name ELSE dish_name END, " +
+            "quantity = quantity + excluded.quantity, revenue = revenue + excluded.revenue";
+
+    private SalesRollups() {
+    }
+
+    /**
+     * Adds the paid orders matching {@code condition} (a predicate over {@code orders o}).
+     */
+    static void addActive(Connection connection, String condition, List<Object> parameters) throws SQLException {
+        applyActive(connection, DatabaseConfig.getStorageFormat(), condition, parameters, 1);
+    }
+
+    static void subtractActive(Connection connection, String condition, List<Object> parameters) throws SQLException {
+        applyActive(connection, DatabaseConfig.getStorageFormat(), condition, parameters, -1);
+    }
+
+    /**
+     * Takes the lines of {@code dishId} out of the active paid orders, leaving the order counts alone. Call it
+     * before the dish row goes: lines without a dish are no longer counted, so no later subtraction would find
+     * them. Archived lines carry their own dish snapshot and stay counted.
+     */
+    static void subtractDish(Connection connection, long dishId) throws SQLException {
+        String lineRevenue = DatabaseConfig.getStorageFormat().moneyExpression("sum(oi.quantity * oi.price)");
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            String bucket = bucketExpression(granularity);
+            String from = "FROM orders o INNER JOIN order_items oi ON oi.order_id = o.id " +
+                    "INNER JOIN dishes d ON oi.dish_id = d.id WHERE o.payer = 1 AND d.id = ?";
+            String revenueSql = "INSERT INTO revenue_rollup(granularity, bucket_start, order_count, revenue) " +
+                    "SELECT ?, " + bucket + ", 0, -" + lineRevenue + " " + from + " GROUP BY 2 " + REVENUE_UPSERT;
+            String dishSql = "INSERT INTO dish_sales_rollup(granularity, bucket_start, dish_id, dish_name, quantity, revenue) " +
+                    "SELECT ?, " + bucket + ", d.id, d.name, -sum(oi.quantity), -" + lineRevenue + " " + from +
+                    " GROUP BY 2 " + DISH_UPSERT;
+            for (String sql : List.of(revenueSql, dishSql)) {
+                try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                    statement.setString(1, granularity.name());
+                    statement.setLong(2, dishId);
+                    statement.executeUpdate();
+                }
+            }
+        }
+    }
+
+    /**
+     * Applies the contribution of one order held in memory, used for archived rows whose items live in a blob.
+     */
+    static void applyOrder(Connection connection, long createdAtEpoch, boolean paid, List<OrderItem> items, int sign)
+            throws SQLException {
+        if (!paid) {
+            return;
+        }
+        double revenue = 0;
+        Map<Long, DishTotal> byDish = new LinkedHashMap<>();
+        for (OrderItem item : items) {
+            double lineRevenue = item.getQuantity() * item.getPrice();
+            revenue += lineRevenue;
+            DishTotal total = byDish.computeIfAbsent(item.getDish().getId(), id -> new DishTotal(item.getDish().getName()));
+            total.quantity += item.getQuantity();
+            total.revenue += lineRevenue;
+        }
+        String revenueSql = "INSERT INTO revenue_rollup(granularity, bucket_start, order_count, revenue) " +
+                "VALUES(?, ?, ?, ?) " + REVENUE_UPSERT;
+        String dishSql = "INSERT INTO dish_sales_rollup(granularity, bucket_start, dish_id, dish_name, quantity, revenue) " +
+                "VALUES(?, ?, ?, ?, ?, ?) " + DISH_UPSERT;
+        try (PreparedStatement revenueStatement = connection.prepareStatement(revenueSql);
+             PreparedStatement dishStatement = connection.prepareStatement(dishSql)) {
+            for (RollupGranularity granularity : RollupGranularity.values()) {
+                long bucket = bucketStart(granularity, createdAtEpoch);
+                revenueStatement.setString(1, granularity.name());
+                revenueStatement.setLong(2, bucket);
+                revenueStatement.setLong(3, sign);
+                revenueStatement.setDouble(4, sign * revenue);
+                revenueStatement.addBatch();
+                for (Map.Entry<Long, DishTotal> line : byDish.entrySet()) {
+                    dishStatement.setString(1, granularity.name());
+                    dishStatement.setLong(2, bucket);
+                    dishStatement.setLong(3, line.getKey());
+                    dishStatement.setString(4, line.getValue().name);
+                    dishStatement.setLong(5, sign * line.getValue().quantity);
+                    dishStatement.setDouble(6, sign * line.getValue().revenue);
+                    dishStatement.addBatch();
+                }
+            }
+            revenueStatement.executeBatch();
+            if (!byDish.isEmpty()) {
+                dishStatement.executeBatch();
+            }
+        }
+    }
+
+    /**
+     * Empties both tables and sums them again from scratch; archived orders are decoded in Java, the active
+     * ones aggregated by SQLite. Also runs during migrations, before the pools exist, so the layout is read
+     * from {@code connection}.
+     */
+    public static void rebuild(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DELETE FROM revenue_rollup");
+            statement.execute("DELETE FROM dish_sales_rollup");
+        }
+        applyActive(connection, StorageFormat.detect(connection), "1 = 1", List.of(), 1);
+        String archiveSql = "SELECT created_at_epoch, items FROM orders_archive WHERE payer = 1";
+        try (PreparedStatement statement = connection.prepareStatement(archiveSql);
+             ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                applyOrder(connection, resultSet.getLong("created_at_epoch"), true,
+                        ArchivedItemsCodec.decode(resultSet.getBytes("items")), 1);
+            }
+        }
+    }
+
+    static long bucketStart(RollupGranularity granularity, long epochMillis) {
+        LocalDateTime dateTime = LocalDateTime.ofEpochSecond(Math.floorDiv(epochMillis, 1000L), 0, ZoneOffset.UTC);
+        return granularity.bucketStart(dateTime).toEpochSecond(ZoneOffset.UTC) * 1000L;
+    }
+
+    private static void applyActive(Connection connection, StorageFormat format, String condition,
+                                    List<Object> parameters, int sign) throws SQLException {
+        String lineRevenue = format.moneyExpression("sum(oi.quantity * oi.price)");
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            String bucket = bucketExpression(granularity);
+            String revenueSql = "INSERT INTO revenue_rollup(granularity, bucket_start, order_count, revenue) " +
+                    "SELECT ?, bucket, ? * count(*), ? * sum(order_revenue) FROM (" +
+                    "SELECT " + bucket + " AS bucket, (SELECT coalesce(" + lineRevenue + ", 0) " +
+                    "FROM order_items oi INNER JOIN dishes d ON oi.dish_id = d.id WHERE oi.order_id = o.id) AS order_revenue " +
+                    "FROM orders o WHERE o.payer = 1 AND (" + condition + ")) " +
+                    "WHERE true GROUP BY bucket " + REVENUE_UPSERT;
+            String dishSql = "INSERT INTO dish_sales_rollup(granularity, bucket_start, dish_id, dish_name, quantity, revenue) " +
+                    "SELECT ?, " + bucket + ", d.id, d.name, ? * sum(oi.quantity), ? * " + lineRevenue + " " +
+                    "FROM orders o INNER JOIN order_items oi ON oi.order_id = o.id INNER JOIN dishes d ON oi.dish_id = d.id " +
+                    "WHERE o.payer = 1 AND (" + condition + ") GROUP BY 2, d.id " + DISH_UPSERT;
+            for (String sql : List.of(revenueSql, dishSql)) {
+                List<Object> bound = new ArrayList<>(parameters.size() + 3);
+                bound.add(granularity.name());
+                bound.add(sign);
+                bound.add(sign);
+                bound.addAll(parameters);
+                try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                    for (int i = 0; i < bound.size(); i++) {
+                        statement.setObject(i + 1, bound.get(i));
+                    }
+                    statement.executeUpdate();
+                }
+            }
+        }
+    }
+
+    /**
+     * SQL twin of {@link #bucketStart}, computed from the epoch mirror so both agree on rounded timestamps.
+     */
+    private static String bucketExpression(RollupGranularity granularity) {
+        return switch (granularity) {
+            case HOUR -> "(o.created_at_epoch - o.created_at_epoch % 3600000)";
+            case DAY -> "(o.created_at_epoch - o.created_at_epoch % 86400000)";
+            case MONTH -> "(CAST(strftime('%s', o.created_at_epoch / 1000, 'unixepoch', 'start of month') AS INTEGER) * 1000)";
+        };
+    }
+
+    private static final class DishTotal {
+        private final String name;
+        private long quantity;
+        private double revenue;
+
+        private DishTotal(String name) {
+            this.name = name;
+        }
+    }
+}
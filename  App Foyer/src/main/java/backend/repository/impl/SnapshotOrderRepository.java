@@ -0,0 +1,151 @@
+package backend.repository.impl;
+
+import backend.config.SummarySnapshotSettings;
+import backend.entity.Order;
+import backend.entity.StatusOrder;
+import backend.repository.OrderCursor;
+import backend.repository.OrderPage;
+import backend.repository.OrderQuery;
+import backend.repository.OrderRepository;
+import backend.repository.OrderSummary;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Order repository that answers summary reads from an {@link OrderSummarySnapshot} while no order has been
+ * written since it was taken, so the order lists open without decoding rows from SQLite. Everything else,
+ * and every summary read once the snapshot is outdated, goes to the wrapped repository.
+ */
+public class SnapshotOrderRepository implements OrderRepository {
+    private final OrderRepository delegate;
+    private volatile OrderSummarySnapshot snapshot;
+
+    public SnapshotOrderRepository(OrderRepository delegate, OrderSummarySnapshot snapshot) {
+        this.delegate = delegate;
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * Wraps {@code repository} with the configured snapshot file, or returns it unchanged when snapshots are
+     * disabled. A missing, damaged or outdated file also leaves it unchanged, and a fresh snapshot is
+     * written in the background for the next start.
+     */
+    public static OrderRepository withConfiguredSnapshot(OrderRepository repository) {
+        SummarySnapshotSettings settings = SummarySnapshotSettings.fromSystemProperties();
+        if (!settings.isEnabled()) {
+            return repository;
+        }
+        Optional<OrderSummarySnapshot> snapshot = OrderSummarySnapshot.open(settings.getFile());
+        if (snapshot.isEmpty()) {
+            OrderSummarySnapshot.saveInBackground(settings.getFile());
+            return repository;
+        }
+        return new SnapshotOrderRepository(repository, snapshot.get());
+    }
+
+    @Override
+    public List<Order> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public List<Order> find(OrderQuery query) {
+        return delegate.find(query);
+    }
+
+    @Override
+    public OrderPage<Order> findPage(OrderQuery query, OrderCursor cursor) {
+        return delegate.findPage(query, cursor);
+    }
+
+    @Override
+    public void forEach(OrderQuery query, Consumer<Order> action) {
+        delegate.forEach(query, action);
+    }
+
+    @Override
+    public List<OrderSummary> findSummaries(OrderQuery query) {
+        OrderSummarySnapshot current = usableSnapshot(query);
+        return current != null ? current.find(query) : delegate.findSummaries(query);
+    }
+
+    @Override
+    public OrderPage<OrderSummary> findSummaryPage(OrderQuery query, OrderCursor cursor) {
+        OrderSummarySnapshot current = usableSnapshot(query);
+        return current != null ? current.findPage(query, cursor) : delegate.findSummaryPage(query, cursor);
+    }
+
+    @Override
+    public List<Long> search(String text, int limit) {
+        return delegate.search(text, limit);
+    }
+
+    @Override
+    public Optional<Order> findById(long id) {
+        return delegate.findById(id);
+    }
+
+    @Override
+    public long create(Order order) {
+        return delegate.create(order);
+    }
+
+    @Override
+    public void createAll(List<Order> orders) {
+        delegate.createAll(orders);
+    }
+
+    @Override
+    public int update(Order order) {
+        return delegate.update(order);
+    }
+
+    @Override
+    public boolean updateStatus(long id, StatusOrder status) {
+        return delegate.updateStatus(id, status);
+    }
+
+    @Override
+    public boolean markPaid(long id) {
+        return delegate.markPaid(id);
+    }
+
+    @Override
+    public void delete(long id) {
+        delegate.delete(id);
+    }
+
+    @Override
+    public int deleteCancelledBefore(LocalDateTime cutoff) {
+        return delegate.deleteCancelledBefore(cutoff);
+    }
+
+    @Override
+    public int archiveFinishedBefore(LocalDateTime cutoff) {
+        return delegate.archiveFinishedBefore(cutoff);
+    }
+
+    @Override
+    public int archiveFinishedBatch(LocalDateTime cutoff, int limit) {
+        return delegate.archiveFinishedBatch(cutoff, limit);
+    }
+
+    /**
+     * The snapshot when it can answer {@code query} and still matches the database. Writers from any
+     * repository or thread move the change counter, so an outdated snapshot is dropped for good.
+     */
+    private OrderSummarySnapshot usableSnapshot(OrderQuery query) {
+        OrderSummarySnapshot current = snapshot;
+        if (current == null || !current.canAnswer(query)) {
+            return null;
+        }
+        if (!current.isCurrent()) {
+            snapshot = null;
+            return null;
+        }
+        return current;
+    }
+}
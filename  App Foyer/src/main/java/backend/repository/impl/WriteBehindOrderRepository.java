@@ -0,0 +1,345 @@
+package backend.repository.impl;
+
+import backend.config.WriteBehindSettings;
+import backend.config.WriteBehindStats;
+import backend.entity.Order;
+import backend.entity.StatusOrder;
+import backend.repository.OrderCursor;
+import backend.repository.OrderPage;
+import backend.repository.OrderQuery;
+import backend.repository.OrderRepository;
+import backend.repository.OrderSummary;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Order repository that acknowledges new orders immediately and stores them from a dedicated writer
+ * thread, group-committing up to {@link WriteBehindSettings#getMaxBatchSize()} orders per transaction.
+ * <p>
+ * Ids are handed out up front, continuing from the last id SQLite assigned, so the id returned by
+ * {@link #create} is the one the row is stored under. This assumes no other process inserts orders into
+ * the same file while the application runs. {@link #findById} also sees queued orders; list queries see
+ * an order once its batch has committed. Every other write first waits for the queue to drain so it
+ * applies on top of the pending inserts.
+ */
+public class WriteBehindOrderRepository implements OrderRepository, AutoCloseable {
+    private static final long IDLE_POLL_MILLIS = 100L;
+
+    private final OrderRepository delegate;
+    private final WriteBehindSettings settings;
+    private final BlockingQueue<Order> queue;
+    private final Map<Long, Order> pending = new ConcurrentHashMap<>();
+    private final AtomicLong lastId;
+    private final Thread writer;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition drained = lock.newCondition();
+    private long submitted;
+    private long processed;
+    private volatile boolean closed;
+    private volatile WriteListener writeListener;
+
+    private final AtomicLong committed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong queueFullWaits = new AtomicLong();
+    private final AtomicLong totalCommitNanos = new AtomicLong();
+    private final AtomicLong maxCommitNanos = new AtomicLong();
+
+    public WriteBehindOrderRepository(OrderRepositoryImpl delegate, WriteBehindSettings settings) {
+        this(delegate, delegate, settings);
+    }
+
+    /**
+     * Reads and writes go through {@code delegate}, which may wrap {@code store}, e.g. in a
+     * {@link JournaledOrderRepository} so queued orders are journaled once their batch has committed.
+     * Ids continue from the last one {@code store} assigned.
+     */
+    public WriteBehindOrderRepository(OrderRepositoryImpl store, OrderRepository delegate, WriteBehindSettings settings) {
+        this.delegate = delegate;
+        this.settings = settings;
+        this.queue = new ArrayBlockingQueue<>(settings.getQueueCapacity());
+        this.lastId = new AtomicLong(store.findLastAssignedId());
+        this.writer = new Thread(this::runWriter, "order-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    public void setWriteListener(WriteListener writeListener) {
+        this.writeListener = writeListener;
+    }
+
+    /**
+     * Queues the order and returns its id without waiting for SQLite. Blocks only while the queue is full.
+     */
+    @Override
+    public long create(Order order) {
+        if (closed) {
+            throw new IllegalStateException("Order writer is closed");
+        }
+        long id = lastId.incrementAndGet();
+        Order queued = new Order(id, order.getCustomerName(), order.getStatus(), order.getCreatedAt(),
+                new ArrayList<>(order.getItems()), order.getMessage(), order.isPayer());
+        pending.put(id, queued);
+        lock.lock();
+        try {
+            submitted++;
+        } finally {
+            lock.unlock();
+        }
+        try {
+            if (!queue.offer(queued)) {
+                queueFullWaits.incrementAndGet();
+                queue.put(queued);
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            pending.remove(id);
+            markProcessed(1);
+            throw new RuntimeException("Interrupted while queueing order", exception);
+        }
+        return id;
+    }
+
+    /**
+     * Bulk inserts bypass the queue: pending orders are written first, then {@code orders} in one transaction.
+     * Orders without an id get one from the same sequence as queued orders.
+     */
+    @Override
+    public void createAll(List<Order> orders) {
+        flush();
+        for (Order order : orders) {
+            if (order.getId() == null) {
+                order.setId(lastId.incrementAndGet());
+            }
+        }
+        delegate.createAll(orders);
+    }
+
+    @Override
+    public List<Order> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public List<Order> find(OrderQuery query) {
+        return delegate.find(query);
+    }
+
+    @Override
+    public OrderPage<Order> findPage(OrderQuery query, OrderCursor cursor) {
+        return delegate.findPage(query, cursor);
+    }
+
+    @Override
+    public void forEach(OrderQuery query, Consumer<Order> action) {
+        delegate.forEach(query, action);
+    }
+
+    @Override
+    public List<OrderSummary> findSummaries(OrderQuery query) {
+        return delegate.findSummaries(query);
+    }
+
+    @Override
+    public OrderPage<OrderSummary> findSummaryPage(OrderQuery query, OrderCursor cursor) {
+        return delegate.findSummaryPage(query, cursor);
+    }
+
+    /**
+     * Queued orders become searchable once their batch has committed.
+     */
+    @Override
+    public List<Long> search(String text, int limit) {
+        return delegate.search(text, limit);
+    }
+
+    @Override
+    public Optional<Order> findById(long id) {
+        Order queued = pending.get(id);
+        return queued != null ? Optional.of(queued) : delegate.findById(id);
+    }
+
+    @Override
+    public int update(Order order) {
+        flush();
+        return delegate.update(order);
+    }
+
+    @Override
+    public boolean updateStatus(long id, StatusOrder status) {
+        flush();
+        return delegate.updateStatus(id, status);
+    }
+
+    @Override
+    public boolean markPaid(long id) {
+        flush();
+        return delegate.markPaid(id);
+    }
+
+    @Override
+    public void delete(long id) {
+        flush();
+        delegate.delete(id);
+    }
+
+    @Override
+    public int deleteCancelledBefore(LocalDateTime cutoff) {
+        flush();
+        return delegate.deleteCancelledBefore(cutoff);
+    }
+
+    @Override
+    public int archiveFinishedBefore(LocalDateTime cutoff) {
+        flush();
+        return delegate.archiveFinishedBefore(cutoff);
+    }
+
+    @Override
+    public int archiveFinishedBatch(LocalDateTime cutoff, int limit) {
+        flush();
+        return delegate.archiveFinishedBatch(cutoff, limit);
+    }
+
+    /**
+     * Blocks until every order queued before this call has been committed or has failed, and the
+     * {@link WriteListener} has been told.
+     */
+    public void flush() {
+        lock.lock();
+        try {
+            long target = submitted;
+            while (processed < target) {
+                drained.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public WriteBehindStats getStats() {
+        lock.lock();
+        try {
+            return new WriteBehindStats(queue.size(), submitted, committed.get(), failed.get(), batches.get(),
+                    queueFullWaits.get(), totalCommitNanos.get(), maxCommitNanos.get());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops accepting orders, writes what is still queued and stops the writer thread.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            writer.join();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runWriter() {
+        long flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(settings.getFlushIntervalMillis());
+        List<Order> batch = new ArrayList<>(settings.getMaxBatchSize());
+        while (true) {
+            try {
+                Order first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (closed && queue.isEmpty()) {
+                        return;
+                    }
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < settings.getMaxBatchSize()) {
+                    long remaining = deadline - System.nanoTime();
+                    Order next = remaining > 0 && !closed
+                            ? queue.poll(remaining, TimeUnit.NANOSECONDS)
+                            : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException exception) {
+                // keep running until closed; whatever was gathered is written below
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<Order> batch) {
+        List<Long> stored = new ArrayList<>(batch.size());
+        long start = System.nanoTime();
+        try {
+            delegate.createAll(batch);
+            batch.forEach(order -> stored.add(order.getId()));
+        } catch (RuntimeException batchFailure) {
+            // one bad order must not take the rest of the batch down with it
+            for (Order order : batch) {
+                try {
+                    delegate.createAll(List.of(order));
+                    stored.add(order.getId());
+                } catch (RuntimeException exception) {
+                    failed.incrementAndGet();
+                    WriteListener listener = writeListener;
+                    if (listener != null) {
+                        listener.onFailed(order, exception);
+                    }
+                }
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        batches.incrementAndGet();
+        totalCommitNanos.addAndGet(elapsed);
+        maxCommitNanos.accumulateAndGet(elapsed, Math::max);
+        committed.addAndGet(stored.size());
+        batch.forEach(order -> pending.remove(order.getId()));
+        WriteListener listener = writeListener;
+        try {
+            if (listener != null && !stored.isEmpty()) {
+                listener.onCommitted(stored);
+            }
+        } finally {
+            // only now, so flush() also covers the listener calls for the batch
+            markProcessed(batch.size());
+        }
+    }
+
+    private void markProcessed(int count) {
+        lock.lock();
+        try {
+            processed += count;
+            drained.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Called on the writer thread after each group commit.
+     */
+    public interface WriteListener {
+        void onCommitted(List<Long> orderIds);
+
+        void onFailed(Order order, RuntimeException exception);
+    }
+}
@@ -0,0 +1,70 @@
+package backend.service;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+/**
+ * Outcome of one database backup.
+ */
+public final class BackupReport {
+    private final LocalDateTime startedAt;
+    private final long durationMillis;
+    private final Path file;
+    private final long sizeBytes;
+    private final int backupsRemoved;
+    private final String error;
+
+    public BackupReport(LocalDateTime startedAt, long durationMillis, Path file, long sizeBytes, int backupsRemoved,
+                        String error) {
+        this.startedAt = startedAt;
+        this.durationMillis = durationMillis;
+        this.file = file;
+        this.sizeBytes = sizeBytes;
+        this.backupsRemoved = backupsRemoved;
+        this.error = error;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    /**
+     * The backup file written, or {@code null} when the run failed.
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    public long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    /**
+     * Older backups deleted by rotation after this one completed.
+     */
+    public int getBackupsRemoved() {
+        return backupsRemoved;
+    }
+
+    /**
+     * Message of the failure that stopped the backup, or {@code null} when it completed.
+     */
+    public String getError() {
+        return error;
+    }
+
+    public boolean isSuccessful() {
+        return error == null;
+    }
+
+    @Override
+    public String toString() {
+        return "BackupReport{startedAt=" + startedAt + ", durationMillis=" + durationMillis
+                + ", file=" + file + ", sizeBytes=" + sizeBytes + ", backupsRemoved=" + backupsRemoved
+                + (error != null ? ", error=" + error : "") + "}";
+    }
+}
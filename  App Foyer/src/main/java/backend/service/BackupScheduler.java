@@ -0,0 +1,172 @@
+package backend.service;
+
+import backend.config.DatabaseBackup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Backs up the database on a background thread while the application keeps running, keeping the most
+ * recent {@code keep} files in the backup directory. Settings can be overridden with
+ * {@code -Dfoyer.backup.directory}, {@code -Dfoyer.backup.intervalMinutes} (0 disables the schedule),
+ * {@code -Dfoyer.backup.initialDelaySeconds}, {@code -Dfoyer.backup.keep}, {@code -Dfoyer.backup.pagesPerStep}
+ * and {@code -Dfoyer.backup.stepPauseMillis}.
+ * <p>
+ * Orders still queued by the write-behind repository are not part of a backup until their batch commits.
+ */
+public class BackupScheduler implements AutoCloseable {
+    private static final String PREFIX = "foyer.backup.";
+    private static final String FILE_PREFIX = "restaurant-";
+    private static final String FILE_SUFFIX = ".db";
+    private static final DateTimeFormatter FILE_STAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final Path directory;
+    private final long initialDelaySeconds;
+    private final long intervalMinutes;
+    private final int keep;
+    private final int pagesPerStep;
+    private final long stepPauseMillis;
+    private final ScheduledExecutorService executor;
+    private volatile BackupReport lastReport;
+
+    public BackupScheduler(Path directory, long initialDelaySeconds, long intervalMinutes, int keep,
+                           int pagesPerStep, long stepPauseMillis) {
+        if (intervalMinutes < 0) {
+            throw new IllegalArgumentException("Backup interval cannot be negative");
+        }
+        if (keep < 1) {
+            throw new IllegalArgumentException("At least one backup must be kept");
+        }
+        if (pagesPerStep < 1) {
+            throw new IllegalArgumentException("Backup step must copy at least one page");
+        }
+        this.directory = directory;
+        this.initialDelaySeconds = initialDelaySeconds;
+        this.intervalMinutes = intervalMinutes;
+        this.keep = keep;
+        this.pagesPerStep = pagesPerStep;
+        this.stepPauseMillis = stepPauseMillis;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "db-backup");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static BackupScheduler fromSystemProperties() {
+        return new BackupScheduler(Paths.get(System.getProperty(PREFIX + "directory", "backups")),
+                Long.getLong(PREFIX + "initialDelaySeconds", 300),
+                Long.getLong(PREFIX + "intervalMinutes", 24 * 60),
+                Integer.getInteger(PREFIX + "keep", 7),
+                Integer.getInteger(PREFIX + "pagesPerStep", 256),
+                Long.getLong(PREFIX + "stepPauseMillis", 5));
+    }
+
+    /**
+     * Starts the periodic schedule, unless the interval is 0; manual backups work either way.
+     */
+    public void start() {
+        if (intervalMinutes > 0) {
+            executor.scheduleWithFixedDelay(this::runNow, initialDelaySeconds, intervalMinutes * 60, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Queues a backup on the background thread, after any run already in progress.
+     */
+    public CompletableFuture<BackupReport> runAsync() {
+        return CompletableFuture.supplyAsync(this::runNow, executor);
+    }
+
+    /**
+     * Runs one backup and rotation on the calling thread. Failures are recorded in the report rather than
+     * thrown so a bad run does not cancel the schedule.
+     */
+    public synchronized BackupReport runNow() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        long start = System.nanoTime();
+        Path file = null;
+        long size = 0;
+        int removed = 0;
+        String error = null;
+        try {
+            Path target = directory.resolve(FILE_PREFIX + FILE_STAMP.format(startedAt) + FILE_SUFFIX);
+            size = DatabaseBackup.backup(target, pagesPerStep, stepPauseMillis);
+            file = target;
+            removed = rotate();
+        } catch (SQLException | IOException | RuntimeException exception) {
+            error = exception.getMessage() != null ? exception.getMessage() : exception.toString();
+        }
+        BackupReport report = new BackupReport(startedAt, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                file, size, removed, error);
+        lastReport = report;
+        return report;
+    }
+
+    /**
+     * Report of the most recent backup, or {@code null} before the first one.
+     */
+    public BackupReport getLastReport() {
+        return lastReport;
+    }
+
+    /**
+     * Backups currently kept, newest first.
+     */
+    public List<Path> listBackups() {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> backups = new ArrayList<>();
+            files.filter(BackupScheduler::isBackupFile).forEach(backups::add);
+            // the timestamp in the name sorts chronologically
+            backups.sort(Comparator.comparing((Path path) -> path.getFileName().toString()).reversed());
+            return backups;
+        } catch (IOException exception) {
+            throw new RuntimeException("Failed to list backups", exception);
+        }
+    }
+
+    /**
+     * Stops the schedule and waits briefly for a backup in progress, so the pool can be closed afterwards.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private int rotate() throws IOException {
+        List<Path> backups = listBackups();
+        int removed = 0;
+        for (Path old : backups.subList(Math.min(keep, backups.size()), backups.size())) {
+            if (Files.deleteIfExists(old)) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    private static boolean isBackupFile(Path path) {
+        String name = path.getFileName().toString();
+        return name.startsWith(FILE_PREFIX) && name.endsWith(FILE_SUFFIX) && Files.isRegularFile(path);
+    }
+}
@@ -0,0 +1,401 @@
+package backend.service;
+
+import backend.entity.Dish;
+import backend.entity.DishCategory;
+import backend.entity.Order;
+import backend.entity.OrderItem;
+import backend.entity.StatusOrder;
+import backend.repository.DishRepository;
+import backend.repository.OrderQuery;
+import backend.repository.OrderRepository;
+import backend.transfer.CsvReader;
+import backend.transfer.CsvWriter;
+import backend.transfer.JsonReader;
+import backend.transfer.JsonWriter;
+import backend.transfer.TransferFormat;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * CSV and JSON import/export of the menu and the order history. Exports stream through
+ * {@link OrderRepository#forEach}; imports insert {@value #ORDER_IMPORT_BATCH} orders per transaction.
+ * <p>
+ * Both formats use the database column names. An order CSV has one row per item, repeating the order
+ * columns, so it opens directly in a spreadsheet; JSON nests the items. Dishes are matched by name, not id,
+ * so files can move between databases: a menu import updates the dishes it names and adds the others, and an
+ * order import creates any dish it does not find. Imported orders get new ids.
+ */
+public class DataTransferService {
+    private static final int ORDER_IMPORT_BATCH = 2000;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    private static final String[] DISH_COLUMNS = {"id", "name", "price", "category"};
+    private static final String[] ORDER_COLUMNS = {"order_id", "customer_name", "status", "created_at", "payer",
+            "message", "dish_id", "dish_name", "dish_category", "quantity", "price"};
+
+    private final DishRepository dishRepository;
+    private final OrderRepository orderRepository;
+
+    public DataTransferService(DishRepository dishRepository, OrderRepository orderRepository) {
+        this.dishRepository = dishRepository;
+        this.orderRepository = orderRepository;
+    }
+
+    public int exportDishes(Path file) {
+        List<Dish> dishes = dishRepository.findAll();
+        try {
+            if (TransferFormat.fromPath(file) == TransferFormat.CSV) {
+                try (CsvWriter csv = new CsvWriter(newWriter(file))) {
+                    csv.writeRow((Object[]) DISH_COLUMNS);
+                    for (Dish dish : dishes) {
+                        csv.writeRow(dish.getId(), dish.getName(), dish.getPrice(), dish.getCategory().name());
+                    }
+                }
+            } else {
+                try (JsonWriter json = new JsonWriter(newWriter(file))) {
+                    for (Dish dish : dishes) {
+                        Map<String, Object> object = new LinkedHashMap<>();
+                        object.put("id", dish.getId());
+                        object.put("name", dish.getName());
+                        object.put("price", dish.getPrice());
+                        object.put("category", dish.getCategory().name());
+                        json.writeElement(object);
+                    }
+                }
+            }
+            return dishes.size();
+        } catch (IOException exception) {
+            throw new RuntimeException("Failed to export dishes", exception);
+        }
+    }
+
+    /**
+     * Dishes named in the file are updated in place; new names are added. Everything is saved in one transaction.
+     *
+     * @return the number of dishes read
+     */
+    public int importDishes(Path file) {
+        Map<String, Dish> byName = indexByName(dishRepository.findAll());
+        Map<String, Dish> imported = new LinkedHashMap<>();
+        try {
+            if (TransferFormat.fromPath(file) == TransferFormat.CSV) {
+                try (CsvReader csv = new CsvReader(newReader(file))) {
+                    List<String> row;
+                    while ((row = csv.readRow()) != null) {
+                        Dish dish = mergeDish(byName, csv.get(row, "name"), csv.get(row, "price"),
+                                csv.get(row, "category"), "line " + csv.getLine());
+                        imported.put(key(dish.getName()), dish);
+                    }
+                }
+            } else {
+                try (JsonReader json = new JsonReader(newReader(file))) {
+                    Object element;
+                    while ((element = json.readElement()) != null) {
+                        Map<?, ?> object = asObject(element, json.getLine());
+                        Dish dish = mergeDish(byName, text(object.get("name")), text(object.get("price")),
+                                text(object.get("category")), "line " + json.getLine());
+                        imported.put(key(dish.getName()), dish);
+                    }
+                }
+            }
+        } catch (IOException exception) {
+            throw new RuntimeException("Failed to import dishes", exception);
+        }
+        dishRepository.saveAll(new ArrayList<>(imported.values()));
+        return imported.size();
+    }
+
+    /**
+     * Streams the orders matching {@code query}, archived ones included when the query asks for them.
+     *
+     * @return the number of orders written
+     */
+    public long exportOrders(Path file, OrderQuery query) {
+        long[] count = {0};
+        try {
+            if (TransferFormat.fromPath(file) == TransferFormat.CSV) {
+                try (CsvWriter csv = new CsvWriter(newWriter(file))) {
+                    csv.writeRow((Object[]) ORDER_COLUMNS);
+                    orderRepository.forEach(query, order -> {
+                        writeOrderRows(csv, order);
+                        count[0]++;
+                    });
+                }
+            } else {
+                try (JsonWriter json = new JsonWriter(newWriter(file))) {
+                    orderRepository.forEach(query, order -> {
+                        writeOrderElement(json, order);
+                        count[0]++;
+                    });
+                }
+            }
+            return count[0];
+        } catch (IOException | UncheckedIOException exception) {
+            throw new RuntimeException("Failed to export orders", exception);
+        }
+    }
+
+    /**
+     * Inserts the orders of the file under new ids, {@value #ORDER_IMPORT_BATCH} per transaction. A failing
+     * batch is rolled back; earlier batches stay imported. In a CSV file the rows of an order must follow each
+     * other: an {@code order_id} that comes back after another order is rejected rather than imported twice.
+     *
+     * @return the number of orders imported
+     */
+    public long importOrders(Path file) {
+        Map<String, Dish> dishes = indexByName(dishRepository.findAll());
+        List<Order> batch = new ArrayList<>(ORDER_IMPORT_BATCH);
+        long imported = 0;
+        try {
+            if (TransferFormat.fromPath(file) == TransferFormat.CSV) {
+                try (CsvReader csv = new CsvReader(newReader(file))) {
+                    Set<String> seenKeys = new HashSet<>();
+                    String currentKey = null;
+                    Order current = null;
+                    List<String> row;
+                    while ((row = csv.readRow()) != null) {
+                        String where = "line " + csv.getLine();
+                        String orderKey = required(csv.get(row, "order_id"), "order_id", where);
+                        if (!orderKey.equals(currentKey)) {
+                            if (!seenKeys.add(orderKey)) {
+                                throw new IllegalArgumentException("Rows of order_id " + orderKey
+                                        + " are not consecutive at " + where);
+                            }
+                            imported += add(batch, current);
+                            currentKey = orderKey;
+                            current = newOrder(csv.get(row, "customer_name"), csv.get(row, "status"),
+                                    csv.get(row, "created_at"), csv.get(row, "payer"), csv.get(row, "message"), where);
+                        }
+                        if (csv.get(row, "dish_name") != null) {
+                            current.getItems().add(newItem(dishes, csv.get(row, "dish_name"),
+                                    csv.get(row, "dish_category"), csv.get(row, "quantity"), csv.get(row, "price"), where));
+                        }
+                    }
+                    imported += add(batch, current);
+                }
+            } else {
+                try (JsonReader json = new JsonReader(newReader(file))) {
+                    Object element;
+                    while ((element = json.readElement()) != null) {
+                        String where = "line " + json.getLine();
+                        Map<?, ?> object = asObject(element, json.getLine());
+                        Order order = newOrder(text(object.get("customer_name")), text(object.get("status")),
+                                text(object.get("created_at")), text(object.get("payer")), text(object.get("message")), where);
+                        Object items = object.get("items");
+                        if (items instanceof List<?> list) {
+                            for (Object item : list) {
+                                Map<?, ?> line = asObject(item, json.getLine());
+                                order.getItems().add(newItem(dishes, text(line.get("dish_name")),
+                                        text(line.get("dish_category")), text(line.get("quantity")), text(line.get("price")), where));
+                            }
+                        }
+                        imported += add(batch, order);
+                    }
+                }
+            }
+        } catch (IOException exception) {
+            throw new RuntimeException("Failed to import orders", exception);
+        }
+        return imported + flush(batch);
+    }
+
+    private void writeOrderRows(CsvWriter csv, Order order) {
+        try {
+            String createdAt = order.getCreatedAt().format(FORMATTER);
+            if (order.getItems().isEmpty()) {
+                csv.writeRow(order.getId(), order.getCustomerName(), order.getStatus().name(), createdAt,
+                        order.isPayer(), order.getMessage(), null, null, null, null, null);
+                return;
+            }
+            for (OrderItem item : order.getItems()) {
+                Dish dish = item.getDish();
+                csv.writeRow(order.getId(), order.getCustomerName(), order.getStatus().name(), createdAt,
+                        order.isPayer(), order.getMessage(), dish.getId(), dish.getName(), dish.getCategory().name(),
+                        item.getQuantity(), item.getPrice());
+            }
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    private void writeOrderElement(JsonWriter json, Order order) {
+        Map<String, Object> object = new LinkedHashMap<>();
+        object.put("order_id", order.getId());
+        object.put("customer_name", order.getCustomerName());
+        object.put("status", order.getStatus().name());
+        object.put("created_at", order.getCreatedAt().format(FORMATTER));
+        object.put("payer", order.isPayer());
+        object.put("message", order.getMessage());
+        List<Object> items = new ArrayList<>(order.getItems().size());
+        for (OrderItem item : order.getItems()) {
+            Map<String, Object> line = new LinkedHashMap<>();
+            line.put("dish_id", item.getDish().getId());
+            line.put("dish_name", item.getDish().getName());
+            line.put("dish_category", item.getDish().getCategory().name());
+            line.put("quantity", item.getQuantity());
+            line.put("price", item.getPrice());
+            items.add(line);
+        }
+        object.put("items", items);
+        try {
+            json.writeElement(object);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    private int add(List<Order> batch, Order order) {
+        if (order == null) {
+            return 0;
+        }
+        batch.add(order);
+        return batch.size() >= ORDER_IMPORT_BATCH ? flush(batch) : 0;
+    }
+
+    private int flush(List<Order> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        orderRepository.createAll(batch);
+        int written = batch.size();
+        batch.clear();
+        return written;
+    }
+
+    private Order newOrder(String customerName, String status, String createdAt, String payer, String message,
+                           String where) {
+        Order order = new Order();
+        order.setCustomerName(required(customerName, "customer_name", where));
+        order.setStatus(status != null ? parseEnum(StatusOrder.class, status, where) : StatusOrder.ENCOURS);
+        try {
+            order.setCreatedAt(createdAt != null ? LocalDateTime.parse(createdAt, FORMATTER) : LocalDateTime.now());
+        } catch (DateTimeParseException exception) {
+            throw new IllegalArgumentException("Invalid created_at at " + where + ": " + createdAt);
+        }
+        order.setPayer(parseBoolean(payer));
+        order.setMessage(message);
+        order.setItems(new ArrayList<>());
+        return order;
+    }
+
+    /**
+     * Resolves the dish by name, creating it with the line's price when the menu does not have it.
+     */
+    private OrderItem newItem(Map<String, Dish> dishes, String dishName, String category, String quantity,
+                              String price, String where) {
+        String name = required(dishName, "dish_name", where);
+        double linePrice = parseDouble(required(price, "price", where), where);
+        Dish dish = dishes.get(key(name));
+        if (dish == null) {
+            dish = new Dish(name.trim(), linePrice,
+                    category != null ? parseEnum(DishCategory.class, category, where) : DishCategory.PLAT);
+            dishRepository.saveAll(List.of(dish));
+            dishes.put(key(name), dish);
+        }
+        int count;
+        try {
+            count = Integer.parseInt(required(quantity, "quantity", where).trim());
+        } catch (NumberFormatException exception) {
+            throw new IllegalArgumentException("Invalid quantity at " + where + ": " + quantity);
+        }
+        return new OrderItem(null, dish, count, linePrice);
+    }
+
+    private Dish mergeDish(Map<String, Dish> existing, String name, String price, String category, String where) {
+        String dishName = required(name, "name", where).trim();
+        double dishPrice = parseDouble(required(price, "price", where), where);
+        DishCategory dishCategory = parseEnum(DishCategory.class, required(category, "category", where), where);
+        Dish dish = existing.get(key(dishName));
+        if (dish == null) {
+            dish = new Dish(dishName, dishPrice, dishCategory);
+            existing.put(key(dishName), dish);
+        } else {
+            dish.setName(dishName);
+            dish.setPrice(dishPrice);
+            dish.setCategory(dishCategory);
+        }
+        return dish;
+    }
+
+    private static Map<String, Dish> indexByName(List<Dish> dishes) {
+        Map<String, Dish> byName = new HashMap<>();
+        dishes.forEach(dish -> byName.putIfAbsent(key(dish.getName()), dish));
+        return byName;
+    }
+
+    private static String key(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static Map<?, ?> asObject(Object element, long line) {
+        if (!(element instanceof Map<?, ?> object)) {
+            throw new IllegalArgumentException("Expected a JSON object at line " + line);
+        }
+        return object;
+    }
+
+    private static String text(Object value) {
+        return value != null ? value.toString() : null;
+    }
+
+    private static String required(String value, String column, String where) {
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Missing " + column + " at " + where);
+        }
+        return value;
+    }
+
+    /**
+     * Accepts a decimal comma, as written by spreadsheets in a French locale.
+     */
+    private static double parseDouble(String value, String where) {
+        try {
+            return Double.parseDouble(value.trim().replace(',', '.'));
+        } catch (NumberFormatException exception) {
+            throw new IllegalArgumentException("Invalid number at " + where + ": " + value);
+        }
+    }
+
+    private static boolean parseBoolean(String value) {
+        if (value == null) {
+            return false;
+        }
+        String normalized = value.trim().toLowerCase(Locale.ROOT);
+        return normalized.equals("true") || normalized.equals("1") || normalized.equals("oui");
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String value, String where) {
+        try {
+            return Enum.valueOf(type, value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException exception) {
+            throw new IllegalArgumentException("Invalid " + type.getSimpleName() + " at " + where + ": " + value);
+        }
+    }
+
+    private static BufferedWriter newWriter(Path file) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file), StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    private static BufferedReader newReader(Path file) throws IOException {
+        return new BufferedReader(new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+}
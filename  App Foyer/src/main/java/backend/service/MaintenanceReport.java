@@ -0,0 +1,69 @@
+package backend.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outcome of one maintenance pass.
+ */
+public final class MaintenanceReport {
+    private final LocalDateTime startedAt;
+    private final long durationMillis;
+    private final int rowsRemoved;
+    private final int ordersArchived;
+    private final long pagesFreed;
+    private final String error;
+
+    public MaintenanceReport(LocalDateTime startedAt, long durationMillis, int rowsRemoved, int ordersArchived,
+                             long pagesFreed, String error) {
+        this.startedAt = startedAt;
+        this.durationMillis = durationMillis;
+        this.rowsRemoved = rowsRemoved;
+        this.ordersArchived = ordersArchived;
+        this.pagesFreed = pagesFreed;
+        this.error = error;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    /**
+     * Order and item rows deleted by the cancelled-order purge.
+     */
+    public int getRowsRemoved() {
+        return rowsRemoved;
+    }
+
+    /**
+     * Finished orders moved to the archive tables.
+     */
+    public int getOrdersArchived() {
+        return ordersArchived;
+    }
+
+    public long getPagesFreed() {
+        return pagesFreed;
+    }
+
+    /**
+     * Message of the failure that stopped the pass, or {@code null} when it completed.
+     */
+    public String getError() {
+        return error;
+    }
+
+    public boolean isSuccessful() {
+        return error == null;
+    }
+
+    @Override
+    public String toString() {
+        return "MaintenanceReport{startedAt=" + startedAt + ", durationMillis=" + durationMillis
+                + ", rowsRemoved=" + rowsRemoved + ", ordersArchived=" + ordersArchived + ", pagesFreed=" + pagesFreed
+                + (error != null ? ", error=" + error : "") + "}";
+    }
+}
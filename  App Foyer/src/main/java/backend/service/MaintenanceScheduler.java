@@ -0,0 +1,105 @@
+package backend.service;
+
+import backend.config.DatabaseMaintenance;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs database housekeeping on a background thread: purges old cancelled orders, archives old
+ * finished ones, refreshes the planner statistics and releases free pages. Intervals can be overridden
+ * with {@code -Dfoyer.maintenance.intervalMinutes}, {@code -Dfoyer.maintenance.initialDelaySeconds},
+ * {@code -Dfoyer.maintenance.cancelledRetentionDays}, {@code -Dfoyer.maintenance.archiveAfterDays} and
+ * {@code -Dfoyer.maintenance.vacuumPagesPerPass}.
+ */
+public class MaintenanceScheduler implements AutoCloseable {
+    private static final String PREFIX = "foyer.maintenance.";
+
+    private final OrderService orderService;
+    private final long initialDelaySeconds;
+    private final long intervalMinutes;
+    private final int cancelledRetentionDays;
+    private final int archiveAfterDays;
+    private final long vacuumPagesPerPass;
+    private final ScheduledExecutorService executor;
+    private volatile MaintenanceReport lastReport;
+
+    public MaintenanceScheduler(OrderService orderService, long initialDelaySeconds, long intervalMinutes,
+                                int cancelledRetentionDays, int archiveAfterDays, long vacuumPagesPerPass) {
+        if (intervalMinutes < 1) {
+            throw new IllegalArgumentException("Maintenance interval must be at least one minute");
+        }
+        this.orderService = orderService;
+        this.initialDelaySeconds = initialDelaySeconds;
+        this.intervalMinutes = intervalMinutes;
+        this.cancelledRetentionDays = cancelledRetentionDays;
+        this.archiveAfterDays = archiveAfterDays;
+        this.vacuumPagesPerPass = vacuumPagesPerPass;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "db-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static MaintenanceScheduler fromSystemProperties(OrderService orderService) {
+        return new MaintenanceScheduler(orderService,
+                Long.getLong(PREFIX + "initialDelaySeconds", 30),
+                Long.getLong(PREFIX + "intervalMinutes", 60),
+                Integer.getInteger(PREFIX + "cancelledRetentionDays", 7),
+                Integer.getInteger(PREFIX + "archiveAfterDays", 90),
+                Long.getLong(PREFIX + "vacuumPagesPerPass", 2000));
+    }
+
+    public void start() {
+        executor.scheduleWithFixedDelay(this::runNow, initialDelaySeconds, intervalMinutes * 60, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Runs one pass on the calling thread. Failures are recorded in the report rather than thrown so a
+     * bad pass does not cancel the schedule.
+     */
+    public synchronized MaintenanceReport runNow() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        long start = System.nanoTime();
+        int rowsRemoved = 0;
+        int ordersArchived = 0;
+        long pagesFreed = 0;
+        String error = null;
+        try {
+            rowsRemoved = orderService.purgeCancelledOlderThanDays(cancelledRetentionDays);
+            ordersArchived = orderService.archiveFinishedOlderThanDays(archiveAfterDays);
+            DatabaseMaintenance.optimize();
+            pagesFreed = DatabaseMaintenance.incrementalVacuum(vacuumPagesPerPass);
+        } catch (SQLException | RuntimeException exception) {
+            error = exception.getMessage() != null ? exception.getMessage() : exception.toString();
+        }
+        MaintenanceReport report = new MaintenanceReport(startedAt,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), rowsRemoved, ordersArchived, pagesFreed, error);
+        lastReport = report;
+        return report;
+    }
+
+    /**
+     * Report of the most recent pass, or {@code null} before the first one.
+     */
+    public MaintenanceReport getLastReport() {
+        return lastReport;
+    }
+
+    /**
+     * Stops the schedule and waits briefly for a pass in progress, so the pool can be closed afterwards.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -7,11 +7,16 @@ import backend.entity.Order;
 import backend.entity.OrderItem;
 import backend.entity.StatusOrder;
 import backend.repository.DishRepository;
+import backend.repository.OrderCursor;
+import backend.repository.OrderPage;
+import backend.repository.OrderQuery;
 import backend.repository.OrderRepository;
+import backend.repository.OrderSummary;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 public class OrderService {
@@ -29,6 +34,41 @@ public class OrderService {
                 .collect(Collectors.toList());
     }
 
+    public List<OrderResponseDTO> findOrders(OrderQuery query) {
+        return orderRepository.find(query).stream()
+                .map(this::mapToResponse)
+                .collect(Collectors.toList());
+    }
+
+    public OrderPage<OrderResponseDTO> getOrderPage(OrderQuery query, OrderCursor cursor) {
+        return orderRepository.findPage(query, cursor).map(this::mapToResponse);
+    }
+
+    /**
+     * Streams the matching orders to {@code action} without holding the whole history in memory.
+     */
+    public void forEachOrder(OrderQuery query, Consumer<OrderResponseDTO> action) {
+        orderRepository.forEach(query, order -> action.accept(mapToResponse(order)));
+    }
+
+    /**
+     * Header-only rows for list screens; fetch the order with {@link #getOrder} once its items are needed.
+     */
+    public List<OrderSummary> findOrderSummaries(OrderQuery query) {
+        return orderRepository.findSummaries(query);
+    }
+
+    public OrderPage<OrderSummary> getOrderSummaryPage(OrderQuery query, OrderCursor cursor) {
+        return orderRepository.findSummaryPage(query, cursor);
+    }
+
+    /**
+     * Ids of the orders best matching {@code text}, for a search box; see {@link OrderRepository#search}.
+     */
+    public List<Long> searchOrderIds(String text, int limit) {
+        return orderRepository.search(text, limit);
+    }
+
     public Optional<OrderResponseDTO> getOrder(long orderId) {
         return orderRepository.findById(orderId).map(this::mapToResponse);
     }
@@ -46,16 +86,34 @@ public class OrderService {
         }
         Order order = mapToEntity(request);
         order.setId(request.getOrderId());
-        orderRepository.update(order);
+        if (orderRepository.update(order) == 0) {
+            throw new IllegalStateException("Order " + order.getId() + " is archived or no longer exists");
+        }
+    }
+
+    public boolean updateStatus(long orderId, StatusOrder status) {
+        if (status == null) {
+            throw new IllegalArgumentException("Status is required");
+        }
+        return orderRepository.updateStatus(orderId, status);
+    }
+
+    public boolean markPaid(long orderId) {
+        return orderRepository.markPaid(orderId);
     }
 
     public void deleteOrder(long id) {
         orderRepository.delete(id);
     }
 
-    public void purgeCancelledOlderThanDays(int days) {
+    public int purgeCancelledOlderThanDays(int days) {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(days);
+        return orderRepository.deleteCancelledBefore(cutoff);
+    }
+
+    public int archiveFinishedOlderThanDays(int days) {
         LocalDateTime cutoff = LocalDateTime.now().minusDays(days);
-        orderRepository.deleteCancelledBefore(cutoff);
+        return orderRepository.archiveFinishedBefore(cutoff);
     }
 
     private Order mapToEntity(OrderRequestDTO request) {
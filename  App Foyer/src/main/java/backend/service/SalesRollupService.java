@@ -0,0 +1,29 @@
+package backend.service;
+
+import backend.repository.DishSales;
+import backend.repository.RevenueBucket;
+import backend.repository.RollupGranularity;
+import backend.repository.SalesRollupRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class SalesRollupService {
+    private final SalesRollupRepository salesRollupRepository;
+
+    public SalesRollupService(SalesRollupRepository salesRollupRepository) {
+        this.salesRollupRepository = salesRollupRepository;
+    }
+
+    public List<RevenueBucket> getRevenue(RollupGranularity granularity, LocalDateTime from) {
+        return salesRollupRepository.findRevenue(granularity, from);
+    }
+
+    public List<DishSales> getDishSales(RollupGranularity granularity, LocalDateTime from) {
+        return salesRollupRepository.findDishSales(granularity, from);
+    }
+
+    public void rebuildRollups() {
+        salesRollupRepository.rebuild();
+    }
+}
@@ -0,0 +1,152 @@
+package backend.transfer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reads RFC 4180 rows one at a time; quoted fields may span lines. The first row is taken as the header, so
+ * columns are looked up by name and may come in any order. Fields are separated by commas, or by semicolons
+ * as spreadsheets save them in French locales: the first separator found in the header decides.
+ */
+public final class CsvReader implements Closeable {
+    private final Reader in;
+    private final Map<String, Integer> columns = new HashMap<>();
+    private char delimiter;
+    private int pending = -2;
+    private long line = 1;
+    private long rowLine;
+
+    public CsvReader(Reader in) throws IOException {
+        this.in = in;
+        // spreadsheets often save with a byte order mark, which would hide a quote opening the first field
+        if (peek() == '\uFEFF') {
+            read();
+        }
+        List<String> header = readRow();
+        if (header == null) {
+            throw new IllegalArgumentException("CSV file is empty");
+        }
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+    }
+
+    public boolean hasColumn(String name) {
+        return columns.containsKey(name);
+    }
+
+    /**
+     * Line on which the last row returned by {@link #readRow} started, for error messages.
+     */
+    public long getLine() {
+        return rowLine;
+    }
+
+    /**
+     * Value of {@code column} in {@code row}; {@code null} when the column is missing or the field is empty.
+     */
+    public String get(List<String> row, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= row.size()) {
+            return null;
+        }
+        String value = row.get(index);
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * @return the fields of the next row, or {@code null} at end of input; blank lines are skipped
+     */
+    public List<String> readRow() throws IOException {
+        List<String> row = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean sawAnything = false;
+        while (true) {
+            int c = read();
+            if (c == -1) {
+                if (!sawAnything) {
+                    return null;
+                }
+                row.add(field.toString());
+                return row;
+            }
+            if (quoted) {
+                if (c == '"') {
+                    if (peek() == '"') {
+                        read();
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    field.append((char) c);
+                }
+                continue;
+            }
+            if (c == '\r' || c == '\n') {
+                if (c == '\r' && peek() == '\n') {
+                    read();
+                }
+                line++;
+                if (!sawAnything) {
+                    continue;
+                }
+                row.add(field.toString());
+                return row;
+            }
+            if (!sawAnything) {
+                sawAnything = true;
+                rowLine = line;
+            }
+            if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (isDelimiter(c)) {
+                row.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append((char) c);
+            }
+        }
+    }
+
+    /**
+     * Until the header has shown which one is used, both separators count.
+     */
+    private boolean isDelimiter(int c) {
+        if (delimiter == 0 && (c == ',' || c == ';')) {
+            delimiter = (char) c;
+        }
+        return c == delimiter;
+    }
+
+    private int read() throws IOException {
+        if (pending != -2) {
+            int c = pending;
+            pending = -2;
+            return c;
+        }
+        return in.read();
+    }
+
+    private int peek() throws IOException {
+        if (pending == -2) {
+            pending = in.read();
+        }
+        return pending;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
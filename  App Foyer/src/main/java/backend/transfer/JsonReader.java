@@ -0,0 +1,245 @@
+package backend.transfer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the elements of a top-level JSON array one at a time, so imports only hold the current element.
+ * Objects come back as {@link Map}, arrays as {@link List}, integers as {@link Long}, other numbers as
+ * {@link Double}.
+ */
+public final class JsonReader implements Closeable {
+    private final Reader in;
+    private int pending = -2;
+    private boolean started;
+    private boolean finished;
+    private boolean firstElement = true;
+    private long line = 1;
+
+    public JsonReader(Reader in) {
+        this.in = in;
+    }
+
+    public long getLine() {
+        return line;
+    }
+
+    /**
+     * @return the next element of the array, or {@code null} once its closing bracket is reached
+     */
+    public Object readElement() throws IOException {
+        if (!started) {
+            expect('[');
+            started = true;
+        }
+        if (finished) {
+            return null;
+        }
+        if (peekToken() == ']') {
+            read();
+            finished = true;
+            return null;
+        }
+        if (!firstElement) {
+            expect(',');
+        }
+        firstElement = false;
+        Object value = readValue();
+        if (value == null) {
+            throw error("null is not a valid element");
+        }
+        return value;
+    }
+
+    private Object readValue() throws IOException {
+        int c = peekToken();
+        switch (c) {
+            case '{':
+                return readObject();
+            case '[':
+                return readArray();
+            case '"':
+                return readString();
+            case 't':
+                readLiteral("true");
+                return Boolean.TRUE;
+            case 'f':
+                readLiteral("false");
+                return Boolean.FALSE;
+            case 'n':
+                readLiteral("null");
+                return null;
+            default:
+                return readNumber();
+        }
+    }
+
+    private Map<String, Object> readObject() throws IOException {
+        expect('{');
+        Map<String, Object> object = new LinkedHashMap<>();
+        if (peekToken() == '}') {
+            read();
+            return object;
+        }
+        do {
+            if (peekToken() != '"') {
+                throw error("expected a field name");
+            }
+            String name = readString();
+            expect(':');
+            object.put(name, readValue());
+        } while (nextOrClose('}'));
+        return object;
+    }
+
+    private List<Object> readArray() throws IOException {
+        expect('[');
+        List<Object> array = new ArrayList<>();
+        if (peekToken() == ']') {
+            read();
+            return array;
+        }
+        do {
+            array.add(readValue());
+        } while (nextOrClose(']'));
+        return array;
+    }
+
+    private boolean nextOrClose(char close) throws IOException {
+        int c = peekToken();
+        read();
+        if (c == ',') {
+            return true;
+        }
+        if (c == close) {
+            return false;
+        }
+        throw error("expected ',' or '" + close + "'");
+    }
+
+    private String readString() throws IOException {
+        expect('"');
+        StringBuilder text = new StringBuilder();
+        while (true) {
+            int c = read();
+            if (c == -1) {
+                throw error("unterminated string");
+            }
+            if (c == '"') {
+                return text.toString();
+            }
+            if (c != '\\') {
+                text.append((char) c);
+                continue;
+            }
+            int escaped = read();
+            switch (escaped) {
+                case '"', '\\', '/' -> text.append((char) escaped);
+                case 'b' -> text.append('\b');
+                case 'f' -> text.append('\f');
+                case 'n' -> text.append('\n');
+                case 'r' -> text.append('\r');
+                case 't' -> text.append('\t');
+                case 'u' -> {
+                    char[] hex = new char[4];
+                    for (int i = 0; i < 4; i++) {
+                        int h = read();
+                        if (h == -1) {
+                            throw error("unterminated escape");
+                        }
+                        hex[i] = (char) h;
+                    }
+                    try {
+                        text.append((char) Integer.parseInt(new String(hex), 16));
+                    } catch (NumberFormatException exception) {
+                        throw error("invalid unicode escape");
+                    }
+                }
+                default -> throw error("invalid escape");
+            }
+        }
+    }
+
+    private Number readNumber() throws IOException {
+        StringBuilder number = new StringBuilder();
+        int c = peek();
+        while (c != -1 && (Character.isDigit(c) || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E')) {
+            number.append((char) read());
+            c = peek();
+        }
+        if (number.length() == 0) {
+            throw error("unexpected character");
+        }
+        String value = number.toString();
+        try {
+            if (value.indexOf('.') < 0 && value.indexOf('e') < 0 && value.indexOf('E') < 0) {
+                return Long.parseLong(value);
+            }
+            return Double.parseDouble(value);
+        } catch (NumberFormatException exception) {
+            throw error("invalid number " + value);
+        }
+    }
+
+    private void readLiteral(String literal) throws IOException {
+        for (int i = 0; i < literal.length(); i++) {
+            if (read() != literal.charAt(i)) {
+                throw error("expected " + literal);
+            }
+        }
+    }
+
+    private void expect(char expected) throws IOException {
+        if (peekToken() != expected) {
+            throw error("expected '" + expected + "'");
+        }
+        read();
+    }
+
+    /**
+     * Skips whitespace and returns the next character without consuming it.
+     */
+    private int peekToken() throws IOException {
+        int c = peek();
+        while (c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\uFEFF') {
+            read();
+            c = peek();
+        }
+        return c;
+    }
+
+    private int read() throws IOException {
+        int c;
+        if (pending != -2) {
+            c = pending;
+            pending = -2;
+        } else {
+            c = in.read();
+        }
+        if (c == '\n') {
+            line++;
+        }
+        return c;
+    }
+
+    private int peek() throws IOException {
+        if (pending == -2) {
+            pending = in.read();
+        }
+        return pending;
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("Invalid JSON at line " + line + ": " + message);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,102 @@
+package backend.transfer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streams a top-level JSON array, one element per line, so exports never hold more than the current element.
+ */
+public final class JsonWriter implements Closeable {
+    private final Writer out;
+    private boolean firstElement = true;
+
+    public JsonWriter(Writer out) throws IOException {
+        this.out = out;
+        out.write('[');
+    }
+
+    /**
+     * Appends one element: a map, list, string, number, boolean or {@code null}, nested freely.
+     */
+    public void writeElement(Object value) throws IOException {
+        out.write(firstElement ? "\n" : ",\n");
+        firstElement = false;
+        writeValue(value);
+    }
+
+    private void writeValue(Object value) throws IOException {
+        if (value == null) {
+            out.write("null");
+        } else if (value instanceof String text) {
+            writeString(text);
+        } else if (value instanceof Double number) {
+            if (number.isNaN() || number.isInfinite()) {
+                throw new IllegalArgumentException("JSON cannot represent " + number);
+            }
+            out.write(number.toString());
+        } else if (value instanceof Number || value instanceof Boolean) {
+            out.write(value.toString());
+        } else if (value instanceof Map<?, ?> map) {
+            out.write('{');
+            boolean first = true;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                if (!first) {
+                    out.write(',');
+                }
+                first = false;
+                writeString(String.valueOf(entry.getKey()));
+                out.write(':');
+                writeValue(entry.getValue());
+            }
+            out.write('}');
+        } else if (value instanceof List<?> list) {
+            out.write('[');
+            for (int i = 0; i < list.size(); i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                writeValue(list.get(i));
+            }
+            out.write(']');
+        } else {
+            writeString(value.toString());
+        }
+    }
+
+    private void writeString(String text) throws IOException {
+        out.write('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"' -> out.write("\\\"");
+                case '\\' -> out.write("\\\\");
+                case '\n' -> out.write("\\n");
+                case '\r' -> out.write("\\r");
+                case '\t' -> out.write("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.write(c);
+                    }
+                }
+            }
+        }
+        out.write('"');
+    }
+
+    /**
+     * Closes the array and the underlying writer.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            out.write(firstElement ? "]\n" : "\n]\n");
+        } finally {
+            out.close();
+        }
+    }
+}
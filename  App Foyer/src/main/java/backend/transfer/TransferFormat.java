@@ -0,0 +1,26 @@
+package backend.transfer;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * File formats accepted by the import and export commands.
+ */
+public enum TransferFormat {
+    CSV,
+    JSON;
+
+    /**
+     * Picks the format from the file extension.
+     */
+    public static TransferFormat fromPath(Path path) {
+        String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".csv")) {
+            return CSV;
+        }
+        if (name.endsWith(".json")) {
+            return JSON;
+        }
+        throw new IllegalArgumentException("Unsupported file type: " + path.getFileName());
+    }
+}
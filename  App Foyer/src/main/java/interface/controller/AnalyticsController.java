@@ -1,5 +1,7 @@
-import backend.controller.OrderController;
-import backend.dto.OrderResponseDTO;
+import backend.controller.SalesRollupController;
+import backend.repository.DishSales;
+import backend.repository.RevenueBucket;
+import backend.repository.RollupGranularity;
 import javafx.collections.FXCollections;
 import javafx.fxml.FXML;
 import javafx.scene.chart.LineChart;
@@ -8,29 +10,30 @@ import javafx.scene.chart.XYChart;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
 
-import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.Comparator;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
-import java.util.TreeMap;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 /**
- * Controller displaying analytics charts and KPIs for orders.
+ * Controller displaying analytics charts and KPIs for orders, read from the pre-aggregated sales rollups.
  */
 public class AnalyticsController {
+    private static final DateTimeFormatter HOUR_LABEL_FORMAT =
+            DateTimeFormatter.ofPattern("HH'h'", Locale.getDefault());
     private static final DateTimeFormatter DATE_LABEL_FORMAT =
             DateTimeFormatter.ofPattern("dd MMM", Locale.getDefault());
+    private static final DateTimeFormatter MONTH_LABEL_FORMAT =
+            DateTimeFormatter.ofPattern("MMM yyyy", Locale.getDefault());
 
     @FXML
     private ComboBox<String> periodFilterComboBox;
     @FXML
     private LineChart<String, Number> revenueChart;
     @FXML
+    private Label revenueChartTitle;
+    @FXML
     private PieChart dishPieChart;
     @FXML
     private Label totalOrdersLabel;
@@ -39,7 +42,7 @@ public class AnalyticsController {
     @FXML
     private Label averageTicketLabel;
 
-    private OrderController orderController;
+    private SalesRollupController salesRollupController;
     private PeriodFilter currentFilter = PeriodFilter.ALL;
 
     @FXML
@@ -60,8 +63,8 @@ public class AnalyticsController {
         }
     }
 
-    public void setOrderController(OrderController orderController) {
-        this.orderController = orderController;
+    public void setSalesRollupController(SalesRollupController salesRollupController) {
+        this.salesRollupController = salesRollupController;
     }
 
     @FXML
@@ -69,80 +72,81 @@ public class AnalyticsController {
         refreshAnalytics();
     }
 
+    @FXML
+    private void handleRebuild() {
+        if (salesRollupController == null) {
+            return;
+        }
+        salesRollupController.rebuildRollups();
+        refreshAnalytics();
+    }
+
     public void refreshAnalytics() {
-        if (orderController == null) {
+        if (salesRollupController == null) {
             clearUi();
             return;
         }
-        List<OrderResponseDTO> orders = orderController.listOrders();
-        List<OrderResponseDTO> filtered = orders.stream()
-                .filter(this::matchesFilter)
-                .filter(OrderResponseDTO::isPayer)
-                .collect(Collectors.toList());
-        updateRevenueChart(filtered);
-        updateDishPieChart(filtered);
-        updateStats(filtered);
+        RollupGranularity granularity = currentFilter.granularity;
+        LocalDateTime from = periodStart();
+        List<RevenueBucket> revenue = salesRollupController.getRevenue(granularity, from);
+        updateRevenueChart(revenue, granularity);
+        updateDishPieChart(salesRollupController.getDishSales(granularity, from));
+        updateStats(revenue);
     }
 
-    private void updateRevenueChart(List<OrderResponseDTO> orders) {
+    private void updateRevenueChart(List<RevenueBucket> buckets, RollupGranularity granularity) {
         revenueChart.getData().clear();
-        if (orders.isEmpty()) {
-            return;
+        if (revenueChartTitle != null) {
+            revenueChartTitle.setText(switch (granularity) {
+                case HOUR -> "Revenus par heure";
+                case DAY -> "Revenus quotidiens";
+                case MONTH -> "Revenus mensuels";
+            });
         }
-        Map<LocalDate, Double> totalsByDate = new TreeMap<>();
-        for (OrderResponseDTO order : orders) {
-            LocalDate date = order.getCreatedAt() != null
-                    ? order.getCreatedAt().toLocalDate()
-                    : LocalDate.now();
-            totalsByDate.merge(date, order.getTotal(), Double::sum);
+        if (buckets.isEmpty()) {
+            return;
         }
+        DateTimeFormatter labelFormat = switch (granularity) {
+            case HOUR -> HOUR_LABEL_FORMAT;
+            case DAY -> DATE_LABEL_FORMAT;
+            case MONTH -> MONTH_LABEL_FORMAT;
+        };
         XYChart.Series<String, Number> series = new XYChart.Series<>();
-        totalsByDate.forEach((date, total) ->
-                series.getData().add(new XYChart.Data<>(DATE_LABEL_FORMAT.format(date), total)));
+        buckets.forEach(bucket -> series.getData().add(
+                new XYChart.Data<>(labelFormat.format(bucket.getBucketStart()), bucket.getRevenue())));
         series.setName("Chiffre d'affaires");
         revenueChart.getData().add(series);
     }
 
-    private void updateDishPieChart(List<OrderResponseDTO> orders) {
+    private void updateDishPieChart(List<DishSales> sales) {
         dishPieChart.getData().clear();
-        if (orders.isEmpty()) {
+        if (sales.isEmpty()) {
             return;
         }
-        Map<String, Double> revenueByDish = orders.stream()
-                .flatMap(order -> order.getItems() != null ? order.getItems().stream() : Stream.empty())
-                .collect(Collectors.groupingBy(
-                        OrderResponseDTO.OrderItemResponse::getDishName,
-                        Collectors.summingDouble(item -> item.getPrice() * item.getQuantity())
-                ));
         dishPieChart.setData(FXCollections.observableArrayList(
-                revenueByDish.entrySet().stream()
-                        .sorted(Map.Entry.comparingByValue(Comparator.reverseOrder()))
-                        .map(entry -> new PieChart.Data(entry.getKey(), entry.getValue()))
+                sales.stream()
+                        .map(dish -> new PieChart.Data(dish.getDishName(), dish.getRevenue()))
                         .collect(Collectors.toList())
         ));
     }
 
-    private void updateStats(List<OrderResponseDTO> orders) {
-        int totalOrders = orders.size();
-        double revenue = orders.stream().mapToDouble(OrderResponseDTO::getTotal).sum();
+    private void updateStats(List<RevenueBucket> buckets) {
+        long totalOrders = buckets.stream().mapToLong(RevenueBucket::getOrderCount).sum();
+        double revenue = buckets.stream().mapToDouble(RevenueBucket::getRevenue).sum();
         double averageTicket = totalOrders > 0 ? revenue / totalOrders : 0.0;
         totalOrdersLabel.setText(String.valueOf(totalOrders));
         revenueLabel.setText(String.format(Locale.getDefault(), "%.2f €", revenue));
         averageTicketLabel.setText(String.format(Locale.getDefault(), "%.2f €", averageTicket));
     }
 
-    private boolean matchesFilter(OrderResponseDTO order) {
-        if (order.getCreatedAt() == null || currentFilter == PeriodFilter.ALL) {
-            return currentFilter == PeriodFilter.ALL || order.getCreatedAt() != null;
-        }
-        LocalDateTime createdAt = order.getCreatedAt();
+    private LocalDateTime periodStart() {
         LocalDateTime now = LocalDateTime.now();
         return switch (currentFilter) {
-            case ONE_DAY -> !createdAt.isBefore(now.minusDays(1));
-            case ONE_MONTH -> !createdAt.isBefore(now.minusMonths(1));
-            case THREE_MONTHS -> !createdAt.isBefore(now.minusMonths(3));
-            case ONE_YEAR -> !createdAt.isBefore(now.minusYears(1));
-            default -> true;
+            case ONE_DAY -> now.minusDays(1);
+            case ONE_MONTH -> now.minusMonths(1);
+            case THREE_MONTHS -> now.minusMonths(3);
+            case ONE_YEAR -> now.minusYears(1);
+            default -> null;
         };
     }
 
@@ -154,17 +158,23 @@ public class AnalyticsController {
         averageTicketLabel.setText("-");
     }
 
+    /**
+     * Each period reads the coarsest rollup that still gives a useful chart, so a refresh scans at most a few
+     * hundred rows; the window is widened to whole buckets.
+     */
     private enum PeriodFilter {
-        ALL("Tous"),
-        ONE_DAY("1 jour"),
-        ONE_MONTH("1 mois"),
-        THREE_MONTHS("3 mois"),
-        ONE_YEAR("1 an");
+        ALL("Tous", RollupGranularity.MONTH),
+        ONE_DAY("1 jour", RollupGranularity.HOUR),
+        ONE_MONTH("1 mois", RollupGranularity.DAY),
+        THREE_MONTHS("3 mois", RollupGranularity.DAY),
+        ONE_YEAR("1 an", RollupGranularity.DAY);
 
         private final String display;
+        private final RollupGranularity granularity;
 
-        PeriodFilter(String display) {
+        PeriodFilter(String display, RollupGranularity granularity) {
             this.display = display;
+            this.granularity = granularity;
         }
 
         private static PeriodFilter fromDisplay(String value) {
@@ -1,25 +1,54 @@
+import backend.controller.DataTransferController;
 import backend.controller.DishController;
 import backend.controller.OrderController;
+import backend.controller.SalesRollupController;
 import backend.controller.TicketController;
 import backend.dto.DishRequestDTO;
 import backend.dto.OrderRequestDTO;
+import backend.config.WriteBehindSettings;
 import backend.dto.OrderResponseDTO;
+import backend.entity.Order;
 import backend.entity.StatusOrder;
+import backend.repository.DishRepository;
+import backend.repository.OrderRepository;
+import backend.repository.OrderSummary;
+import backend.repository.SalesRollupRepository;
 import backend.repository.impl.DishRepositoryImpl;
+import backend.repository.impl.InMemoryDishRepository;
+import backend.repository.impl.InMemoryOrderRepository;
+import backend.repository.impl.InMemorySalesRollupRepository;
+import backend.repository.impl.InMemoryStore;
+import backend.repository.impl.JournaledOrderRepository;
 import backend.repository.impl.OrderRepositoryImpl;
+import backend.repository.impl.SalesRollupRepositoryImpl;
+import backend.repository.impl.SnapshotOrderRepository;
+import backend.repository.impl.WriteBehindOrderRepository;
+import backend.service.BackupReport;
+import backend.service.BackupScheduler;
+import backend.service.DataTransferService;
 import backend.service.DishService;
 import backend.service.JavaxPrinterClient;
 import backend.service.OrderService;
 import backend.service.PlainTextTicketFormatter;
 import backend.service.PrinterClient;
+import backend.service.SalesRollupService;
 import backend.service.TicketFormatter;
 import backend.service.TicketPrinterService;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
+import javafx.stage.FileChooser;
 
+import java.io.File;
+import java.nio.file.Path;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * Root controller wires repository/service layer into the UI.
@@ -27,6 +56,7 @@ import java.util.Locale;
 public class MainViewController {
     private static final DateTimeFormatter ORDER_DETAILS_FORMATTER =
             DateTimeFormatter.ofPattern("dd MMM yyyy HH:mm", Locale.getDefault());
+    private static final int HISTORY_PAGE_SIZE = 50;
     @FXML
     private TextField searchField;
 
@@ -53,19 +83,32 @@ public class MainViewController {
     private OrderController orderController;
     private DishController dishController;
     private TicketController ticketController;
+    private DataTransferController dataTransferController;
+    private WriteBehindOrderRepository writeBehindRepository;
+    private BackupScheduler backupScheduler;
+    private final AtomicBoolean refreshScheduled = new AtomicBoolean();
 
     @FXML
     public void initialize() {
-        DishRepositoryImpl dishRepository = new DishRepositoryImpl();
-        OrderRepositoryImpl orderRepository = new OrderRepositoryImpl();
+        boolean memoryStorage = InMemoryStore.isSelected();
+        DishRepository dishRepository = memoryStorage
+                ? new InMemoryDishRepository(InMemoryStore.shared())
+                : new DishRepositoryImpl();
+        OrderRepository orderRepository = memoryStorage
+                ? JournaledOrderRepository.withSharedJournal(new InMemoryOrderRepository(InMemoryStore.shared()))
+                : createOrderRepository();
+        SalesRollupRepository salesRollupRepository = memoryStorage
+                ? new InMemorySalesRollupRepository(InMemoryStore.shared())
+                : new SalesRollupRepositoryImpl();
         DishService dishService = new DishService(dishRepository);
         OrderService orderService = new OrderService(orderRepository, dishRepository);
         dishController = new DishController(dishService); // placeholder for future menu management
         orderController = new OrderController(orderService);
-        purgeOldCancelledOrders();
+        dataTransferController = new DataTransferController(new DataTransferService(dishRepository, orderRepository));
         initializeTicketPrinter(orderRepository);
         if (analyticsController != null) {
-            analyticsController.setOrderController(orderController);
+            analyticsController.setSalesRollupController(
+                    new SalesRollupController(new SalesRollupService(salesRollupRepository)));
             analyticsController.refreshAnalytics();
         }
 
@@ -76,27 +119,27 @@ public class MainViewController {
             orderListController.setTitle("Commandes actives");
             orderListController.setOrderActionListener(new OrderListController.OrderActionListener() {
                 @Override
-                public void onCancel(OrderResponseDTO order) {
+                public void onCancel(OrderSummary order) {
                     handleCancelOrder(order);
                 }
 
                 @Override
-                public void onModify(OrderResponseDTO order) {
+                public void onModify(OrderSummary order) {
                     if (orderComposerController != null) {
                         if (rootTabPane != null && newOrderTab != null) {
                             rootTabPane.getSelectionModel().select(newOrderTab);
                         }
-                        orderComposerController.editOrder(order);
+                        loadOrder(order).ifPresent(orderComposerController::editOrder);
                     }
                 }
 
                 @Override
-                public void onPrint(OrderResponseDTO order) {
+                public void onPrint(OrderSummary order) {
                     handlePrintOrder(order);
                 }
 
                 @Override
-                public void onRecuperer(OrderResponseDTO order) {
+                public void onRecuperer(OrderSummary order) {
                     handleRecupererOrder(order);
                 }
             });
@@ -106,30 +149,32 @@ public class MainViewController {
             passedOrderListController.setOrderController(orderController);
             passedOrderListController.setAllowedStatuses(List.of(StatusOrder.FINI));
             passedOrderListController.setTimeFilterEnabled(true);
+            passedOrderListController.setPageSize(HISTORY_PAGE_SIZE);
+            passedOrderListController.setArchiveIncluded(true);
             passedOrderListController.setTitle("Commandes terminées");
             passedOrderListController.setOrderActionListener(new OrderListController.OrderActionListener() {
                 @Override
-                public void onCancel(OrderResponseDTO order) {
+                public void onCancel(OrderSummary order) {
                     handleCancelOrder(order);
                 }
 
                 @Override
-                public void onModify(OrderResponseDTO order) {
+                public void onModify(OrderSummary order) {
                     if (orderComposerController != null) {
                         if (rootTabPane != null && newOrderTab != null) {
                             rootTabPane.getSelectionModel().select(newOrderTab);
                         }
-                        orderComposerController.editOrder(order);
+                        loadOrder(order).ifPresent(orderComposerController::editOrder);
                     }
                 }
 
                 @Override
-                public void onPrint(OrderResponseDTO order) {
+                public void onPrint(OrderSummary order) {
                     handlePrintOrder(order);
                 }
 
                 @Override
-                public void onRecuperer(OrderResponseDTO order) {
+                public void onRecuperer(OrderSummary order) {
                     handleRecupererOrder(order);
                 }
             });
@@ -139,30 +184,31 @@ public class MainViewController {
             cancelledOrderListController.setOrderController(orderController);
             cancelledOrderListController.setAllowedStatuses(List.of(StatusOrder.ANNULER));
             cancelledOrderListController.setTimeFilterEnabled(true);
+            cancelledOrderListController.setPageSize(HISTORY_PAGE_SIZE);
             cancelledOrderListController.setTitle("Commandes annulées");
             cancelledOrderListController.setOrderActionListener(new OrderListController.OrderActionListener() {
                 @Override
-                public void onCancel(OrderResponseDTO order) {
+                public void onCancel(OrderSummary order) {
                     // already cancelled; no-op but keep consistent
                 }
 
                 @Override
-                public void onModify(OrderResponseDTO order) {
+                public void onModify(OrderSummary order) {
                     if (orderComposerController != null) {
                         if (rootTabPane != null && newOrderTab != null) {
                             rootTabPane.getSelectionModel().select(newOrderTab);
                         }
-                        orderComposerController.editOrder(order);
+                        loadOrder(order).ifPresent(orderComposerController::editOrder);
                     }
                 }
 
                 @Override
-                public void onPrint(OrderResponseDTO order) {
+                public void onPrint(OrderSummary order) {
                     handlePrintOrder(order);
                 }
 
                 @Override
-                public void onRecuperer(OrderResponseDTO order) {
+                public void onRecuperer(OrderSummary order) {
                     handleRecupererOrder(order);
                 }
             });
@@ -184,7 +230,7 @@ public class MainViewController {
                 }
             });
         }
-        statusLabel.setText("Prêt");
+        statusLabel.setText(memoryStorage ? "Prêt (mode formation, commandes en mémoire)" : "Prêt");
     }
 
     @FXML
@@ -222,12 +268,7 @@ public class MainViewController {
         AddDishDialog.show().ifPresent(dto -> {
             try {
                 dishController.addDish(dto);
-                if (dishGridController != null) {
-                    dishGridController.refreshDishes();
-                }
-                if (orderComposerController != null) {
-                    orderComposerController.refreshDishes();
-                }
+                refreshDishViews();
                 statusLabel.setText("Plat ajouté");
             } catch (RuntimeException exception) {
                 showError("Impossible d'ajouter le plat", exception.getMessage());
@@ -235,6 +276,127 @@ public class MainViewController {
         });
     }
 
+    @FXML
+    private void handleImportDishes() {
+        chooseTransferFile("Importer le menu", false).ifPresent(file -> runTransfer("Import du menu en cours...",
+                () -> dataTransferController.importDishes(file),
+                count -> {
+                    refreshDishViews();
+                    statusLabel.setText(count + " plats importés");
+                },
+                "Impossible d'importer le menu", () -> { }));
+    }
+
+    @FXML
+    private void handleExportDishes() {
+        chooseTransferFile("Exporter le menu", true).ifPresent(file -> runTransfer("Export du menu en cours...",
+                () -> dataTransferController.exportDishes(file),
+                count -> statusLabel.setText(count + " plats exportés"),
+                "Impossible d'exporter le menu", () -> { }));
+    }
+
+    @FXML
+    private void handleImportOrders() {
+        chooseTransferFile("Importer l'historique", false).ifPresent(file -> runTransfer("Import de l'historique en cours...",
+                () -> dataTransferController.importOrders(file),
+                count -> {
+                    refreshDishViews();
+                    refreshOrderLists();
+                    statusLabel.setText(count + " commandes importées");
+                },
+                // batches committed before the failure stay imported
+                "Impossible d'importer l'historique", () -> {
+                    refreshDishViews();
+                    refreshOrderLists();
+                }));
+    }
+
+    @FXML
+    private void handleExportOrders() {
+        chooseTransferFile("Exporter l'historique", true).ifPresent(file -> runTransfer("Export de l'historique en cours...",
+                () -> dataTransferController.exportOrders(file),
+                count -> statusLabel.setText(count + " commandes exportées"),
+                "Impossible d'exporter l'historique", () -> { }));
+    }
+
+    /**
+     * Runs an import or export on the transfer thread and reports back on the JavaFX thread.
+     */
+    private <T> void runTransfer(String progress, Supplier<T> transfer, Consumer<T> onSuccess,
+                                 String errorTitle, Runnable onFailure) {
+        statusLabel.setText(progress);
+        dataTransferController.runAsync(transfer).whenComplete((result, failure) -> Platform.runLater(() -> {
+            if (failure == null) {
+                onSuccess.accept(result);
+                return;
+            }
+            Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                    ? failure.getCause() : failure;
+            onFailure.run();
+            statusLabel.setText(errorTitle);
+            showError(errorTitle, cause.getMessage() != null ? cause.getMessage() : cause.toString());
+        }));
+    }
+
+    /**
+     * Supplied by {@code App}, which owns the schedule; without it the manual backup entry does nothing.
+     */
+    public void setBackupScheduler(BackupScheduler backupScheduler) {
+        this.backupScheduler = backupScheduler;
+    }
+
+    @FXML
+    private void handleBackupNow() {
+        if (backupScheduler == null) {
+            return;
+        }
+        statusLabel.setText("Sauvegarde en cours...");
+        backupScheduler.runAsync().thenAccept(report -> Platform.runLater(() -> showBackupReport(report)));
+    }
+
+    private void showBackupReport(BackupReport report) {
+        if (!report.isSuccessful()) {
+            statusLabel.setText("Sauvegarde échouée");
+            showError("Impossible de sauvegarder la base", report.getError());
+            return;
+        }
+        statusLabel.setText(String.format(Locale.FRANCE, "Sauvegarde %s (%.1f Mo, %d ms)",
+                report.getFile().getFileName(), report.getSizeBytes() / (1024.0 * 1024.0), report.getDurationMillis()));
+    }
+
+    private Optional<Path> chooseTransferFile(String title, boolean save) {
+        if (dataTransferController == null) {
+            return Optional.empty();
+        }
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle(title);
+        chooser.getExtensionFilters().setAll(
+                new FileChooser.ExtensionFilter("CSV", "*.csv"),
+                new FileChooser.ExtensionFilter("JSON", "*.json"));
+        File file = save
+                ? chooser.showSaveDialog(statusLabel.getScene().getWindow())
+                : chooser.showOpenDialog(statusLabel.getScene().getWindow());
+        if (file == null) {
+            return Optional.empty();
+        }
+        String name = file.getName().toLowerCase(Locale.ROOT);
+        if (save && !name.endsWith(".csv") && !name.endsWith(".json")) {
+            boolean json = chooser.getSelectedExtensionFilter() != null
+                    && chooser.getSelectedExtensionFilter().getDescription().equals("JSON");
+            file = new File(file.getPath() + (json ? ".json" : ".csv"));
+        }
+        return Optional.of(file.toPath());
+    }
+
+    private void refreshDishViews() {
+        if (dishGridController != null) {
+            dishGridController.refreshDishes();
+        }
+        if (orderComposerController != null) {
+            orderComposerController.refreshDishes();
+        }
+    }
+
     private void showError(String title, String message) {
         Alert alert = new Alert(Alert.AlertType.ERROR);
         alert.setTitle(title);
@@ -270,60 +432,45 @@ public class MainViewController {
         }
     }
 
-    private void handleCancelOrder(OrderResponseDTO order) {
+    private void handleCancelOrder(OrderSummary order) {
         if (orderController == null || order == null || order.getStatus() == StatusOrder.ANNULER) {
             return;
         }
-        OrderRequestDTO request = buildUpdateRequest(order, StatusOrder.ANNULER);
         try {
-            orderController.updateOrder(request);
+            boolean changed = orderController.updateStatus(order.getId(), StatusOrder.ANNULER);
             refreshOrderLists();
-            statusLabel.setText("Commande n°" + order.getId() + " annulée");
+            statusLabel.setText("Commande n°" + order.getId() + (changed
+                    ? " annulée"
+                    : " inchangée : déjà annulée, archivée ou supprimée"));
         } catch (RuntimeException exception) {
             showError("Impossible d'annuler la commande", exception.getMessage());
         }
     }
 
-    private void handleRecupererOrder(OrderResponseDTO order) {
+    private void handleRecupererOrder(OrderSummary order) {
         if (orderController == null || order == null) {
             return;
         }
-        OrderRequestDTO request = buildUpdateRequest(order, StatusOrder.FINI);
-        request.setPayer(order.isPayer());
         try {
-            orderController.updateOrder(request);
+            boolean changed = orderController.updateStatus(order.getId(), StatusOrder.FINI);
             refreshOrderLists();
-            statusLabel.setText("Commande n°" + order.getId() + " marquée FINI");
+            statusLabel.setText("Commande n°" + order.getId() + (changed
+                    ? " marquée FINI"
+                    : " inchangée : déjà terminée, archivée ou supprimée"));
         } catch (RuntimeException exception) {
             showError("Impossible de marquer comme terminée", exception.getMessage());
         }
     }
 
-    private OrderRequestDTO buildUpdateRequest(OrderResponseDTO order, StatusOrder newStatus) {
-        OrderRequestDTO request = new OrderRequestDTO();
-        request.setOrderId(order.getId());
-        request.setCustomerName(order.getCustomerName());
-        request.setStatus(newStatus != null ? newStatus : order.getStatus());
-        if (order.getMessage() != null && !order.getMessage().isBlank()) {
-            request.setMessage(order.getMessage());
+    private void handlePrintOrder(OrderSummary summary) {
+        if (summary == null) {
+            return;
         }
-        request.setPayer(order.isPayer());
-        order.getItems().forEach(item -> {
-            if (item.getDishId() <= 0) {
-                return;
-            }
-            OrderRequestDTO.OrderItemRequest itemRequest = new OrderRequestDTO.OrderItemRequest();
-            itemRequest.setDishId(item.getDishId());
-            itemRequest.setQuantity(item.getQuantity());
-            request.addItem(itemRequest);
-        });
-        return request;
-    }
-
-    private void handlePrintOrder(OrderResponseDTO order) {
-        if (order == null) {
+        Optional<OrderResponseDTO> loaded = loadOrder(summary);
+        if (loaded.isEmpty()) {
             return;
         }
+        OrderResponseDTO order = loaded.get();
         if (!showPrintConfirmation(order)) {
             if (statusLabel != null) {
                 statusLabel.setText("Impression annulée pour la commande n°" + order.getId());
@@ -342,6 +489,26 @@ public class MainViewController {
         }
     }
 
+    /**
+     * List cards only hold summaries; the items are fetched here, when an order is opened for editing or printing.
+     */
+    private Optional<OrderResponseDTO> loadOrder(OrderSummary summary) {
+        if (orderController == null) {
+            return Optional.empty();
+        }
+        try {
+            Optional<OrderResponseDTO> order = orderController.getOrder(summary.getId());
+            if (order.isEmpty()) {
+                showError("Commande introuvable", "La commande n°" + summary.getId() + " n'existe plus.");
+                refreshOrderLists();
+            }
+            return order;
+        } catch (RuntimeException exception) {
+            showError("Impossible de charger la commande", exception.getMessage());
+            return Optional.empty();
+        }
+    }
+
     private void printTicketAutomatically(long orderId) {
         if (ticketController == null) {
             showError("Imprimante indisponible", "Aucune imprimante de tickets configurée. Veuillez en configurer une dans l'application.");
@@ -356,7 +523,6 @@ public class MainViewController {
     }
 
     private void refreshOrderLists() {
-        purgeOldCancelledOrders();
         if (orderListController != null) {
             orderListController.refreshOrders();
         }
@@ -375,7 +541,48 @@ public class MainViewController {
         }
     }
 
-    private void initializeTicketPrinter(OrderRepositoryImpl orderRepository) {
+    /**
+     * Releases background resources; called when the application stops.
+     */
+    public void shutdown() {
+        if (writeBehindRepository != null) {
+            writeBehindRepository.close();
+        }
+    }
+
+    /**
+     * Order lists see orders once they are committed, so the startup snapshot can sit on top of write-behind.
+     * The journal sits below it and records queued orders only once their batch has committed.
+     */
+    private OrderRepository createOrderRepository() {
+        OrderRepositoryImpl orderRepository = new OrderRepositoryImpl();
+        OrderRepository journaled = JournaledOrderRepository.withSharedJournal(orderRepository);
+        WriteBehindSettings settings = WriteBehindSettings.fromSystemProperties();
+        if (!settings.isEnabled()) {
+            return SnapshotOrderRepository.withConfiguredSnapshot(journaled);
+        }
+        writeBehindRepository = new WriteBehindOrderRepository(orderRepository, journaled, settings);
+        writeBehindRepository.setWriteListener(new WriteBehindOrderRepository.WriteListener() {
+            @Override
+            public void onCommitted(List<Long> orderIds) {
+                if (refreshScheduled.compareAndSet(false, true)) {
+                    Platform.runLater(() -> {
+                        refreshScheduled.set(false);
+                        refreshOrderLists();
+                    });
+                }
+            }
+
+            @Override
+            public void onFailed(Order order, RuntimeException exception) {
+                Platform.runLater(() -> showError("Commande non enregistrée",
+                        "La commande n°" + order.getId() + " n'a pas pu être enregistrée : " + exception.getMessage()));
+            }
+        });
+        return SnapshotOrderRepository.withConfiguredSnapshot(writeBehindRepository);
+    }
+
+    private void initializeTicketPrinter(OrderRepository orderRepository) {
         try {
             TicketFormatter formatter = new PlainTextTicketFormatter("Commandes du restaurant");
             PrinterClient printerClient = new JavaxPrinterClient();
@@ -426,17 +633,4 @@ public class MainViewController {
         builder.append("\nTotal : ").append(String.format(Locale.getDefault(), "%.2f €", order.getTotal()));
         return builder.toString();
     }
-
-    private void purgeOldCancelledOrders() {
-        if (orderController == null) {
-            return;
-        }
-        try {
-            orderController.purgeCancelledOlderThanDays(7);
-        } catch (RuntimeException exception) {
-            if (statusLabel != null) {
-                statusLabel.setText("Impossible de purger les commandes annulées : " + exception.getMessage());
-            }
-        }
-    }
 }
@@ -1,6 +1,10 @@
 import backend.controller.OrderController;
-import backend.dto.OrderResponseDTO;
 import backend.entity.StatusOrder;
+import backend.repository.OrderCursor;
+import backend.repository.OrderPage;
+import backend.repository.OrderQuery;
+import backend.repository.OrderSummary;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -18,17 +22,14 @@ import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.EnumSet;
 import java.util.List;
 import java.util.Locale;
-import java.util.Set;
-import java.util.stream.Collectors;
 
 public class OrderListController {
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("dd MMM HH:mm", Locale.getDefault());
 
     @FXML
-    private ListView<OrderResponseDTO> orderListView;
+    private ListView<OrderSummary> orderListView;
 
     @FXML
     private Label emptyStateLabel;
@@ -38,14 +39,18 @@ public class OrderListController {
     @FXML
     private ComboBox<String> timeFilterComboBox;
 
-    private final ObservableList<OrderResponseDTO> visibleOrders = FXCollections.observableArrayList();
-    private final List<OrderResponseDTO> allOrders = new ArrayList<>();
+    private final ObservableList<OrderSummary> visibleOrders = FXCollections.observableArrayList();
     private OrderController orderController;
     private OrderActionListener actionListener;
     private final List<StatusOrder> allowedStatuses = new ArrayList<>();
     private boolean timeFilterEnabled;
     private TimeFilter currentTimeFilter = TimeFilter.ALL;
     private String searchTerm = "";
+    private int pageSize;
+    private OrderCursor nextCursor;
+    private boolean hasMorePages;
+    private boolean loadingPage;
+    private boolean archiveIncluded;
 
     @FXML
     public void initialize() {
@@ -71,7 +76,6 @@ public class OrderListController {
         if (statuses != null) {
             allowedStatuses.addAll(statuses);
         }
-        applyFilters();
     }
 
     public void setTimeFilterEnabled(boolean enabled) {
@@ -84,7 +88,21 @@ public class OrderListController {
                 timeFilterComboBox.getSelectionModel().select("Tous");
             }
         }
-        applyFilters();
+    }
+
+    /**
+     * Switches the list to keyset pagination: {@code pageSize} orders are fetched at a time and the next
+     * page is requested when the user scrolls to the last card. {@code 0} loads the whole history at once.
+     */
+    public void setPageSize(int pageSize) {
+        this.pageSize = Math.max(0, pageSize);
+    }
+
+    /**
+     * Lets the list reach orders that have been moved to the archive.
+     */
+    public void setArchiveIncluded(boolean archiveIncluded) {
+        this.archiveIncluded = archiveIncluded;
     }
 
     public void setTitle(String title) {
@@ -98,19 +116,58 @@ public class OrderListController {
         if (orderController == null) {
             return;
         }
-        List<OrderResponseDTO> fetched = new ArrayList<>(orderController.listOrders());
-        allOrders.clear();
-        allOrders.addAll(fetched);
-        applyFilters();
+        if (pageSize > 0) {
+            visibleOrders.clear();
+            nextCursor = null;
+            hasMorePages = true;
+            loadNextPage();
+            return;
+        }
+        visibleOrders.setAll(orderController.searchOrderSummaries(buildQuery()));
+        updateEmptyState();
+    }
+
+    /**
+     * Status, time window and search text are all evaluated by the database, so only displayed rows are fetched,
+     * as item-less summaries.
+     */
+    private OrderQuery buildQuery() {
+        OrderQuery query = OrderQuery.all()
+                .withStatuses(allowedStatuses)
+                .createdBetween(timeFilterStart(), null)
+                .matching(searchTerm);
+        return archiveIncluded ? query.includingArchive() : query;
+    }
+
+    private void loadNextPage() {
+        if (orderController == null || !hasMorePages || loadingPage) {
+            return;
+        }
+        loadingPage = true;
+        try {
+            OrderPage<OrderSummary> page = orderController.listOrderSummaryPage(buildQuery().withLimit(pageSize), nextCursor);
+            visibleOrders.addAll(page.getItems());
+            nextCursor = page.getNextCursor();
+            hasMorePages = page.hasMore();
+        } finally {
+            loadingPage = false;
+        }
+        updateEmptyState();
+    }
+
+    private void requestNextPage() {
+        if (pageSize > 0 && hasMorePages && !loadingPage) {
+            Platform.runLater(this::loadNextPage);
+        }
     }
 
     public void filterOrders(String filter) {
         if (filter == null) {
             searchTerm = "";
         } else {
-            searchTerm = filter.trim().toLowerCase(Locale.getDefault());
+            searchTerm = filter.trim();
         }
-        applyFilters();
+        refreshOrders();
     }
 
     private void updateEmptyState() {
@@ -133,53 +190,24 @@ public class OrderListController {
                     default -> TimeFilter.ALL;
                 };
             }
-            applyFilters();
+            refreshOrders();
         });
     }
 
-    private void applyFilters() {
-        List<OrderResponseDTO> filtered = allOrders.stream()
-                .filter(this::matchesStatusFilter)
-                .filter(this::matchesSearchFilter)
-                .filter(this::matchesTimeFilter)
-                .collect(Collectors.toList());
-        visibleOrders.setAll(filtered);
-        updateEmptyState();
-    }
-
-    private boolean matchesStatusFilter(OrderResponseDTO order) {
-        if (allowedStatuses.isEmpty()) {
-            return true;
-        }
-        return order.getStatus() != null && allowedStatuses.contains(order.getStatus());
-    }
-
-    private boolean matchesSearchFilter(OrderResponseDTO order) {
-        if (searchTerm == null || searchTerm.isBlank()) {
-            return true;
-        }
-        return String.valueOf(order.getId()).toLowerCase(Locale.getDefault()).contains(searchTerm)
-                || order.getCustomerName().toLowerCase(Locale.getDefault()).contains(searchTerm);
-    }
-
-    private boolean matchesTimeFilter(OrderResponseDTO order) {
-        if (!timeFilterEnabled || currentTimeFilter == TimeFilter.ALL) {
-            return true;
-        }
-        LocalDateTime createdAt = order.getCreatedAt();
-        if (createdAt == null) {
-            return false;
+    private LocalDateTime timeFilterStart() {
+        if (!timeFilterEnabled) {
+            return null;
         }
         LocalDateTime now = LocalDateTime.now(ZoneId.systemDefault());
         return switch (currentTimeFilter) {
-            case TODAY -> createdAt.toLocalDate().isEqual(LocalDate.now());
-            case ONE_MONTH -> !createdAt.isBefore(now.minusMonths(1));
-            case THREE_MONTHS -> !createdAt.isBefore(now.minusMonths(3));
-            default -> true;
+            case TODAY -> LocalDate.now().atStartOfDay();
+            case ONE_MONTH -> now.minusMonths(1);
+            case THREE_MONTHS -> now.minusMonths(3);
+            default -> null;
         };
     }
 
-    private class OrderCell extends ListCell<OrderResponseDTO> {
+    private class OrderCell extends ListCell<OrderSummary> {
         private final Label titleLabel = new Label();
         private final Label subtitleLabel = new Label();
         private final Label totalLabel = new Label();
@@ -210,7 +238,7 @@ public class OrderListController {
         }
 
         @Override
-        protected void updateItem(OrderResponseDTO order, boolean empty) {
+        protected void updateItem(OrderSummary order, boolean empty) {
             super.updateItem(order, empty);
             if (empty || order == null) {
                 setGraphic(null);
@@ -226,6 +254,10 @@ public class OrderListController {
             updateStatusBadge(order.getStatus());
             totalLabel.setText(String.format(Locale.getDefault(), "%.2f €", order.getTotal()));
             cancelButton.setDisable(order.getStatus() == StatusOrder.ANNULER);
+            cancelButton.setVisible(!order.isArchived());
+            cancelButton.setManaged(!order.isArchived());
+            modifyButton.setVisible(!order.isArchived());
+            modifyButton.setManaged(!order.isArchived());
             cancelButton.setOnAction(evt -> {
                 if (actionListener != null) {
                     actionListener.onCancel(order);
@@ -248,6 +280,9 @@ public class OrderListController {
                 }
             });
             setGraphic(container);
+            if (getIndex() == visibleOrders.size() - 1) {
+                requestNextPage();
+            }
         }
 
         private void updateStatusBadge(StatusOrder status) {
@@ -265,13 +300,13 @@ public class OrderListController {
     }
 
     public interface OrderActionListener {
-        void onCancel(OrderResponseDTO order);
+        void onCancel(OrderSummary order);
 
-        void onModify(OrderResponseDTO order);
+        void onModify(OrderSummary order);
 
-        void onPrint(OrderResponseDTO order);
+        void onPrint(OrderSummary order);
 
-        void onRecuperer(OrderResponseDTO order);
+        void onRecuperer(OrderSummary order);
     }
 
     private enum TimeFilter {
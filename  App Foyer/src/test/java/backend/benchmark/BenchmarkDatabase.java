@@ -0,0 +1,97 @@
+package backend.benchmark;
+
+import backend.config.DatabaseConfig;
+import backend.config.SqliteProfile;
+import backend.entity.Dish;
+import backend.entity.DishCategory;
+import backend.entity.Order;
+import backend.entity.OrderItem;
+import backend.entity.StatusOrder;
+import backend.repository.DishRepository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Scratch database shared by the benchmarks: a throw-away copy of a real {@code restaurant.db}
+ * so measurements never touch the till's own file. The benchmarks live with the tests so they stay out of
+ * the application jar; run one with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=backend.benchmark.FindAllBenchmark}.
+ */
+final class BenchmarkDatabase implements AutoCloseable {
+    private static final String[] CUSTOMERS = {"Anh", "Linh", "Minh", "Hoa", "Lucas", "Emma", "Nguyen", "Chloé"};
+
+    private final Path path;
+
+    private BenchmarkDatabase(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Copies {@code source} (when it exists) to a temporary file and points {@link DatabaseConfig} at it.
+     */
+    static BenchmarkDatabase open(String source, SqliteProfile profile) {
+        try {
+            Path copy = Files.createTempFile("foyer-bench-", ".db");
+            Path sourcePath = Paths.get(source);
+            if (Files.exists(sourcePath)) {
+                Files.copy(sourcePath, copy, StandardCopyOption.REPLACE_EXISTING);
+            } else {
+                Files.delete(copy);
+            }
+            DatabaseConfig.configure(copy.toString(), profile);
+            DatabaseConfig.initialize();
+            return new BenchmarkDatabase(copy);
+        } catch (IOException exception) {
+            throw new UncheckedIOException("Unable to prepare benchmark database", exception);
+        }
+    }
+
+    static List<Dish> ensureMenu(DishRepository dishRepository) {
+        List<Dish> menu = dishRepository.findAll();
+        if (menu.isEmpty()) {
+            dishRepository.save(new Dish("Nem", 6.0, DishCategory.ENTREE));
+            dishRepository.save(new Dish("Bo Bun", 10.0, DishCategory.PLAT));
+            dishRepository.save(new Dish("Pho", 11.0, DishCategory.PLAT));
+            dishRepository.save(new Dish("Coca", 2.5, DishCategory.BOISSON));
+            menu = dishRepository.findAll();
+        }
+        return menu;
+    }
+
+    static Order sampleOrder(List<Dish> menu, Random random, int itemCount, LocalDateTime createdAt) {
+        Order order = new Order();
+        order.setCustomerName(CUSTOMERS[random.nextInt(CUSTOMERS.length)]);
+        order.setCreatedAt(createdAt);
+        int roll = random.nextInt(10);
+        order.setStatus(roll < 7 ? StatusOrder.FINI : roll < 9 ? StatusOrder.ENCOURS : StatusOrder.ANNULER);
+        order.setPayer(order.getStatus() == StatusOrder.FINI);
+        List<OrderItem> items = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            Dish dish = menu.get(i % menu.size());
+            items.add(new OrderItem(dish, 1 + random.nextInt(3)));
+        }
+        order.setItems(items);
+        return order;
+    }
+
+    @Override
+    public void close() {
+        DatabaseConfig.shutdown();
+        for (String suffix : new String[]{"", "-wal", "-shm", "-journal"}) {
+            try {
+                Files.deleteIfExists(Paths.get(path + suffix));
+            } catch (IOException ignored) {
+                // temp files are cleaned up by the OS eventually
+            }
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package backend.benchmark;
+
+import backend.config.DatabaseConfig;
+import backend.config.SqliteProfile;
+import backend.entity.Dish;
+import backend.entity.Order;
+import backend.entity.OrderItem;
+import backend.repository.impl.DishRepositoryImpl;
+import backend.repository.impl.OrderRepositoryImpl;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Compares {@link OrderRepositoryImpl#findAll()} with the former one-query-per-order item loading.
+ * Usage: {@code FindAllBenchmark [sizes, default 1000,10000,100000] [path/to/restaurant.db]}.
+ */
+public final class FindAllBenchmark {
+    private static final int ROUNDS = 5;
+
+    private FindAllBenchmark() {
+    }
+
+    public static void main(String[] args) throws SQLException {
+        String[] sizes = (args.length > 0 ? args[0] : "1000,10000,100000").split(",");
+        String source = args.length > 1 ? args[1] : "restaurant.db";
+        for (String size : sizes) {
+            int orderCount = Integer.parseInt(size.trim());
+            BenchmarkDatabase database = BenchmarkDatabase.open(source, SqliteProfile.durable());
+            try {
+                seed(orderCount);
+                OrderRepositoryImpl repository = new OrderRepositoryImpl();
+                double batched = bestOf(() -> repository.findAll().size());
+                double legacy = bestOf(() -> legacyFindAll().size());
+                System.out.printf(Locale.ROOT, "%7d orders  per-order items: %9.1f ms  batched items: %8.1f ms  (x%.1f)%n",
+                        orderCount, legacy, batched, legacy / batched);
+            } finally {
+                database.close();
+            }
+        }
+    }
+
+    static void seed(int orderCount) throws SQLException {
+        List<Dish> menu = BenchmarkDatabase.ensureMenu(new DishRepositoryImpl());
+        Random random = new Random(7);
+        LocalDateTime start = LocalDateTime.now().minusDays(365);
+        try (Connection connection = DatabaseConfig.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement orderStatement = connection.prepareStatement(
+                    "INSERT INTO orders(customer_name, status, created_at, total, message, payer) VALUES(?, ?, ?, ?, ?, ?)",
+                    Statement.RETURN_GENERATED_KEYS);
+                 PreparedStatement itemStatement = connection.prepareStatement(
+                         "INSERT INTO order_items(order_id, dish_id, quantity, price) VALUES(?, ?, ?, ?)")) {
+                for (int i = 0; i < orderCount; i++) {
+                    LocalDateTime createdAt = start.plusSeconds((long) i * 365 * 24 * 3600 / Math.max(orderCount, 1));
+                    Order order = BenchmarkDatabase.sampleOrder(menu, random, 1 + random.nextInt(4), createdAt);
+                    orderStatement.setString(1, order.getCustomerName());
+                    orderStatement.setString(2, order.getStatus().name());
+                    orderStatement.setString(3, createdAt.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+                    orderStatement.setDouble(4, order.getTotal());
+                    orderStatement.setString(5, null);
+                    orderStatement.setInt(6, order.isPayer() ? 1 : 0);
+                    orderStatement.executeUpdate();
+                    long orderId;
+                    try (ResultSet keys = orderStatement.getGeneratedKeys()) {
+                        keys.next();
+                        orderId = keys.getLong(1);
+                    }
+                    for (OrderItem item : order.getItems()) {
+                        itemStatement.setLong(1, orderId);
+                        itemStatement.setLong(2, item.getDish().getId());
+                        itemStatement.setInt(3, item.getQuantity());
+                        itemStatement.setDouble(4, item.getPrice());
+                        itemStatement.addBatch();
+                    }
+                    itemStatement.executeBatch();
+                }
+            }
+            connection.commit();
+        }
+    }
+
+    private static double bestOf(SqlTask task) throws SQLException {
+        task.run();
+        double best = Double.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            task.run();
+            best = Math.min(best, (System.nanoTime() - start) / 1_000_000.0);
+        }
+        return best;
+    }
+
+    /**
+     * The pre-batching access pattern: one orders query, then one prepared item query per order.
+     */
+    private static List<Long> legacyFindAll() throws SQLException {
+        List<Long> ids = new ArrayList<>();
+        try (Connection connection = DatabaseConfig.getReadConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "SELECT id, customer_name, status, created_at, message, payer FROM orders ORDER BY datetime(created_at) DESC");
+             ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                long id = resultSet.getLong("id");
+                try (PreparedStatement itemStatement = connection.prepareStatement(
+                        "SELECT oi.id, oi.quantity, oi.price, d.id as dishId, d.name, d.price as dishPrice, d.category as dishCategory " +
+                                "FROM order_items oi INNER JOIN dishes d ON oi.dish_id = d.id WHERE order_id = ?")) {
+                    itemStatement.setLong(1, id);
+                    try (ResultSet items = itemStatement.executeQuery()) {
+                        while (items.next()) {
+                            items.getLong("id");
+                        }
+                    }
+                }
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    @FunctionalInterface
+    private interface SqlTask {
+        int run() throws SQLException;
+    }
+}
@@ -0,0 +1,45 @@
+package backend.benchmark;
+
+import backend.config.SqliteProfile;
+import backend.entity.Dish;
+import backend.repository.impl.DishRepositoryImpl;
+import backend.repository.impl.OrderRepositoryImpl;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Measures order inserts per second for each {@link SqliteProfile} preset.
+ * Usage: {@code SqliteProfileBenchmark [path/to/restaurant.db] [orders]}.
+ */
+public final class SqliteProfileBenchmark {
+    private SqliteProfileBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        String source = args.length > 0 ? args[0] : "restaurant.db";
+        int orders = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+        for (SqliteProfile profile : List.of(SqliteProfile.durable(), SqliteProfile.fast())) {
+            BenchmarkDatabase database = BenchmarkDatabase.open(source, profile);
+            try {
+                OrderRepositoryImpl orderRepository = new OrderRepositoryImpl();
+                List<Dish> menu = BenchmarkDatabase.ensureMenu(new DishRepositoryImpl());
+                Random random = new Random(42);
+                for (int i = 0; i < 100; i++) {
+                    orderRepository.create(BenchmarkDatabase.sampleOrder(menu, random, 3, LocalDateTime.now()));
+                }
+                long start = System.nanoTime();
+                for (int i = 0; i < orders; i++) {
+                    orderRepository.create(BenchmarkDatabase.sampleOrder(menu, random, 3, LocalDateTime.now()));
+                }
+                double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+                System.out.printf(Locale.ROOT, "%-8s %8.0f orders/s  (%d orders in %.2f s)  %s%n",
+                        profile.getName(), orders / seconds, orders, seconds, profile);
+            } finally {
+                database.close();
+            }
+        }
+    }
+}
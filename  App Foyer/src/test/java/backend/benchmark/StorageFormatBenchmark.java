@@ -0,0 +1,106 @@
+package backend.benchmark;
+
+import backend.config.DatabaseConfig;
+import backend.config.SqliteProfile;
+import backend.config.StorageFormat;
+import backend.config.migration.CompactSchemaMigration;
+import backend.repository.OrderQuery;
+import backend.repository.impl.OrderRepositoryImpl;
+import backend.repository.impl.SalesRollups;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Locale;
+
+/**
+ * Compares the {@link StorageFormat#V1} and {@link StorageFormat#V2} layouts on the same seeded history:
+ * file size, {@code findAll()} and {@code findSummaries()}, and how long the conversion takes.
+ * Usage: {@code StorageFormatBenchmark [sizes, default 10000,100000] [path/to/restaurant.db]}.
+ */
+public final class StorageFormatBenchmark {
+    private static final int ROUNDS = 5;
+
+    private StorageFormatBenchmark() {
+    }
+
+    public static void main(String[] args) throws SQLException {
+        String[] sizes = (args.length > 0 ? args[0] : "10000,100000").split(",");
+        String source = args.length > 1 ? args[1] : "restaurant.db";
+        for (String size : sizes) {
+            int orderCount = Integer.parseInt(size.trim());
+            BenchmarkDatabase database = BenchmarkDatabase.open(source, SqliteProfile.durable());
+            try {
+                FindAllBenchmark.seed(orderCount);
+                compact();
+                report(orderCount);
+                DatabaseConfig.shutdown();
+                long start = System.nanoTime();
+                try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + DatabaseConfig.getDatabasePath())) {
+                    CompactSchemaMigration.apply(connection);
+                }
+                double conversion = (System.nanoTime() - start) / 1_000_000.0;
+                DatabaseConfig.initialize();
+                report(orderCount);
+                System.out.printf(Locale.ROOT, "%7d orders  conversion: %8.1f ms%n", orderCount, conversion);
+            } finally {
+                database.close();
+            }
+        }
+    }
+
+    private static void report(int orderCount) throws SQLException {
+        OrderRepositoryImpl repository = new OrderRepositoryImpl();
+        double findAll = bestOf(() -> repository.findAll().size());
+        double summaries = bestOf(() -> repository.findSummaries(OrderQuery.all()).size());
+        System.out.printf(Locale.ROOT, "%7d orders  %s  file: %6.2f MiB  findAll: %8.1f ms  findSummaries: %7.1f ms%n",
+                orderCount, DatabaseConfig.getStorageFormat(), fileSize() / (1024.0 * 1024.0), findAll, summaries);
+    }
+
+    /**
+     * Gives V1 the same start the conversion leaves V2 in: rollups summed over the seeded orders, then vacuumed.
+     */
+    private static void compact() throws SQLException {
+        DatabaseConfig.inTransaction(connection -> {
+            SalesRollups.rebuild(connection);
+            return null;
+        });
+        try (Connection connection = DatabaseConfig.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("VACUUM");
+        }
+    }
+
+    private static long fileSize() throws SQLException {
+        try (Connection connection = DatabaseConfig.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("PRAGMA wal_checkpoint(TRUNCATE)");
+        }
+        try {
+            return Files.size(Paths.get(DatabaseConfig.getDatabasePath()));
+        } catch (IOException exception) {
+            throw new UncheckedIOException("Unable to read benchmark database size", exception);
+        }
+    }
+
+    private static double bestOf(SqlTask task) throws SQLException {
+        task.run();
+        double best = Double.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            task.run();
+            best = Math.min(best, (System.nanoTime() - start) / 1_000_000.0);
+        }
+        return best;
+    }
+
+    @FunctionalInterface
+    private interface SqlTask {
+        int run() throws SQLException;
+    }
+}
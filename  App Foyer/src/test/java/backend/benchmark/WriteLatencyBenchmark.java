@@ -0,0 +1,121 @@
+package backend.benchmark;
+
+import backend.config.DatabaseConfig;
+import backend.config.SqliteProfile;
+import backend.entity.Dish;
+import backend.entity.Order;
+import backend.entity.OrderItem;
+import backend.repository.impl.DishRepositoryImpl;
+import backend.repository.impl.InMemoryOrderRepository;
+import backend.repository.impl.InMemoryStore;
+import backend.repository.impl.OrderRepositoryImpl;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Write latency per order at 1, 10 and 50 items: {@link OrderRepositoryImpl#create} and
+ * {@link OrderRepositoryImpl#update} against the former autocommit, one-row-per-insert pattern, with
+ * {@link InMemoryOrderRepository#create} as the floor set by the repository code itself.
+ * Usage: {@code WriteLatencyBenchmark [orders per size, default 300] [path/to/restaurant.db]}.
+ */
+public final class WriteLatencyBenchmark {
+    private static final int[] ITEM_COUNTS = {1, 10, 50};
+
+    private WriteLatencyBenchmark() {
+    }
+
+    public static void main(String[] args) throws SQLException {
+        int orders = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+        String source = args.length > 1 ? args[1] : "restaurant.db";
+        BenchmarkDatabase database = BenchmarkDatabase.open(source, SqliteProfile.durable());
+        try {
+            OrderRepositoryImpl repository = new OrderRepositoryImpl();
+            InMemoryOrderRepository memoryRepository = new InMemoryOrderRepository(new InMemoryStore());
+            List<Dish> menu = BenchmarkDatabase.ensureMenu(new DishRepositoryImpl());
+            Random random = new Random(11);
+            for (int itemCount : ITEM_COUNTS) {
+                long[] memory = new long[orders];
+                long[] legacy = new long[orders];
+                long[] created = new long[orders];
+                long[] updated = new long[orders];
+                for (int i = 0; i < orders; i++) {
+                    Order order = BenchmarkDatabase.sampleOrder(menu, random, itemCount, LocalDateTime.now());
+                    long start = System.nanoTime();
+                    memoryRepository.create(order);
+                    memory[i] = System.nanoTime() - start;
+
+                    start = System.nanoTime();
+                    legacyCreate(order);
+                    legacy[i] = System.nanoTime() - start;
+
+                    start = System.nanoTime();
+                    long id = repository.create(order);
+                    created[i] = System.nanoTime() - start;
+
+                    order.setId(id);
+                    order.getItems().get(0).setQuantity(order.getItems().get(0).getQuantity() + 1);
+                    start = System.nanoTime();
+                    repository.update(order);
+                    updated[i] = System.nanoTime() - start;
+                }
+                System.out.printf(Locale.ROOT, "%2d items  in-memory create: %s  autocommit create: %s  create: %s  update: %s%n",
+                        itemCount, summary(memory), summary(legacy), summary(created), summary(updated));
+            }
+        } finally {
+            database.close();
+        }
+    }
+
+    private static String summary(long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        double mean = Arrays.stream(sorted).average().orElse(0) / 1_000_000.0;
+        double p95 = sorted[(int) Math.min(sorted.length - 1, Math.ceil(sorted.length * 0.95) - 1)] / 1_000_000.0;
+        return String.format(Locale.ROOT, "mean %6.2f ms p95 %6.2f ms", mean, p95);
+    }
+
+    /**
+     * The pre-transaction write path: header and items committed separately in autocommit mode.
+     */
+    private static void legacyCreate(Order order) throws SQLException {
+        try (Connection connection = DatabaseConfig.getConnection()) {
+            long orderId;
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO orders(customer_name, status, created_at, total, message, payer) VALUES(?, ?, ?, ?, ?, ?)",
+                    Statement.RETURN_GENERATED_KEYS)) {
+                statement.setString(1, order.getCustomerName());
+                statement.setString(2, order.getStatus().name());
+                statement.setString(3, order.getCreatedAt().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+                statement.setDouble(4, order.getTotal());
+                statement.setString(5, order.getMessage());
+                statement.setInt(6, order.isPayer() ? 1 : 0);
+                statement.executeUpdate();
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    keys.next();
+                    orderId = keys.getLong(1);
+                }
+            }
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO order_items(order_id, dish_id, quantity, price) VALUES(?, ?, ?, ?)")) {
+                for (OrderItem item : order.getItems()) {
+                    statement.setLong(1, orderId);
+                    statement.setLong(2, item.getDish().getId());
+                    statement.setInt(3, item.getQuantity());
+                    statement.setDouble(4, item.getPrice());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        }
+    }
+}
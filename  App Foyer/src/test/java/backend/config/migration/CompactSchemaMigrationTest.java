@@ -0,0 +1,192 @@
+package backend.config.migration;
+
+import backend.config.DatabaseConfig;
+import backend.config.SqliteProfile;
+import backend.config.StorageFormat;
+import backend.entity.Dish;
+import backend.entity.DishCategory;
+import backend.entity.Order;
+import backend.entity.OrderItem;
+import backend.entity.StatusOrder;
+import backend.repository.RevenueBucket;
+import backend.repository.RollupGranularity;
+import backend.repository.impl.DishRepositoryImpl;
+import backend.repository.impl.OrderRepositoryImpl;
+import backend.repository.impl.SalesRollupRepositoryImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompactSchemaMigrationTest {
+    private static final LocalDateTime ARCHIVE_CUTOFF = LocalDateTime.of(2024, 6, 1, 0, 0);
+
+    @TempDir
+    Path directory;
+    private String url;
+
+    @BeforeEach
+    void createV1Database() {
+        String path = directory.resolve("restaurant.db").toString();
+        url = "jdbc:sqlite:" + path;
+        DatabaseConfig.configure(path, SqliteProfile.durable());
+        DishRepositoryImpl dishes = new DishRepositoryImpl();
+        // 4.125 sits exactly on a half cent, 19.99 and 0.1 are not exact in binary
+        Dish pho = dish(dishes, "Phở bò", 4.125, DishCategory.PLAT);
+        Dish che = dish(dishes, "Chè ba màu", 19.99, DishCategory.DESSERT);
+        Dish tra = dish(dishes, "Trà đá", 0.1, DishCategory.BOISSON);
+        dishes.delete(dish(dishes, "Plat retiré", 5.0, DishCategory.MENU).getId());
+
+        OrderRepositoryImpl orders = new OrderRepositoryImpl();
+        orders.create(order("Lan", StatusOrder.FINI, LocalDateTime.of(2024, 1, 10, 12, 0), true,
+                new OrderItem(che, 1)));
+        orders.create(order("Minh", StatusOrder.ENCOURS, LocalDateTime.of(2025, 3, 1, 19, 30), true,
+                new OrderItem(pho, 2), new OrderItem(tra, 3)));
+        orders.create(order("Hoa", StatusOrder.ANNULER, LocalDateTime.of(2025, 3, 2, 20, 0), false,
+                new OrderItem(che, 2)));
+        // leaves a gap AUTOINCREMENT must not fill after the tables are rebuilt
+        orders.delete(orders.create(order("Tuan", StatusOrder.ENCOURS, LocalDateTime.of(2025, 3, 3, 9, 0), false,
+                new OrderItem(tra, 1))));
+        assertEquals(1, orders.archiveFinishedBefore(ARCHIVE_CUTOFF));
+        DatabaseConfig.shutdown();
+    }
+
+    @AfterEach
+    void closePools() {
+        DatabaseConfig.shutdown();
+    }
+
+    @Test
+    void rowsAndCountersSurviveTheConversion() throws SQLException {
+        Map<String, Long> sequencesBefore;
+        long versionBefore;
+        try (Connection connection = DriverManager.getConnection(url)) {
+            assertEquals(StorageFormat.V1, StorageFormat.detect(connection));
+            sequencesBefore = sequences(connection);
+            versionBefore = changeVersion(connection);
+
+            CompactSchemaMigration.apply(connection);
+
+            assertEquals(StorageFormat.V2, StorageFormat.detect(connection));
+            assertEquals(List.of("1|Phở bò|413|1", "2|Chè ba màu|1999|2", "3|Trà đá|10|3"),
+                    rows(connection, "SELECT id, name, price, category FROM dishes ORDER BY id"));
+            assertEquals(List.of("2|Minh|1|855|1", "3|Hoa|0|3998|0"),
+                    rows(connection, "SELECT id, customer_name, status, total, payer FROM orders ORDER BY id"));
+            assertEquals(List.of("2|1|2|413", "2|3|3|10", "3|2|2|1999"),
+                    rows(connection, "SELECT order_id, dish_id, quantity, price FROM order_items ORDER BY id"));
+            assertEquals(List.of("1|Lan|2|1999|1"),
+                    rows(connection, "SELECT id, customer_name, status, total, payer FROM orders_archive"));
+            assertEquals(sequencesBefore, sequences(connection));
+            assertEquals(Map.of("dishes", 4L, "order_items", 5L, "orders", 4L), sequencesBefore);
+            assertEquals(versionBefore + 1, changeVersion(connection));
+
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("UPDATE orders SET payer = payer WHERE id = 2");
+                assertEquals(versionBefore + 2, changeVersion(connection));
+                statement.executeUpdate("UPDATE orders_archive SET message = message WHERE id = 1");
+                assertEquals(versionBefore + 3, changeVersion(connection));
+                statement.executeUpdate("INSERT INTO orders(customer_name, status, created_at_epoch, total) " +
+                        "VALUES('Nam', 1, 0, 0)");
+                assertEquals(versionBefore + 4, changeVersion(connection));
+                assertEquals(List.of("5"), rows(connection, "SELECT max(id) FROM orders"));
+            }
+        }
+    }
+
+    @Test
+    void searchAndRollupsAreServedFromTheConvertedTables() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url)) {
+            CompactSchemaMigration.apply(connection);
+        }
+        OrderRepositoryImpl orders = new OrderRepositoryImpl();
+        assertEquals(StorageFormat.V2, DatabaseConfig.getStorageFormat());
+        assertEquals(List.of(2L), orders.search("pho", 10));
+        assertEquals(List.of(1L), orders.search("Lan", 10));
+
+        Order active = orders.findById(2).orElseThrow();
+        assertEquals(4.13, active.getItems().get(0).getPrice());
+        assertEquals(StatusOrder.ENCOURS, active.getStatus());
+        Order archived = orders.findById(1).orElseThrow();
+        assertEquals(StatusOrder.FINI, archived.getStatus());
+        assertEquals(LocalDateTime.of(2024, 1, 10, 12, 0), archived.getCreatedAt());
+
+        // the active lines are summed from the rounded cents, the archived ones from their blob snapshot
+        List<RevenueBucket> months = new SalesRollupRepositoryImpl().findRevenue(RollupGranularity.MONTH, null);
+        assertEquals(2, months.size());
+        assertEquals(LocalDateTime.of(2024, 1, 1, 0, 0), months.get(0).getBucketStart());
+        assertEquals(1, months.get(0).getOrderCount());
+        assertEquals(19.99, months.get(0).getRevenue(), 1e-9);
+        assertEquals(1, months.get(1).getOrderCount());
+        assertEquals(8.56, months.get(1).getRevenue(), 1e-9);
+    }
+
+    @Test
+    void aSecondRunLeavesACompactDatabaseAlone() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url)) {
+            CompactSchemaMigration.apply(connection);
+            long version = changeVersion(connection);
+            CompactSchemaMigration.apply(connection);
+            assertEquals(version, changeVersion(connection));
+            assertTrue(rows(connection, "SELECT name FROM sqlite_master WHERE type = 'table' AND name LIKE '%_v2'")
+                    .isEmpty());
+        }
+    }
+
+    private static Dish dish(DishRepositoryImpl dishes, String name, double price, DishCategory category) {
+        Dish dish = new Dish(name, price, category);
+        dish.setId(dishes.save(dish));
+        return dish;
+    }
+
+    private static Order order(String customer, StatusOrder status, LocalDateTime createdAt, boolean payer,
+                               OrderItem... items) {
+        return new Order(null, customer, status, createdAt, new ArrayList<>(List.of(items)), null, payer);
+    }
+
+    private static Map<String, Long> sequences(Connection connection) throws SQLException {
+        Map<String, Long> sequences = new TreeMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT name, seq FROM sqlite_sequence " +
+                     "WHERE name IN ('dishes', 'orders', 'order_items', 'orders_archive')")) {
+            while (resultSet.next()) {
+                sequences.put(resultSet.getString("name"), resultSet.getLong("seq"));
+            }
+        }
+        return sequences;
+    }
+
+    private static long changeVersion(Connection connection) throws SQLException {
+        return Long.parseLong(rows(connection, "SELECT version FROM order_changes WHERE id = 1").get(0));
+    }
+
+    private static List<String> rows(Connection connection, String sql) throws SQLException {
+        List<String> rows = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(sql)) {
+            int columns = resultSet.getMetaData().getColumnCount();
+            while (resultSet.next()) {
+                StringBuilder row = new StringBuilder();
+                for (int column = 1; column <= columns; column++) {
+                    row.append(column > 1 ? "|" : "").append(resultSet.getString(column));
+                }
+                rows.add(row.toString());
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,263 @@
+package backend.repository.impl;
+
+import backend.config.JournalSettings;
+import backend.entity.Dish;
+import backend.entity.DishCategory;
+import backend.entity.Order;
+import backend.entity.OrderItem;
+import backend.entity.StatusOrder;
+import backend.repository.OrderEvent;
+import backend.repository.OrderQuery;
+import backend.repository.OrderRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderJournalTest {
+    private static final Dish PHO = new Dish(1L, "Phở bò", 9.5, DishCategory.PLAT);
+    private static final Dish TRA = new Dish(2L, "Trà đá", 1.2, DishCategory.BOISSON);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void everyEventTypeSurvivesAReopen() {
+        Order order = order(7L, "Lê Văn", StatusOrder.ENCOURS, LocalDateTime.of(2025, 3, 1, 19, 30, 15, 123_456_789),
+                "sans coriandre", new OrderItem(PHO, 2), new OrderItem(TRA, 3));
+        Order bare = order(8L, "Hoa", StatusOrder.FINI, LocalDateTime.of(2025, 3, 2, 12, 0), null);
+        LocalDateTime cutoff = LocalDateTime.of(2025, 1, 1, 0, 0);
+        List<OrderEvent> written = List.of(OrderEvent.created(order), OrderEvent.updated(bare),
+                OrderEvent.statusChanged(7, StatusOrder.ANNULER), OrderEvent.paid(7), OrderEvent.deleted(8),
+                OrderEvent.cancelledPurged(cutoff), OrderEvent.finishedArchived(cutoff));
+        try (OrderJournal journal = open(16 * 1024)) {
+            written.forEach(journal::append);
+        }
+
+        try (OrderJournal journal = open(16 * 1024)) {
+            assertEquals(7, journal.getLastSequence());
+            List<OrderEvent> read = readAll(journal, 0);
+            assertEquals(written.size(), read.size());
+            for (int i = 0; i < read.size(); i++) {
+                assertEquals(i + 1, read.get(i).getSequence());
+                assertEquals(describe(written.get(i)), describe(read.get(i)));
+            }
+            assertEquals(8, journal.append(OrderEvent.paid(8)));
+        }
+    }
+
+    @Test
+    void tornLastRecordIsDroppedAndOverwritten() throws IOException {
+        try (OrderJournal journal = open(16 * 1024)) {
+            for (long id = 1; id <= 3; id++) {
+                journal.append(OrderEvent.paid(id));
+            }
+        }
+        Path segment = segments().get(0);
+        long fullSize = Files.size(segment);
+        truncate(segment, fullSize - 5);
+
+        try (OrderJournal journal = open(16 * 1024)) {
+            assertEquals(2, journal.getLastSequence());
+            assertTrue(Files.size(segment) < fullSize - 5, "the partial record is cut off");
+            assertEquals(3, journal.append(OrderEvent.deleted(9)));
+        }
+        try (OrderJournal journal = open(16 * 1024)) {
+            List<OrderEvent> read = readAll(journal, 0);
+            assertEquals(List.of("1 PAID 1", "2 PAID 2", "3 DELETED 9"), summaries(read));
+        }
+    }
+
+    @Test
+    void recordWithABadChecksumEndsTheLastSegment() throws IOException {
+        try (OrderJournal journal = open(16 * 1024)) {
+            for (long id = 1; id <= 3; id++) {
+                journal.append(OrderEvent.paid(id));
+            }
+        }
+        Path segment = segments().get(0);
+        flipLastByte(segment);
+
+        try (OrderJournal journal = open(16 * 1024)) {
+            assertEquals(2, journal.getLastSequence());
+            assertEquals(List.of("1 PAID 1", "2 PAID 2"), summaries(readAll(journal, 0)));
+        }
+    }
+
+    @Test
+    void segmentsRollOverAndReplayFromAnySequence() throws IOException {
+        String message = "x".repeat(1_000);
+        try (OrderJournal journal = open(4_096)) {
+            for (long id = 1; id <= 10; id++) {
+                journal.append(OrderEvent.created(order(id, "Client " + id, StatusOrder.ENCOURS,
+                        LocalDateTime.of(2025, 3, 1, 12, 0), message, new OrderItem(PHO, 1))));
+            }
+        }
+        List<Path> segments = segments();
+        assertTrue(segments.size() >= 3, "expected several segments, got " + segments.size());
+        assertEquals("orders-00000000000000000001.journal", segments.get(0).getFileName().toString());
+        for (Path segment : segments) {
+            assertTrue(Files.size(segment) <= 4_096, segment + " is over the segment size");
+        }
+
+        try (OrderJournal journal = open(4_096)) {
+            assertEquals(10, journal.getLastSequence());
+            assertEquals(10, readAll(journal, 0).size());
+            List<OrderEvent> tail = readAll(journal, 6);
+            assertEquals(List.of(7L, 8L, 9L, 10L), tail.stream().map(OrderEvent::getSequence).toList());
+            assertEquals(10, journal.replay(10, event -> {
+            }));
+            assertEquals(11, journal.append(OrderEvent.paid(1)));
+        }
+    }
+
+    @Test
+    void damagedRecordBeforeTheLastSegmentFailsTheReplay() throws IOException {
+        try (OrderJournal journal = open(4_096)) {
+            for (long id = 1; id <= 10; id++) {
+                journal.append(OrderEvent.created(order(id, "Client " + id, StatusOrder.ENCOURS,
+                        LocalDateTime.of(2025, 3, 1, 12, 0), "x".repeat(1_000), new OrderItem(PHO, 1))));
+            }
+        }
+        flipLastByte(segments().get(0));
+
+        try (OrderJournal journal = open(4_096)) {
+            assertThrows(UncheckedIOException.class, () -> journal.replay(0, event -> {
+            }));
+        }
+    }
+
+    @Test
+    void replayOverAPartlyAppliedCheckpointMatchesTheSource() {
+        LocalDateTime cutoff = LocalDateTime.of(2025, 1, 1, 0, 0);
+        InMemoryStore sourceStore = storeWithMenu();
+        List<String> expected;
+        try (OrderJournal journal = open(16 * 1024)) {
+            OrderRepository source = new JournaledOrderRepository(new InMemoryOrderRepository(sourceStore), journal);
+            long first = source.create(order(null, "Lan", StatusOrder.ENCOURS, LocalDateTime.of(2024, 5, 1, 12, 0),
+                    null, new OrderItem(PHO, 1)));
+            long second = source.create(order(null, "Minh", StatusOrder.ENCOURS, LocalDateTime.of(2024, 6, 1, 12, 0),
+                    "à emporter", new OrderItem(TRA, 2)));
+            long third = source.create(order(null, "Hoa", StatusOrder.ENCOURS, LocalDateTime.of(2024, 7, 1, 12, 0),
+                    null, new OrderItem(PHO, 2)));
+            long fourth = source.create(order(null, "Tuan", StatusOrder.ENCOURS, LocalDateTime.of(2025, 2, 1, 12, 0),
+                    null, new OrderItem(TRA, 1)));
+            source.update(order(second, "Minh", StatusOrder.ENCOURS, LocalDateTime.of(2024, 6, 1, 12, 0), "sur place",
+                    new OrderItem(TRA, 1), new OrderItem(PHO, 1)));
+            source.updateStatus(first, StatusOrder.FINI);
+            source.markPaid(first);
+            source.updateStatus(third, StatusOrder.ANNULER);
+            source.archiveFinishedBefore(cutoff);
+            source.deleteCancelledBefore(cutoff);
+            source.delete(fourth);
+            assertEquals(11, journal.getLastSequence());
+            assertEquals(0, journal.getFailedRecords());
+            expected = describe(source);
+            assertEquals(2, expected.size());
+
+            // the checkpoint was taken while events 1 to 8 were applied but only claims 5
+            InMemoryStore checkpoint = storeWithMenu();
+            OrderRepository restored = new InMemoryOrderRepository(checkpoint);
+            journal.replay(0, event -> {
+                if (event.getSequence() <= 8) {
+                    event.applyTo(restored);
+                }
+            });
+            assertEquals(11, JournaledOrderRepository.replay(journal, 5, restored));
+            assertEquals(expected, describe(restored));
+
+            assertEquals(11, JournaledOrderRepository.replay(journal, 0, restored));
+            assertEquals(expected, describe(restored));
+        }
+    }
+
+    private OrderJournal open(long segmentBytes) {
+        return OrderJournal.open(new JournalSettings(true, directory, 0, segmentBytes));
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private static List<OrderEvent> readAll(OrderJournal journal, long afterSequence) {
+        List<OrderEvent> events = new ArrayList<>();
+        journal.replay(afterSequence, events::add);
+        return events;
+    }
+
+    private static void truncate(Path file, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(size);
+        }
+    }
+
+    private static void flipLastByte(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer last = ByteBuffer.allocate(1);
+            channel.read(last, channel.size() - 1);
+            last.put(0, (byte) ~last.get(0));
+            channel.write(last.rewind(), channel.size() - 1);
+        }
+    }
+
+    private static InMemoryStore storeWithMenu() {
+        InMemoryStore store = new InMemoryStore();
+        store.writeLock.lock();
+        try {
+            store.putDish(PHO);
+            store.putDish(TRA);
+        } finally {
+            store.writeLock.unlock();
+        }
+        return store;
+    }
+
+    private static Order order(Long id, String customer, StatusOrder status, LocalDateTime createdAt, String message,
+                               OrderItem... items) {
+        return new Order(id, customer, status, createdAt, new ArrayList<>(List.of(items)), message, false);
+    }
+
+    private static List<String> summaries(List<OrderEvent> events) {
+        return events.stream().map(event -> event.getSequence() + " " + event.getType() + " " + event.getOrderId())
+                .toList();
+    }
+
+    private static String describe(OrderEvent event) {
+        return event.getType() + " " + event.getRecordedAt() + " " + event.getOrderId() + " "
+                + event.getOrder().map(OrderJournalTest::describe).orElse("-") + " " + event.getStatus() + " "
+                + event.getCutoff();
+    }
+
+    private static List<String> describe(OrderRepository repository) {
+        return repository.find(OrderQuery.all().includingArchive()).stream().map(OrderJournalTest::describe).toList();
+    }
+
+    private static String describe(Order order) {
+        StringBuilder text = new StringBuilder().append(order.getId()).append(' ').append(order.getCustomerName())
+                .append(' ').append(order.getStatus()).append(' ').append(order.getCreatedAt()).append(' ')
+                .append(order.getMessage()).append(' ').append(order.isPayer());
+        for (OrderItem item : order.getItems()) {
+            Dish dish = item.getDish();
+            text.append(" [").append(dish.getId()).append(' ').append(dish.getName()).append(' ')
+                    .append(dish.getPrice()).append(' ').append(dish.getCategory()).append(" x")
+                    .append(item.getQuantity()).append(" @").append(item.getPrice()).append(']');
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,177 @@
+package backend.repository.impl;
+
+import backend.config.DatabaseConfig;
+import backend.config.SqliteProfile;
+import backend.config.WriteBehindSettings;
+import backend.config.WriteBehindStats;
+import backend.entity.Dish;
+import backend.entity.DishCategory;
+import backend.entity.Order;
+import backend.entity.OrderItem;
+import backend.entity.StatusOrder;
+import backend.repository.OrderQuery;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WriteBehindOrderRepositoryTest {
+    private static final int THREADS = 4;
+    private static final int ORDERS_PER_THREAD = 25;
+
+    @TempDir
+    Path directory;
+    private Dish dish;
+    private OrderRepositoryImpl store;
+    private WriteBehindOrderRepository repository;
+    private final List<Long> committedIds = Collections.synchronizedList(new ArrayList<>());
+    private final List<Order> failedOrders = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    void createDatabase() {
+        DatabaseConfig.configure(directory.resolve("restaurant.db").toString(), SqliteProfile.durable());
+        dish = new Dish("Phở bò", 9.5, DishCategory.PLAT);
+        dish.setId(new DishRepositoryImpl().save(dish));
+        store = new OrderRepositoryImpl();
+        store.create(order("Lan"));
+        // id 2 is gone but AUTOINCREMENT will not hand it out again, so neither may the queue
+        store.delete(store.create(order("Minh")));
+    }
+
+    @AfterEach
+    void closeDatabase() {
+        if (repository != null) {
+            repository.close();
+        }
+        DatabaseConfig.shutdown();
+    }
+
+    @Test
+    void concurrentOrdersGetDistinctIdsAndAFailingOneIsIsolated() throws InterruptedException {
+        repository = open(new WriteBehindSettings(true, 8, 10, 20L));
+        List<Long> ids = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            threads.add(new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < ORDERS_PER_THREAD; i++) {
+                    // customer_name is NOT NULL, so this one order fails inside whatever batch it lands in
+                    boolean bad = thread == 1 && i == ORDERS_PER_THREAD / 2;
+                    ids.add(repository.create(order(bad ? null : "Client " + thread + "-" + i)));
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        repository.flush();
+
+        int total = THREADS * ORDERS_PER_THREAD;
+        List<Long> expectedIds = LongStream.rangeClosed(3, total + 2).boxed().collect(Collectors.toList());
+        List<Long> sortedIds = new ArrayList<>(ids);
+        Collections.sort(sortedIds);
+        assertEquals(expectedIds, sortedIds);
+
+        WriteBehindStats stats = repository.getStats();
+        assertEquals(total, stats.getSubmitted());
+        assertEquals(total - 1, stats.getCommitted());
+        assertEquals(1, stats.getFailed());
+        assertEquals(0, stats.getQueueDepth());
+        assertTrue(stats.getBatches() < total - 1, "orders were committed one by one");
+
+        assertEquals(1, failedOrders.size());
+        Order failed = failedOrders.get(0);
+        assertNull(failed.getCustomerName());
+        assertTrue(repository.findById(failed.getId()).isEmpty());
+
+        List<Long> sortedCommitted = new ArrayList<>(committedIds);
+        Collections.sort(sortedCommitted);
+        List<Long> expectedCommitted = new ArrayList<>(expectedIds);
+        expectedCommitted.remove(failed.getId());
+        assertEquals(expectedCommitted, sortedCommitted);
+
+        List<Order> stored = store.find(OrderQuery.all());
+        assertEquals(total, stored.size());
+        for (Order order : stored) {
+            assertEquals(1, order.getItems().size());
+        }
+    }
+
+    @Test
+    void goodOrdersOfAFailedBatchAreRetriedOneByOne() {
+        repository = open(new WriteBehindSettings(true, 100, 100, 1_000L));
+        long first = repository.create(order("Hoa"));
+        long bad = repository.create(order(null));
+        long last = repository.create(order("Tuan"));
+        repository.flush();
+
+        assertEquals(List.of(3L, 4L, 5L), List.of(first, bad, last));
+        WriteBehindStats stats = repository.getStats();
+        assertEquals(1, stats.getBatches());
+        assertEquals(2, stats.getCommitted());
+        assertEquals(1, stats.getFailed());
+        assertEquals(List.of(first, last), committedIds);
+        assertEquals("Hoa", store.findById(first).orElseThrow().getCustomerName());
+        assertTrue(store.findById(bad).isEmpty());
+        assertEquals("Tuan", store.findById(last).orElseThrow().getCustomerName());
+    }
+
+    @Test
+    void writesAndCloseWaitForQueuedOrders() {
+        repository = open(new WriteBehindSettings(true, 100, 100, 1_000L));
+        long id = repository.create(order("Hoa"));
+        assertEquals("Hoa", repository.findById(id).orElseThrow().getCustomerName());
+
+        // the status change waits for the insert instead of missing the row
+        assertTrue(repository.updateStatus(id, StatusOrder.FINI));
+        assertEquals(StatusOrder.FINI, store.findById(id).orElseThrow().getStatus());
+
+        long queued = repository.create(order("Tuan"));
+        repository.close();
+        assertEquals("Tuan", store.findById(queued).orElseThrow().getCustomerName());
+        assertEquals(2, repository.getStats().getCommitted());
+    }
+
+    private WriteBehindOrderRepository open(WriteBehindSettings settings) {
+        WriteBehindOrderRepository opened = new WriteBehindOrderRepository(store, settings);
+        opened.setWriteListener(new WriteBehindOrderRepository.WriteListener() {
+            @Override
+            public void onCommitted(List<Long> orderIds) {
+                committedIds.addAll(orderIds);
+            }
+
+            @Override
+            public void onFailed(Order order, RuntimeException exception) {
+                failedOrders.add(order);
+            }
+        });
+        return opened;
+    }
+
+    private Order order(String customer) {
+        return new Order(null, customer, StatusOrder.ENCOURS, LocalDateTime.of(2025, 3, 1, 12, 0),
+                new ArrayList<>(List.of(new OrderItem(dish, 1))), null, false);
+    }
+}
@@ -0,0 +1,95 @@
+package backend.transfer;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CsvRoundTripTest {
+
+    @Test
+    void quotedFieldsSurviveRoundTrip() throws IOException {
+        List<List<String>> rows = roundTrip(
+                new Object[]{"name", "message"},
+                new Object[]{"Phở, bò", "dit \"sans coriandre\""},
+                new Object[]{"Nem", "ligne 1\nligne 2\r\nligne 3"},
+                new Object[]{"Chè", ""});
+
+        assertEquals(List.of("Phở, bò", "dit \"sans coriandre\""), rows.get(0));
+        assertEquals(List.of("Nem", "ligne 1\nligne 2\r\nligne 3"), rows.get(1));
+        assertEquals(List.of("Chè", ""), rows.get(2));
+    }
+
+    @Test
+    void numbersAndNullsAreWrittenAsText() throws IOException {
+        StringWriter out = new StringWriter();
+        try (CsvWriter csv = new CsvWriter(out)) {
+            csv.writeRow("id", "price", "payer", "message");
+            csv.writeRow(42L, 12.5, true, null);
+        }
+        assertEquals("id,price,payer,message\r\n42,12.5,true,\r\n", out.toString());
+
+        CsvReader csv = new CsvReader(new StringReader(out.toString()));
+        List<String> row = csv.readRow();
+        assertEquals("42", csv.get(row, "id"));
+        assertEquals("12.5", csv.get(row, "price"));
+        assertNull(csv.get(row, "message"));
+    }
+
+    @Test
+    void byteOrderMarkIsSkippedEvenBeforeAQuotedHeader() throws IOException {
+        CsvReader csv = new CsvReader(new StringReader("\uFEFF\"name\",price\r\nBánh mì,6\r\n"));
+        assertTrue(csv.hasColumn("name"));
+        assertEquals("Bánh mì", csv.get(csv.readRow(), "name"));
+    }
+
+    @Test
+    void semicolonSeparatorIsDetectedFromHeader() throws IOException {
+        CsvReader csv = new CsvReader(new StringReader("name;price;category\n\"Riz, cantonais\";8,50;PLAT\n"));
+        List<String> row = csv.readRow();
+        assertEquals("Riz, cantonais", csv.get(row, "name"));
+        assertEquals("8,50", csv.get(row, "price"));
+        assertEquals("PLAT", csv.get(row, "category"));
+    }
+
+    @Test
+    void rowLinesCountEmbeddedLineBreaks() throws IOException {
+        CsvReader csv = new CsvReader(new StringReader("name,message\nA,\"un\ndeux\"\n\nB,trois\n"));
+        csv.readRow();
+        assertEquals(2, csv.getLine());
+        csv.readRow();
+        assertEquals(5, csv.getLine());
+        assertNull(csv.readRow());
+    }
+
+    @Test
+    void emptyInputIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new CsvReader(new StringReader("")));
+    }
+
+    private static List<List<String>> roundTrip(Object[] header, Object[]... rows) throws IOException {
+        StringWriter out = new StringWriter();
+        try (CsvWriter csv = new CsvWriter(out)) {
+            csv.writeRow(header);
+            for (Object[] row : rows) {
+                csv.writeRow(row);
+            }
+        }
+        List<List<String>> read = new ArrayList<>();
+        try (CsvReader csv = new CsvReader(new StringReader(out.toString()))) {
+            List<String> row;
+            while ((row = csv.readRow()) != null) {
+                read.add(row);
+            }
+        }
+        return read;
+    }
+}
@@ -0,0 +1,102 @@
+package backend.transfer;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JsonRoundTripTest {
+
+    @Test
+    void nestedElementsSurviveRoundTrip() throws IOException {
+        Map<String, Object> item = new LinkedHashMap<>();
+        item.put("dish_name", "Phở \"spécial\"");
+        item.put("quantity", 2L);
+        item.put("price", 12.5);
+        Map<String, Object> order = new LinkedHashMap<>();
+        order.put("order_id", 7L);
+        order.put("customer_name", "Lê\\Văn");
+        order.put("payer", true);
+        order.put("message", "ligne 1\nligne 2\r\n\ttabulée\u0001");
+        order.put("empty", null);
+        order.put("items", List.of(item));
+
+        List<Object> read = roundTrip(order, List.of(), Map.of());
+
+        assertEquals(List.of(order, List.of(), Map.of()), read);
+    }
+
+    @Test
+    void numbersKeepTheirType() throws IOException {
+        List<Object> read = read("[0, -3, 9007199254740993, 1.5, -2.5e3, 1E2]");
+        assertEquals(List.of(0L, -3L, 9007199254740993L, 1.5, -2500.0, 100.0), read);
+    }
+
+    @Test
+    void nonFiniteNumbersAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> roundTrip(Double.NaN));
+    }
+
+    @Test
+    void unicodeEscapesAreDecoded() throws IOException {
+        List<Object> read = read("[\"Ph\\u1edf b\\u00f2 \\ud83c\\udf5c\", \"a\\/b\\\\c\\\"d\"]");
+        assertEquals(List.of("Phở bò 🍜", "a/b\\c\"d"), read);
+    }
+
+    @Test
+    void byteOrderMarkAndWhitespaceAreSkipped() throws IOException {
+        assertEquals(List.of(Map.of("id", 1L)), read("\uFEFF\r\n [ { \"id\" : 1 } ]\n"));
+    }
+
+    @Test
+    void errorsReportTheLine() {
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+                () -> read("[\n{\"id\": 1},\n{\"id\" 2}\n]"));
+        assertEquals("Invalid JSON at line 3: expected ':'", error.getMessage());
+    }
+
+    @Test
+    void nullElementsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> read("[null]"));
+    }
+
+    @Test
+    void emptyArrayHasNoElements() throws IOException {
+        StringWriter out = new StringWriter();
+        new JsonWriter(out).close();
+        try (JsonReader json = new JsonReader(new StringReader(out.toString()))) {
+            assertNull(json.readElement());
+            assertNull(json.readElement());
+        }
+    }
+
+    private static List<Object> roundTrip(Object... elements) throws IOException {
+        StringWriter out = new StringWriter();
+        try (JsonWriter json = new JsonWriter(out)) {
+            for (Object element : elements) {
+                json.writeElement(element);
+            }
+        }
+        return read(out.toString());
+    }
+
+    private static List<Object> read(String text) throws IOException {
+        List<Object> read = new ArrayList<>();
+        try (JsonReader json = new JsonReader(new StringReader(text))) {
+            Object element;
+            while ((element = json.readElement()) != null) {
+                read.add(element);
+            }
+        }
+        return read;
+    }
+}